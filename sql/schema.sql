@@ -3,26 +3,55 @@
 CREATE TABLE pacientes (
   id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   nome VARCHAR2(120) NOT NULL,
-  email VARCHAR2(120) NOT NULL UNIQUE
+  email VARCHAR2(120) NOT NULL UNIQUE,
+  versao NUMBER DEFAULT 0 NOT NULL
 );
 
 CREATE TABLE medicos (
   id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   nome VARCHAR2(120) NOT NULL,
-  crm  VARCHAR2(20) NOT NULL UNIQUE
+  crm  VARCHAR2(20) NOT NULL UNIQUE,
+  versao NUMBER DEFAULT 0 NOT NULL
 );
 
+-- Ids das consultas: DEFAULT da coluna e reservados em bloco pelo agendamento em lote
+CREATE SEQUENCE consultas_seq;
+
 CREATE TABLE consultas (
-  id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id NUMBER DEFAULT consultas_seq.NEXTVAL PRIMARY KEY,
   paciente_id NUMBER NOT NULL REFERENCES pacientes(id),
   medico_id   NUMBER NOT NULL REFERENCES medicos(id),
   inicio      TIMESTAMP NOT NULL,
   fim         TIMESTAMP NOT NULL,
+  versao      NUMBER DEFAULT 0 NOT NULL,
   CONSTRAINT chk_intervalo CHECK (fim > inicio)
 );
 
 CREATE INDEX idx_consultas_medico_tempo ON consultas (medico_id, inicio, fim);
 
+-- Consultas antigas movidas pelo ArquivadorConsultas (mesmo id da tabela consultas)
+CREATE TABLE consultas_historico (
+  id NUMBER PRIMARY KEY,
+  paciente_id NUMBER NOT NULL REFERENCES pacientes(id),
+  medico_id   NUMBER NOT NULL REFERENCES medicos(id),
+  inicio      TIMESTAMP NOT NULL,
+  fim         TIMESTAMP NOT NULL,
+  versao      NUMBER DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX idx_historico_medico_tempo ON consultas_historico (medico_id, inicio, fim);
+
+-- Bancos criados antes da coluna versao (controle de concorrência otimista):
+-- ALTER TABLE pacientes ADD versao NUMBER DEFAULT 0 NOT NULL;
+-- ALTER TABLE medicos ADD versao NUMBER DEFAULT 0 NOT NULL;
+-- ALTER TABLE consultas ADD versao NUMBER DEFAULT 0 NOT NULL;
+-- ALTER TABLE consultas_historico ADD versao NUMBER DEFAULT 0 NOT NULL;
+
+-- Bancos criados com consultas.id IDENTITY (Oracle 12c ou superior), antes da consultas_seq:
+-- CREATE SEQUENCE consultas_seq START WITH <maior id de consultas e consultas_historico + 1>;
+-- ALTER TABLE consultas MODIFY id DROP IDENTITY;
+-- ALTER TABLE consultas MODIFY id DEFAULT consultas_seq.NEXTVAL;
+
 SELECT * FROM consultas;
 
 SELECT * FROM medicos;
@@ -0,0 +1,59 @@
+package com.example.clinic.carga;
+
+import com.example.clinic.config.OracleConnectionFactory;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Banco H2 em memória (modo Oracle) com o mesmo esquema de sql/schema.sql, para o modo "h2" do
+ * gerador de carga. Passa a ser o DataSource de {@link OracleConnectionFactory}.
+ */
+final class BancoEmbutido {
+
+    private BancoEmbutido() {}
+
+    static void criar(int tamanhoPool, int pacientes, int medicos) throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("carga-h2");
+        config.setJdbcUrl("jdbc:h2:mem:carga;MODE=Oracle;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        config.setMaximumPoolSize(tamanhoPool);
+        config.setMinimumIdle(tamanhoPool);
+        config.setRegisterMbeans(true);
+        OracleConnectionFactory.usarDataSource(new HikariDataSource(config));
+
+        try (Connection con = OracleConnectionFactory.getConnection()) {
+            try (Statement st = con.createStatement()) {
+                st.execute("CREATE TABLE pacientes (id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                        "nome VARCHAR2(120) NOT NULL, email VARCHAR2(120) NOT NULL UNIQUE, versao NUMBER DEFAULT 0 NOT NULL)");
+                st.execute("CREATE TABLE medicos (id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                        "nome VARCHAR2(120) NOT NULL, crm VARCHAR2(20) NOT NULL UNIQUE, versao NUMBER DEFAULT 0 NOT NULL)");
+                st.execute("CREATE SEQUENCE consultas_seq");
+                st.execute("CREATE TABLE consultas (id NUMBER DEFAULT consultas_seq.NEXTVAL PRIMARY KEY, " +
+                        "paciente_id NUMBER NOT NULL REFERENCES pacientes(id), medico_id NUMBER NOT NULL REFERENCES medicos(id), " +
+                        "inicio TIMESTAMP NOT NULL, fim TIMESTAMP NOT NULL, versao NUMBER DEFAULT 0 NOT NULL, CONSTRAINT chk_intervalo CHECK (fim > inicio))");
+                st.execute("CREATE INDEX idx_consultas_medico_tempo ON consultas (medico_id, inicio, fim)");
+            }
+            try (PreparedStatement ps = con.prepareStatement("INSERT INTO pacientes (nome, email) VALUES (?, ?)")) {
+                for (int i = 1; i <= pacientes; i++) {
+                    ps.setString(1, "Paciente " + i);
+                    ps.setString(2, "paciente" + i + "@carga.com");
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = con.prepareStatement("INSERT INTO medicos (nome, crm) VALUES (?, ?)")) {
+                for (int i = 1; i <= medicos; i++) {
+                    ps.setString(1, "Medico " + i);
+                    ps.setString(2, "CRM" + (10000 + i));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+    }
+}
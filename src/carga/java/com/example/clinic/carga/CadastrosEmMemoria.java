@@ -0,0 +1,155 @@
+package com.example.clinic.carga;
+
+import com.example.clinic.dao.jdbc.ConsultaJdbcRepository;
+import com.example.clinic.dao.jdbc.MedicoDao;
+import com.example.clinic.dao.jdbc.PacienteDao;
+import com.example.clinic.domain.Consulta;
+import com.example.clinic.domain.Medico;
+import com.example.clinic.domain.Paciente;
+import com.example.clinic.service.AgendaService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Repositórios em memória para o modo "memoria" do gerador de carga: isolam o custo dos serviços
+ * (validações, travas, caches) do custo do banco. Só implementam o que o gerador usa.
+ */
+final class CadastrosEmMemoria {
+
+    private CadastrosEmMemoria() {}
+
+    /** Consultas por médico; cada lista é protegida pelo próprio monitor. */
+    static final class Consultas implements AgendaService.ConsultaRepository {
+        private final Map<Long, List<Consulta>> porMedico = new ConcurrentHashMap<>();
+        private final Map<Long, Consulta> porId = new ConcurrentHashMap<>();
+        private final AtomicLong ids = new AtomicLong();
+        private final List<ConsultaJdbcRepository.OuvinteConsultas> ouvintes = new CopyOnWriteArrayList<>();
+
+        // Mesmo contrato do repositório JDBC, para manter um IndiceAgenda atualizado
+        void adicionarOuvinte(ConsultaJdbcRepository.OuvinteConsultas ouvinte) {
+            ouvintes.add(ouvinte);
+        }
+
+        @Override
+        public List<Consulta> listarPorMedicoNoIntervalo(long medicoId, LocalDateTime inicio, LocalDateTime fim) {
+            List<Consulta> agenda = porMedico.get(medicoId);
+            List<Consulta> resultado = new ArrayList<>();
+            if (agenda == null) return resultado;
+            synchronized (agenda) {
+                for (Consulta c : agenda) {
+                    if (c.getInicio().isBefore(fim) && c.getFim().isAfter(inicio)) {
+                        resultado.add(c);
+                    }
+                }
+            }
+            return resultado;
+        }
+
+        @Override
+        public Long salvar(Consulta c) {
+            long id = ids.incrementAndGet();
+            Consulta salva = new Consulta(id, c.getPacienteId(), c.getMedicoId(), c.getInicio(), c.getFim());
+            List<Consulta> agenda = porMedico.computeIfAbsent(c.getMedicoId(), k -> new ArrayList<>());
+            synchronized (agenda) {
+                agenda.add(salva);
+                porId.put(id, salva);
+            }
+            ouvintes.forEach(o -> o.aoSalvar(salva));
+            return id;
+        }
+
+        @Override
+        public Consulta buscarPorId(long id) {
+            return porId.get(id);
+        }
+
+        @Override
+        public boolean remarcar(Consulta atual, Consulta nova) {
+            List<Consulta> agenda = porMedico.get(atual.getMedicoId());
+            if (agenda == null) return false;
+            Consulta gravada;
+            synchronized (agenda) {
+                Consulta anterior = porId.get(atual.getId());
+                if (anterior == null || anterior.getVersao() != atual.getVersao()
+                        || anterior.getMedicoId().longValue() != atual.getMedicoId()) {
+                    return false;
+                }
+                for (Consulta c : agenda) {
+                    if (c != anterior && c.getInicio().isBefore(nova.getFim()) && c.getFim().isAfter(nova.getInicio())) {
+                        return false;
+                    }
+                }
+                gravada = new Consulta(anterior.getId(), anterior.getPacienteId(), anterior.getMedicoId(),
+                        nova.getInicio(), nova.getFim(), anterior.getVersao() + 1);
+                agenda.set(agenda.indexOf(anterior), gravada);
+                porId.put(gravada.getId(), gravada);
+            }
+            ouvintes.forEach(o -> o.aoAtualizar(gravada));
+            return true;
+        }
+
+        @Override
+        public boolean cancelar(long consultaId, LocalDateTime agora) {
+            Consulta gravada = porId.get(consultaId);
+            if (gravada == null) return false;
+            List<Consulta> agenda = porMedico.get(gravada.getMedicoId());
+            synchronized (agenda) {
+                // Relida sob o monitor: pode ter sido remarcada ou cancelada no meio tempo
+                gravada = porId.get(consultaId);
+                if (gravada == null || !gravada.getInicio().isAfter(agora)) return false;
+                agenda.remove(gravada);
+                porId.remove(consultaId);
+            }
+            ouvintes.forEach(o -> o.aoDeletar(consultaId));
+            return true;
+        }
+    }
+
+    static final class Pacientes extends PacienteDao {
+        private final List<Paciente> registros = new ArrayList<>();
+
+        Pacientes(int quantidade) {
+            for (long id = 1; id <= quantidade; id++) {
+                registros.add(new Paciente(id, "Paciente " + id, "paciente" + id + "@carga.com"));
+            }
+        }
+
+        @Override
+        public Paciente buscarPorId(long id) {
+            return id >= 1 && id <= registros.size() ? registros.get((int) id - 1) : null;
+        }
+
+        @Override
+        public List<Paciente> listarPagina(long aposId, int limite) {
+            int de = (int) Math.max(0, Math.min(aposId, registros.size()));
+            return new ArrayList<>(registros.subList(de, Math.min(de + limite, registros.size())));
+        }
+    }
+
+    static final class Medicos extends MedicoDao {
+        private final List<Medico> registros = new ArrayList<>();
+
+        Medicos(int quantidade) {
+            for (long id = 1; id <= quantidade; id++) {
+                registros.add(new Medico(id, "Medico " + id, "CRM" + (10000 + id)));
+            }
+        }
+
+        @Override
+        public Medico buscarPorId(long id) {
+            return id >= 1 && id <= registros.size() ? registros.get((int) id - 1) : null;
+        }
+
+        @Override
+        public List<Medico> listarPagina(long aposId, int limite) {
+            int de = (int) Math.max(0, Math.min(aposId, registros.size()));
+            return new ArrayList<>(registros.subList(de, Math.min(de + limite, registros.size())));
+        }
+    }
+}
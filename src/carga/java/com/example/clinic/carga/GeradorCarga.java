@@ -0,0 +1,295 @@
+package com.example.clinic.carga;
+
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.dao.arquivo.ConsultaArquivoRepository;
+import com.example.clinic.dao.jdbc.ConsultaJdbcRepository;
+import com.example.clinic.dao.jdbc.MedicoDao;
+import com.example.clinic.dao.jdbc.PacienteDao;
+import com.example.clinic.domain.Consulta;
+import com.example.clinic.metricas.Medidor;
+import com.example.clinic.metricas.Metricas;
+import com.example.clinic.service.AgendaService;
+import com.example.clinic.service.IndiceAgenda;
+import com.example.clinic.service.MedicoService;
+import com.example.clinic.service.PacienteService;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gerador de carga: várias recepcionistas simuladas (uma thread cada) agendando, consultando
+ * horários, buscando cadastros e listando páginas pelos serviços reais, por um tempo fixo.
+ * Ao final mostra vazão, percentis de latência por operação, taxa de recusa por choque de horário
+ * e os erros agrupados por tipo.
+ *
+ * Uso: {@code mvn -P carga test-compile exec:java -DCARGA_MODO=h2 -DCARGA_THREADS=64}
+ * (ou as variáveis de ambiente CARGA_*). Parâmetros e padrões:
+ * <pre>
+ *   CARGA_MODO            memoria | h2 (banco embutido com o esquema real)       memoria
+ *                         | arquivo (consultas no armazenamento local, cadastros em memória)
+ *   CARGA_THREADS         recepcionistas simultâneas                             32
+ *   CARGA_MEDICOS         médicos cadastrados                                    50
+ *   CARGA_PACIENTES       pacientes cadastrados                                  1000
+ *   CARGA_DIAS            dias à frente em que as consultas são marcadas         30
+ *   CARGA_SEGUNDOS        duração da medição                                     30
+ *   CARGA_AQUECIMENTO     segundos de carga antes de medir                       5
+ *   CARGA_MIX             pesos das operações                                    agendar=50,horarios=20,buscar=20,listar=10
+ *   CARGA_CONCENTRACAO    expoente Zipf da escolha do médico (0 = uniforme)      0
+ *   CARGA_CONSULTA_MIN    duração mínima da consulta, em minutos                 15
+ *   CARGA_CONSULTA_MAX    duração máxima da consulta, em minutos                 60
+ *   CARGA_INDICE          usa o IndiceAgenda na checagem de choque               false
+ * </pre>
+ */
+public class GeradorCarga {
+
+    private static final String[] OPERACOES = {"agendar", "horarios", "buscar", "listar"};
+
+    private final int threads = Configuracao.inteiro("CARGA_THREADS", 32);
+    private final int medicos = Configuracao.inteiro("CARGA_MEDICOS", 50);
+    private final int pacientes = Configuracao.inteiro("CARGA_PACIENTES", 1000);
+    private final int dias = Configuracao.inteiro("CARGA_DIAS", 30);
+    private final int segundos = Configuracao.inteiro("CARGA_SEGUNDOS", 30);
+    private final int aquecimento = Configuracao.inteiro("CARGA_AQUECIMENTO", 5);
+    private final int consultaMin = Configuracao.inteiro("CARGA_CONSULTA_MIN", 15);
+    private final int consultaMax = Configuracao.inteiro("CARGA_CONSULTA_MAX", 60);
+    private final String modo = Configuracao.texto("CARGA_MODO", "memoria");
+    private final boolean usarIndice = Configuracao.booleano("CARGA_INDICE", false);
+    private final int[] mixAcumulado = mix(Configuracao.texto("CARGA_MIX", "agendar=50,horarios=20,buscar=20,listar=10"));
+    private final double[] escolhaMedico = zipf(medicos,
+            Double.parseDouble(Configuracao.texto("CARGA_CONCENTRACAO", "0")));
+
+    private final Medidor[] medidores = new Medidor[OPERACOES.length];
+    private final LongAdder aceitas = new LongAdder();
+    private final LongAdder recusadasPorChoque = new LongAdder();
+    private final Map<String, LongAdder> erros = new ConcurrentHashMap<>();
+    private volatile boolean medindo;
+    private volatile boolean parar;
+
+    private AgendaService agendaService;
+    private PacienteService pacienteService;
+    private MedicoService medicoService;
+
+    public static void main(String[] args) throws Exception {
+        new GeradorCarga().executar();
+    }
+
+    void executar() throws Exception {
+        preparar();
+        for (int i = 0; i < OPERACOES.length; i++) {
+            medidores[i] = Metricas.medidor("Carga." + OPERACOES[i]);
+        }
+
+        System.out.printf("Modo %s, %d threads, %d médicos, %d pacientes, %ds de medição (+%ds de aquecimento)%n",
+                modo, threads, medicos, pacientes, segundos, aquecimento);
+
+        CountDownLatch fim = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread recepcionista = new Thread(() -> {
+                try {
+                    while (!parar) {
+                        operacao();
+                    }
+                } finally {
+                    fim.countDown();
+                }
+            }, "recepcionista-" + t);
+            recepcionista.setDaemon(true);
+            recepcionista.start();
+        }
+
+        Thread.sleep(aquecimento * 1000L);
+        // Todos os medidores, não só os Carga.*: o resumo final não deve misturar amostras do aquecimento
+        for (Medidor m : Metricas.todos()) m.zerar();
+        aceitas.reset();
+        recusadasPorChoque.reset();
+        erros.clear();
+        medindo = true;
+        long inicio = System.nanoTime();
+        Thread.sleep(segundos * 1000L);
+        medindo = false;
+        double decorrido = (System.nanoTime() - inicio) / 1e9;
+        parar = true;
+        fim.await();
+
+        relatorio(decorrido);
+        OracleConnectionFactory.fechar();
+    }
+
+    private void preparar() throws Exception {
+        AgendaService.ConsultaRepository consultas;
+        PacienteDao pacienteDao;
+        MedicoDao medicoDao;
+        switch (modo) {
+            case "memoria" -> {
+                consultas = new CadastrosEmMemoria.Consultas();
+                pacienteDao = new CadastrosEmMemoria.Pacientes(pacientes);
+                medicoDao = new CadastrosEmMemoria.Medicos(medicos);
+            }
+            case "h2" -> {
+                BancoEmbutido.criar(Configuracao.inteiro("CARGA_POOL", Math.min(threads, 32)), pacientes, medicos);
+                consultas = new ConsultaJdbcRepository();
+                pacienteDao = new PacienteDao();
+                medicoDao = new MedicoDao();
+            }
+            case "arquivo" -> {
+                consultas = ConsultaArquivoRepository.abrir(Files.createTempDirectory("carga-consultas"));
+                pacienteDao = new CadastrosEmMemoria.Pacientes(pacientes);
+                medicoDao = new CadastrosEmMemoria.Medicos(medicos);
+            }
+            default -> throw new IllegalArgumentException("CARGA_MODO deve ser memoria, h2 ou arquivo: " + modo);
+        }
+
+        // O armazenamento local já verifica choques em memória: o índice não se aplica
+        IndiceAgenda indice = null;
+        if (usarIndice && !(consultas instanceof ConsultaArquivoRepository)) {
+            if (consultas instanceof ConsultaJdbcRepository jdbc) {
+                indice = IndiceAgenda.criarAquecido(jdbc);
+            } else {
+                indice = new IndiceAgenda(consultas, Duration.ZERO);
+                ((CadastrosEmMemoria.Consultas) consultas).adicionarOuvinte(indice);
+            }
+        }
+        AgendaService.TransacaoPorMedico transacao =
+                consultas instanceof AgendaService.TransacaoPorMedico t ? t : null;
+        agendaService = new AgendaService(consultas, transacao, indice);
+        pacienteService = new PacienteService(pacienteDao);
+        medicoService = new MedicoService(medicoDao);
+    }
+
+    private void operacao() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        int sorteio = aleatorio.nextInt(mixAcumulado[mixAcumulado.length - 1]);
+        int op = 0;
+        while (sorteio >= mixAcumulado[op]) op++;
+
+        long medicoId = medico(aleatorio);
+        LocalDate dia = LocalDate.now().plusDays(1 + aleatorio.nextInt(dias));
+        long inicio = System.nanoTime();
+        try {
+            switch (op) {
+                case 0 -> agendar(aleatorio, medicoId, dia);
+                case 1 -> agendaService.buscarHorariosLivres(medicoId, dia, dia, consultaMin);
+                case 2 -> {
+                    if (aleatorio.nextBoolean()) {
+                        pacienteService.buscarPorId(1 + aleatorio.nextInt(pacientes));
+                    } else {
+                        medicoService.buscarPorId(medicoId);
+                    }
+                }
+                default -> pacienteService.listarPagina(aleatorio.nextInt(pacientes), 50);
+            }
+        } catch (RuntimeException e) {
+            if (medindo) {
+                medidores[op].registrarErro();
+                String mensagem = String.valueOf(e.getMessage());
+                if (mensagem.length() > 80) mensagem = mensagem.substring(0, 80) + "...";
+                erros.computeIfAbsent(OPERACOES[op] + " " + e.getClass().getSimpleName() + ": " + mensagem,
+                        k -> new LongAdder()).increment();
+            }
+        } finally {
+            if (medindo) medidores[op].registrarDesde(inicio);
+        }
+    }
+
+    private void agendar(ThreadLocalRandom aleatorio, long medicoId, LocalDate dia) {
+        int duracao = consultaMin + 15 * aleatorio.nextInt((consultaMax - consultaMin) / 15 + 1);
+        // Início em múltiplos de 15 minutos dentro do horário comercial (08:00-18:00)
+        int vagas = (600 - duracao) / 15 + 1;
+        LocalDateTime inicio = dia.atTime(8, 0).plusMinutes(15L * aleatorio.nextInt(vagas));
+        long pacienteId = 1 + aleatorio.nextInt(pacientes);
+        try {
+            agendaService.agendar(new Consulta(null, pacienteId, medicoId, inicio, inicio.plusMinutes(duracao)));
+            if (medindo) aceitas.increment();
+        } catch (IllegalStateException e) {
+            // Choque de horário é resultado esperado da carga, não erro
+            if (medindo) recusadasPorChoque.increment();
+        }
+    }
+
+    private long medico(ThreadLocalRandom aleatorio) {
+        int i = Arrays.binarySearch(escolhaMedico, aleatorio.nextDouble());
+        return (i >= 0 ? i : -i - 1) + 1;
+    }
+
+    private void relatorio(double decorrido) {
+        System.out.printf("%n%-10s %10s %10s %10s %10s %10s %10s %8s%n",
+                "operação", "ops", "ops/s", "média(us)", "p50(us)", "p99(us)", "max(us)", "erros");
+        long total = 0;
+        for (int i = 0; i < OPERACOES.length; i++) {
+            Medidor m = medidores[i];
+            total += m.getChamadas();
+            System.out.printf("%-10s %10d %10.0f %10.1f %10.1f %10.1f %10.1f %8d%n", OPERACOES[i],
+                    m.getChamadas(), m.getChamadas() / decorrido, m.getMediaMicros(),
+                    m.getP50Micros(), m.getP99Micros(), m.getMaxMicros(), m.getErros());
+        }
+        System.out.printf("%-10s %10d %10.0f%n", "total", total, total / decorrido);
+
+        long tentativas = aceitas.sum() + recusadasPorChoque.sum();
+        System.out.printf("%nAgendamentos: %d aceitos, %d recusados por choque de horário (%.1f%%)%n",
+                aceitas.sum(), recusadasPorChoque.sum(),
+                tentativas == 0 ? 0.0 : 100.0 * recusadasPorChoque.sum() / tentativas);
+
+        if (!erros.isEmpty()) {
+            System.out.println("\nErros:");
+            Map<String, Long> ordenados = new TreeMap<>();
+            erros.forEach((k, v) -> ordenados.put(k, v.sum()));
+            ordenados.forEach((k, v) -> System.out.printf("  %8d  %s%n", v, k));
+        }
+        if (modo.equals("h2")) {
+            System.out.println("\nPool ao final: " + OracleConnectionFactory.estatisticas());
+        }
+        System.out.println("\n" + Metricas.resumo());
+    }
+
+    // "agendar=50,horarios=20" -> pesos acumulados na ordem de OPERACOES
+    private static int[] mix(String especificacao) {
+        int[] pesos = new int[OPERACOES.length];
+        for (String parte : especificacao.split(",")) {
+            String[] chaveValor = parte.trim().split("=");
+            int op = List.of(OPERACOES).indexOf(chaveValor[0].trim());
+            if (op < 0 || chaveValor.length != 2) {
+                throw new IllegalArgumentException("CARGA_MIX inválido: " + parte + " (operações: " + List.of(OPERACOES) + ")");
+            }
+            pesos[op] = Integer.parseInt(chaveValor[1].trim());
+        }
+        int[] acumulado = new int[pesos.length];
+        int soma = 0;
+        for (int i = 0; i < pesos.length; i++) {
+            soma += pesos[i];
+            acumulado[i] = soma;
+        }
+        if (soma <= 0) throw new IllegalArgumentException("CARGA_MIX sem nenhuma operação");
+        return acumulado;
+    }
+
+    // Distribuição acumulada de Zipf: o médico k recebe peso 1/k^s (s = 0 é uniforme)
+    private static double[] zipf(int n, double s) {
+        List<Double> pesos = new ArrayList<>(n);
+        double soma = 0;
+        for (int k = 1; k <= n; k++) {
+            double p = 1.0 / Math.pow(k, s);
+            pesos.add(p);
+            soma += p;
+        }
+        double[] acumulado = new double[n];
+        double parcial = 0;
+        for (int k = 0; k < n; k++) {
+            parcial += pesos.get(k) / soma;
+            acumulado[k] = parcial;
+        }
+        acumulado[n - 1] = 1.0;
+        return acumulado;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.clinic.dao.jdbc;
+
+import com.example.clinic.domain.Consulta;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de ConsultaJdbcRepository.map por linha, sem banco: o ResultSet é um proxy que devolve
+ * valores fixos, então o número medido é só o mapeamento (leitura por posição, datas como
+ * LocalDateTime e criação da Consulta).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapeamentoBenchmark {
+
+    private ConsultaJdbcRepository repository;
+    private ResultSet linha;
+
+    @Setup
+    public void preparar() {
+        repository = new ConsultaJdbcRepository();
+        LocalDateTime inicio = LocalDateTime.of(2030, 1, 10, 9, 0);
+        Map<String, Object> colunas = Map.of(
+                "id", 1L, "paciente_id", 2L, "medico_id", 3L,
+                "inicio", Timestamp.valueOf(inicio), "fim", Timestamp.valueOf(inicio.plusMinutes(30)));
+        Object[] porIndice = {1L, 2L, 3L, Timestamp.valueOf(inicio), Timestamp.valueOf(inicio.plusMinutes(30))};
+        linha = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                (proxy, metodo, args) -> {
+                    Object valor = args[0] instanceof String nome ? colunas.get(nome) : porIndice[(Integer) args[0] - 1];
+                    return switch (metodo.getName()) {
+                        case "getLong" -> valor;
+                        case "getTimestamp" -> valor;
+                        case "getObject" -> valor instanceof Timestamp t ? t.toLocalDateTime() : valor;
+                        default -> throw new SQLException("Não suportado: " + metodo.getName());
+                    };
+                });
+    }
+
+    @Benchmark
+    public Consulta mapConsulta() throws SQLException {
+        return repository.map(linha);
+    }
+}
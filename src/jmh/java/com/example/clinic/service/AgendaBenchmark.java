@@ -0,0 +1,140 @@
+package com.example.clinic.service;
+
+import com.example.clinic.domain.Consulta;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caminho do agendamento: agendar de ponta a ponta sobre um repositório em memória e a
+ * verificação de choque isolada, com algumas centenas de consultas por médico.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AgendaBenchmark {
+
+    @Param({"100", "300", "1000"})
+    int consultasPorMedico;
+
+    private List<Consulta> existentes;
+    private LinhaDoTempo linhaDoTempo;
+    private Consulta livre;
+    private Consulta emChoque;
+    private AgendaService servico;
+    private AgendaService servicoComIndice;
+
+    @Setup
+    public void preparar() {
+        LocalDate primeiroDia = LocalDate.now().plusDays(1);
+        existentes = new ArrayList<>(consultasPorMedico);
+        linhaDoTempo = new LinhaDoTempo();
+        // 10 consultas de 15 minutos por dia, das 08:00 às 12:45
+        for (int i = 0; i < consultasPorMedico; i++) {
+            LocalDateTime inicio = primeiroDia.plusDays(i / 10).atTime(8, 0).plusMinutes(30L * (i % 10));
+            Consulta c = new Consulta((long) i + 1, 1L, 1L, inicio, inicio.plusMinutes(15));
+            existentes.add(c);
+            linhaDoTempo.adicionar(c);
+        }
+        LocalDate meio = primeiroDia.plusDays(consultasPorMedico / 20);
+        livre = new Consulta(null, 1L, 1L, meio.atTime(14, 0), meio.atTime(14, 30));
+        emChoque = new Consulta(null, 1L, 1L, meio.atTime(10, 5), meio.atTime(10, 35));
+
+        RepositorioEmMemoria repo = new RepositorioEmMemoria(existentes);
+        servico = new AgendaService(repo);
+        IndiceAgenda indice = new IndiceAgenda(repo, Duration.ZERO);
+        indice.aquecer(existentes);
+        servicoComIndice = new AgendaService(repo, null, indice);
+    }
+
+    @Benchmark
+    public Long agendar() {
+        return servico.agendar(livre);
+    }
+
+    @Benchmark
+    public Long agendarComIndice() {
+        return servicoComIndice.agendar(livre);
+    }
+
+    // Verificação atual: anyMatch sobre todas as consultas do médico
+    @Benchmark
+    public boolean choqueListaLivre() {
+        return AgendaService.haChoque(existentes, livre);
+    }
+
+    @Benchmark
+    public boolean choqueListaEmChoque() {
+        return AgendaService.haChoque(existentes, emChoque);
+    }
+
+    // Mesma verificação sobre o mapa ordenado usado pelo índice e pelo lote
+    @Benchmark
+    public boolean choqueLinhaDoTempoLivre() {
+        return linhaDoTempo.conflita(livre.getInicio(), livre.getFim(), null);
+    }
+
+    @Benchmark
+    public boolean choqueLinhaDoTempoEmChoque() {
+        return linhaDoTempo.conflita(emChoque.getInicio(), emChoque.getFim(), null);
+    }
+
+    // Repositório que filtra uma lista fixa; salvar, remarcar e cancelar não gravam para manter o estado
+    // estável entre iterações, só respondem se a operação seria aceita
+    static final class RepositorioEmMemoria implements AgendaService.ConsultaRepository {
+        private final List<Consulta> consultas;
+        private final AtomicLong ids = new AtomicLong(1_000_000);
+
+        RepositorioEmMemoria(List<Consulta> consultas) {
+            this.consultas = consultas;
+        }
+
+        @Override
+        public List<Consulta> listarPorMedicoNoIntervalo(long medicoId, LocalDateTime inicio, LocalDateTime fim) {
+            List<Consulta> resultado = new ArrayList<>();
+            for (Consulta c : consultas) {
+                if (c.getMedicoId() == medicoId && c.getInicio().isBefore(fim) && c.getFim().isAfter(inicio)) {
+                    resultado.add(c);
+                }
+            }
+            return resultado;
+        }
+
+        @Override
+        public Long salvar(Consulta c) {
+            return ids.incrementAndGet();
+        }
+
+        @Override
+        public Consulta buscarPorId(long id) {
+            for (Consulta c : consultas) {
+                if (c.getId() == id) return c;
+            }
+            return null;
+        }
+
+        @Override
+        public boolean remarcar(Consulta atual, Consulta nova) {
+            Consulta gravada = buscarPorId(atual.getId());
+            if (gravada == null || gravada.getVersao() != atual.getVersao()) return false;
+            for (Consulta c : listarPorMedicoNoIntervalo(atual.getMedicoId(), nova.getInicio(), nova.getFim())) {
+                if (c.getId().longValue() != atual.getId()) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean cancelar(long consultaId, LocalDateTime agora) {
+            Consulta gravada = buscarPorId(consultaId);
+            return gravada != null && gravada.getInicio().isAfter(agora);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.clinic.service;
+
+import com.example.clinic.domain.Paciente;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Busca por nome do IndicePacientes com um milhão de pacientes sintéticos: prefixo curto (muitos
+ * candidatos), dois termos e termo com erro de digitação (busca por trigramas).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class BuscaPacientesBenchmark {
+
+    private static final String[] NOMES = {"José", "Maria", "Ana", "João", "Antônio", "Francisca", "Carlos",
+            "Paulo", "Adriana", "Lucas", "Luíza", "Marcos", "Patrícia", "Rafael", "Sandra", "Tiago"};
+    private static final String[] SOBRENOMES = {"Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira",
+            "Alves", "Pereira", "Lima", "Gomes", "Costa", "Ribeiro", "Martins", "Carvalho", "Araújo", "Melo"};
+
+    @Param({"1000000"})
+    public int pacientes;
+
+    private IndicePacientes indice;
+
+    @Setup
+    public void preparar() {
+        Random rnd = new Random(42);
+        indice = new IndicePacientes();
+        indice.carregarSeNecessario(() -> LongStream.rangeClosed(1, pacientes).mapToObj(id -> {
+            String nome = NOMES[rnd.nextInt(NOMES.length)] + " " + SOBRENOMES[rnd.nextInt(SOBRENOMES.length)]
+                    + " " + SOBRENOMES[rnd.nextInt(SOBRENOMES.length)];
+            return new Paciente(id, nome, "paciente" + id + "@email.com");
+        }));
+    }
+
+    @Benchmark
+    public List<Paciente> prefixoCurto() {
+        return indice.buscar("ma", 10);
+    }
+
+    @Benchmark
+    public List<Paciente> doisTermos() {
+        return indice.buscar("jose olive", 10);
+    }
+
+    @Benchmark
+    public List<Paciente> erroDeDigitacao() {
+        return indice.buscar("rodirgues", 10);
+    }
+}
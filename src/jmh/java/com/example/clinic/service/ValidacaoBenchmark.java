@@ -0,0 +1,47 @@
+package com.example.clinic.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Validações de cadastro: regex de email do PacienteService e validarCrm do MedicoService
+ * (que hoje usa String.matches, compilando o padrão a cada chamada). O padrão pré-compilado
+ * serve de referência para a comparação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ValidacaoBenchmark {
+
+    private static final Pattern CRM_PRE_COMPILADO = Pattern.compile("CRM\\d{4,6}");
+
+    private PacienteService pacienteService;
+    private MedicoService medicoService;
+
+    @Setup
+    public void preparar() {
+        pacienteService = new PacienteService(null);
+        medicoService = new MedicoService(null);
+    }
+
+    @Benchmark
+    public Object emailValido() {
+        return pacienteService.novoPaciente("Maria Oliveira", "Maria.Oliveira+clinica@email.com.br");
+    }
+
+    @Benchmark
+    public void crmValido(Blackhole bh) {
+        medicoService.validarCrm("crm123456");
+        bh.consume(true);
+    }
+
+    @Benchmark
+    public boolean crmPreCompilado() {
+        return CRM_PRE_COMPILADO.matcher("crm123456".trim().toUpperCase()).matches();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.clinic.config;
+
+/**
+ * Leitura centralizada de configurações.
+ * Procura primeiro a variável de ambiente e depois a system property (-DNOME=valor)
+ * com o mesmo nome, caindo no valor padrão quando nenhuma das duas estiver definida.
+ */
+public final class Configuracao {
+
+    private Configuracao() {}
+
+    public static String texto(String nome, String padrao) {
+        String valor = System.getenv(nome);
+        if (valor == null || valor.isBlank()) {
+            valor = System.getProperty(nome);
+        }
+        return (valor == null || valor.isBlank()) ? padrao : valor.trim();
+    }
+
+    public static int inteiro(String nome, int padrao) {
+        String valor = texto(nome, null);
+        if (valor == null) return padrao;
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Configuração " + nome + " deve ser um número inteiro: " + valor, e);
+        }
+    }
+
+    public static long longo(String nome, long padrao) {
+        String valor = texto(nome, null);
+        if (valor == null) return padrao;
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Configuração " + nome + " deve ser um número inteiro: " + valor, e);
+        }
+    }
+
+    public static boolean booleano(String nome, boolean padrao) {
+        String valor = texto(nome, null);
+        return valor == null ? padrao : Boolean.parseBoolean(valor);
+    }
+}
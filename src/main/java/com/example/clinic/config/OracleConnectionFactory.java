@@ -1,26 +1,128 @@
 package com.example.clinic.config;
 
+import com.example.clinic.metricas.Medidor;
+import com.example.clinic.metricas.Metricas;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.Properties;
 
 /**
- * ConnectionFactory para Oracle.
+ * ConnectionFactory para Oracle, com pool de conexões (HikariCP).
  * Defina variáveis de ambiente: ORACLE_URL, ORACLE_USER, ORACLE_PASSWORD.
  * Exemplo de URL:
  *   jdbc:oracle:thin:@//localhost:1521/FREEPDB1
+ *
+ * Ajustes do pool (opcionais):
+ *   ORACLE_POOL_MIN            conexões ociosas mantidas abertas (padrão 2)
+ *   ORACLE_POOL_MAX            limite de conexões simultâneas (padrão 10)
+ *   ORACLE_POOL_TIMEOUT_MS     espera máxima para obter uma conexão (padrão 5000)
+ *   ORACLE_POOL_OCIOSA_MS      tempo até fechar uma conexão ociosa excedente (padrão 300000)
+ *   ORACLE_POOL_VIDA_MS        tempo máximo de vida de uma conexão (padrão 1800000)
+ *   ORACLE_STATEMENT_CACHE     PreparedStatements mantidos abertos por conexão física (padrão 64; 0 desliga)
+ *
+ * O pool é criado na primeira chamada de {@link #getConnection()}. Os DAOs continuam usando
+ * try-with-resources: fechar a conexão devolve ela ao pool em vez de encerrar a sessão.
+ * Dentro de {@link Transacoes#executar}, todos os DAOs da thread recebem a conexão da transação.
+ * A espera por uma conexão do pool é medida em "OracleConnectionFactory.obterConexao" ({@link Metricas}).
  */
 public class OracleConnectionFactory {
 
+    private static volatile DataSource dataSource;
+    private static final Medidor OBTER_CONEXAO = Metricas.medidor("OracleConnectionFactory.obterConexao");
+
     public static Connection getConnection() throws SQLException {
-        String url  = System.getenv().getOrDefault("ORACLE_URL", "jdbc:oracle:thin:@oracle.fiap.com.br:1521:orcl");
-        String user = System.getenv().getOrDefault("ORACLE_USER", "RM558540");
-        String pass = System.getenv().getOrDefault("ORACLE_PASSWORD", "160203");
-
-        Properties props = new Properties();
-        props.setProperty("user", user);
-        props.setProperty("password", pass);
-        return DriverManager.getConnection(url, props);
+        Connection emTransacao = Transacoes.conexaoAtual();
+        if (emTransacao != null) {
+            return emTransacao;
+        }
+        return obterDoPool();
+    }
+
+    // Empréstimo de uma conexão física do pool, ignorando a transação da thread
+    static Connection obterDoPool() throws SQLException {
+        long inicio = System.nanoTime();
+        try {
+            return getDataSource().getConnection();
+        } catch (SQLException | RuntimeException e) {
+            OBTER_CONEXAO.registrarErro();
+            throw e;
+        } finally {
+            OBTER_CONEXAO.registrarDesde(inicio);
+        }
+    }
+
+    public static DataSource getDataSource() {
+        DataSource ds = dataSource;
+        if (ds == null) {
+            synchronized (OracleConnectionFactory.class) {
+                ds = dataSource;
+                if (ds == null) {
+                    ds = criarPool();
+                    dataSource = ds;
+                }
+            }
+        }
+        return ds;
+    }
+
+    /**
+     * Substitui o DataSource usado pela aplicação (ex.: banco embarcado em testes).
+     * O pool anterior, se existir, é encerrado.
+     */
+    public static synchronized void usarDataSource(DataSource novo) {
+        DataSource anterior = dataSource;
+        dataSource = novo;
+        if (anterior instanceof HikariDataSource hikari && anterior != novo) {
+            hikari.close();
+        }
+    }
+
+    /** Encerra o pool, fechando todas as conexões físicas. */
+    public static synchronized void fechar() {
+        usarDataSource(null);
+    }
+
+    public static EstatisticasPool estatisticas() {
+        if (!(dataSource instanceof HikariDataSource hikari) || hikari.getHikariPoolMXBean() == null) {
+            return new EstatisticasPool(0, 0, 0, 0);
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        return new EstatisticasPool(pool.getActiveConnections(), pool.getIdleConnections(),
+                pool.getTotalConnections(), pool.getThreadsAwaitingConnection());
+    }
+
+    private static HikariDataSource criarPool() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("clinica-oracle");
+        config.setJdbcUrl(Configuracao.texto("ORACLE_URL", "jdbc:oracle:thin:@oracle.fiap.com.br:1521:orcl"));
+        config.setUsername(Configuracao.texto("ORACLE_USER", "RM558540"));
+        config.setPassword(Configuracao.texto("ORACLE_PASSWORD", "160203"));
+        config.setMinimumIdle(Configuracao.inteiro("ORACLE_POOL_MIN", 2));
+        config.setMaximumPoolSize(Configuracao.inteiro("ORACLE_POOL_MAX", 10));
+        config.setConnectionTimeout(Configuracao.longo("ORACLE_POOL_TIMEOUT_MS", 5_000));
+        config.setIdleTimeout(Configuracao.longo("ORACLE_POOL_OCIOSA_MS", 300_000));
+        config.setMaxLifetime(Configuracao.longo("ORACLE_POOL_VIDA_MS", 1_800_000));
+        // Conexões ociosas são validadas (Connection.isValid) antes de serem entregues
+        config.setValidationTimeout(2_000);
+        config.setRegisterMbeans(true);
+        // Cache implícito do driver: o mesmo SQL preparado de novo na mesma conexão física reaproveita
+        // o cursor já analisado, inclusive entre empréstimos do pool
+        int cacheStatements = Configuracao.inteiro("ORACLE_STATEMENT_CACHE", 64);
+        if (cacheStatements > 0) {
+            config.addDataSourceProperty("oracle.jdbc.implicitStatementCacheSize", String.valueOf(cacheStatements));
+        }
+        return new HikariDataSource(config);
+    }
+
+    /** Fotografia do pool: conexões em uso, ociosas, total aberto e threads aguardando. */
+    public record EstatisticasPool(int ativas, int ociosas, int total, int aguardando) {
+        @Override
+        public String toString() {
+            return "ativas=" + ativas + ", ociosas=" + ociosas + ", total=" + total + ", aguardando=" + aguardando;
+        }
     }
 }
@@ -0,0 +1,138 @@
+package com.example.clinic.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transações JDBC associadas à thread atual.
+ *
+ * Enquanto {@link #executar(Trabalho)} estiver rodando, {@link OracleConnectionFactory#getConnection()}
+ * devolve a mesma conexão (com auto-commit desligado) para qualquer DAO chamado na thread, e o
+ * {@code close()} feito pelos try-with-resources dos DAOs é ignorado. O commit acontece ao final do
+ * trabalho; qualquer exceção provoca rollback. Chamadas aninhadas participam da transação externa.
+ */
+public final class Transacoes {
+
+    @FunctionalInterface
+    public interface Trabalho<T> {
+        T executar(Connection con) throws SQLException;
+    }
+
+    private static final ThreadLocal<Contexto> ATUAL = new ThreadLocal<>();
+
+    private Transacoes() {}
+
+    public static <T> T executar(Trabalho<T> trabalho) {
+        Contexto existente = ATUAL.get();
+        if (existente != null) {
+            try {
+                return trabalho.executar(existente.protegida);
+            } catch (SQLException e) {
+                throw new RuntimeException("Erro na transação", e);
+            }
+        }
+
+        Contexto ctx;
+        try {
+            ctx = new Contexto(OracleConnectionFactory.obterDoPool());
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao abrir transação", e);
+        }
+
+        T resultado;
+        ATUAL.set(ctx);
+        try {
+            ctx.real.setAutoCommit(false);
+            resultado = trabalho.executar(ctx.protegida);
+            ctx.real.commit();
+        } catch (SQLException e) {
+            desfazer(ctx, e);
+            throw new RuntimeException("Erro na transação", e);
+        } catch (RuntimeException | Error e) {
+            desfazer(ctx, e);
+            throw e;
+        } finally {
+            ATUAL.remove();
+            liberar(ctx);
+        }
+
+        for (Runnable acao : ctx.aposCommit) {
+            acao.run();
+        }
+        return resultado;
+    }
+
+    /** Conexão da transação em andamento na thread, ou {@code null} se não houver transação. */
+    public static Connection conexaoAtual() {
+        Contexto ctx = ATUAL.get();
+        return ctx == null ? null : ctx.protegida;
+    }
+
+    public static boolean emTransacao() {
+        return ATUAL.get() != null;
+    }
+
+    /**
+     * Agenda uma ação para depois do commit da transação atual (descartada em caso de rollback).
+     * Fora de transação, a ação roda imediatamente.
+     */
+    public static void aposCommit(Runnable acao) {
+        Contexto ctx = ATUAL.get();
+        if (ctx == null) {
+            acao.run();
+        } else {
+            ctx.aposCommit.add(acao);
+        }
+    }
+
+    private static void desfazer(Contexto ctx, Throwable causa) {
+        try {
+            ctx.real.rollback();
+        } catch (SQLException e) {
+            causa.addSuppressed(e);
+        }
+    }
+
+    private static void liberar(Contexto ctx) {
+        try {
+            ctx.real.setAutoCommit(true);
+        } catch (SQLException ignored) {
+            // a conexão será descartada pelo pool se estiver inválida
+        }
+        try {
+            ctx.real.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static final class Contexto {
+        final Connection real;
+        final Connection protegida;
+        final List<Runnable> aposCommit = new ArrayList<>();
+
+        Contexto(Connection real) {
+            this.real = real;
+            this.protegida = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class},
+                    (proxy, metodo, args) -> {
+                        String nome = metodo.getName();
+                        boolean semArgumentos = args == null || args.length == 0;
+                        // quem controla o ciclo da transação é o Transacoes.executar
+                        if (nome.equals("close") || nome.equals("setAutoCommit")
+                                || (semArgumentos && (nome.equals("commit") || nome.equals("rollback")))) {
+                            return null;
+                        }
+                        try {
+                            return metodo.invoke(real, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.clinic.dao.arquivo;
+
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.domain.Consulta;
+import com.example.clinic.metricas.Medidor;
+import com.example.clinic.metricas.Metricas;
+import com.example.clinic.service.AgendaService;
+import com.example.clinic.service.LinhaDoTempo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Armazenamento local de consultas, sem banco: para clínicas que precisam agendar sem depender do
+ * link com o Oracle. As regras continuam no {@link AgendaService}, que recebe este repositório no
+ * lugar do JDBC.
+ *
+ * Dados em {@code consultas.dat}, mapeado em memória, com um registro de 64 bytes por consulta na
+ * posição {@code (id - 1) * 64}: buscar por id é um acesso direto. Cada médico tem uma
+ * {@link LinhaDoTempo} em memória, então listar a agenda e verificar choque não leem o disco.
+ *
+ * Toda gravação vai primeiro para {@code consultas.log} ({@link LogTransacoes}, forçado para o disco
+ * com CLINICA_ARQUIVO_SINCRONIZAR, padrão true) e só depois para o arquivo mapeado. Na abertura as
+ * entradas do log são reaplicadas, o que cobre páginas do arquivo de dados que não chegaram ao disco.
+ * Quando o log passa de CLINICA_ARQUIVO_LOG_MAX_KB (padrão 4096) o arquivo de dados é forçado e o log
+ * esvaziado. Um único processo usa o diretório por vez.
+ */
+public class ConsultaArquivoRepository implements AgendaService.ConsultaRepository, AutoCloseable {
+
+    // Layout do registro: id, paciente, médico, início e fim (segundos desde a época, UTC), versão, estado
+    // e, nos bytes 52 e 56, os nanossegundos de início e fim (zero nos arquivos gravados antes deles)
+    static final int TAMANHO = 64;
+    private static final byte VAZIO = 0;
+    private static final byte ATIVA = 1;
+    private static final byte CANCELADA = 2;
+    private static final int CAPACIDADE_INICIAL = 4096;
+
+    private static final Medidor SALVAR = Metricas.medidor("ConsultaArquivoRepository.salvar");
+    private static final Medidor SALVAR_EM_LOTE = Metricas.medidor("ConsultaArquivoRepository.salvarEmLote");
+    private static final Medidor LISTAR_POR_MEDICO = Metricas.medidor("ConsultaArquivoRepository.listarPorMedicoNoIntervalo");
+    private static final Medidor REMARCAR = Metricas.medidor("ConsultaArquivoRepository.remarcar");
+    private static final Medidor CANCELAR = Metricas.medidor("ConsultaArquivoRepository.cancelar");
+
+    private final Path diretorio;
+    private final long logMaxBytes;
+    private final FileChannel canalDados;
+    private final FileLock trava;
+    private final LogTransacoes log;
+    // Escritores se enfileiram em 'escrita' (log inclusive); leitores só esperam a aplicação em memória
+    private final Object escrita = new Object();
+    private final ReadWriteLock rw = new ReentrantReadWriteLock();
+    private final Map<Long, LinhaDoTempo> agendas = new HashMap<>();
+
+    private MappedByteBuffer dados;
+    private long proximoId = 1;
+
+    private ConsultaArquivoRepository(Path diretorio, boolean sincronizar, long logMaxBytes) throws IOException {
+        this.diretorio = diretorio;
+        this.logMaxBytes = logMaxBytes;
+        Files.createDirectories(diretorio);
+        this.canalDados = FileChannel.open(diretorio.resolve("consultas.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock obtida;
+        try {
+            obtida = canalDados.tryLock();
+        } catch (OverlappingFileLockException e) {
+            obtida = null;
+        }
+        if (obtida == null) {
+            canalDados.close();
+            throw new IllegalStateException("Armazenamento de consultas em " + diretorio + " já está em uso");
+        }
+        this.trava = obtida;
+        this.log = new LogTransacoes(diretorio.resolve("consultas.log"), sincronizar);
+    }
+
+    public static ConsultaArquivoRepository abrir(Path diretorio) {
+        return abrir(diretorio,
+                Configuracao.booleano("CLINICA_ARQUIVO_SINCRONIZAR", true),
+                Configuracao.longo("CLINICA_ARQUIVO_LOG_MAX_KB", 4096) * 1024);
+    }
+
+    /**
+     * Abre (ou cria) o armazenamento: reaplica o log, esvazia-o e monta as agendas em memória.
+     *
+     * @throws IllegalStateException o diretório já está aberto por outro repositório
+     */
+    public static ConsultaArquivoRepository abrir(Path diretorio, boolean sincronizar, long logMaxBytes) {
+        try {
+            ConsultaArquivoRepository repo = new ConsultaArquivoRepository(diretorio, sincronizar, logMaxBytes);
+            repo.recuperar();
+            return repo;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao abrir o armazenamento de consultas em " + diretorio, e);
+        }
+    }
+
+    @Override
+    public List<Consulta> listarPorMedicoNoIntervalo(long medicoId, LocalDateTime inicio, LocalDateTime fim) {
+        return Metricas.medir(LISTAR_POR_MEDICO, () -> {
+            rw.readLock().lock();
+            try {
+                LinhaDoTempo agenda = agendas.get(medicoId);
+                return agenda == null ? new ArrayList<>() : agenda.listar(inicio, fim);
+            } finally {
+                rw.readLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public Long salvar(Consulta c) {
+        return Metricas.medir(SALVAR, () -> salvarTodas(List.of(c)).get(0));
+    }
+
+    // Um lote é uma única entrada do log: após uma queda, ou todas as consultas aparecem ou nenhuma
+    @Override
+    public List<Long> salvarEmLote(List<Consulta> consultas) {
+        return Metricas.medir(SALVAR_EM_LOTE, () -> salvarTodas(consultas));
+    }
+
+    @Override
+    public Consulta buscarPorId(long id) {
+        rw.readLock().lock();
+        try {
+            return id >= 1 && id < proximoId ? ler((int) (id - 1), ATIVA) : null;
+        } finally {
+            rw.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remarcar(Consulta atual, Consulta nova) {
+        return Metricas.medir(REMARCAR, () -> {
+            synchronized (escrita) {
+                Consulta gravada = buscarPorId(atual.getId());
+                if (gravada == null || gravada.getVersao() != atual.getVersao()
+                        || gravada.getMedicoId().longValue() != atual.getMedicoId()
+                        || agendas.get(atual.getMedicoId()).conflita(nova.getInicio(), nova.getFim(), atual.getId())) {
+                    return false;
+                }
+                gravar(List.of(new Consulta(atual.getId(), gravada.getPacienteId(), gravada.getMedicoId(),
+                        nova.getInicio(), nova.getFim(), gravada.getVersao() + 1)), ATIVA);
+                return true;
+            }
+        });
+    }
+
+    @Override
+    public boolean cancelar(long consultaId, LocalDateTime agora) {
+        return Metricas.medir(CANCELAR, () -> {
+            synchronized (escrita) {
+                Consulta gravada = buscarPorId(consultaId);
+                if (gravada == null || !gravada.getInicio().isAfter(agora)) return false;
+                gravar(List.of(gravada), CANCELADA);
+                return true;
+            }
+        });
+    }
+
+    public Path diretorio() {
+        return diretorio;
+    }
+
+    /** Força o arquivo de dados para o disco e esvazia o log. */
+    public void checkpoint() {
+        synchronized (escrita) {
+            try {
+                dados.force();
+                log.esvaziar();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Erro no checkpoint do armazenamento de consultas", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        checkpoint();
+        try {
+            log.close();
+            trava.release();
+            canalDados.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao fechar o armazenamento de consultas", e);
+        }
+    }
+
+    private List<Long> salvarTodas(List<Consulta> consultas) {
+        if (consultas.isEmpty()) return new ArrayList<>();
+        synchronized (escrita) {
+            List<Consulta> novas = new ArrayList<>(consultas.size());
+            List<Long> ids = new ArrayList<>(consultas.size());
+            long id = proximoId;
+            for (Consulta c : consultas) {
+                novas.add(new Consulta(id, c.getPacienteId(), c.getMedicoId(), c.getInicio(), c.getFim()));
+                ids.add(id++);
+            }
+            gravar(novas, ATIVA);
+            return ids;
+        }
+    }
+
+    // Log primeiro, depois arquivo mapeado e agendas. Chamado dentro de 'escrita'; a espera pelo disco
+    // acontece antes da trava dos leitores
+    private void gravar(List<Consulta> consultas, byte estado) {
+        ByteBuffer registros = ByteBuffer.allocate(consultas.size() * TAMANHO);
+        for (Consulta c : consultas) {
+            codificar(registros, c, estado);
+        }
+        registros.flip();
+        try {
+            log.acrescentar(registros.duplicate(), consultas.size());
+            rw.writeLock().lock();
+            try {
+                aplicar(registros);
+            } finally {
+                rw.writeLock().unlock();
+            }
+            if (log.tamanho() > logMaxBytes) {
+                dados.force();
+                log.esvaziar();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar consultas em " + diretorio, e);
+        }
+    }
+
+    // Copia os registros para os slots (pelo id) e atualiza as agendas
+    private void aplicar(ByteBuffer registros) throws IOException {
+        while (registros.hasRemaining()) {
+            int inicio = registros.position();
+            long id = registros.getLong(inicio);
+            int slot = (int) (id - 1);
+            garantirCapacidade(slot + 1);
+            Consulta anterior = ler(slot, ATIVA);
+            dados.put(slot * TAMANHO, registros, inicio, TAMANHO);
+            registros.position(inicio + TAMANHO);
+
+            if (anterior != null) agendas.get(anterior.getMedicoId()).remover(id);
+            Consulta atual = ler(slot, ATIVA);
+            if (atual != null) agendas.computeIfAbsent(atual.getMedicoId(), m -> new LinhaDoTempo()).adicionar(atual);
+            proximoId = Math.max(proximoId, id + 1);
+        }
+    }
+
+    private void recuperar() throws IOException {
+        long tamanho = canalDados.size();
+        dados = canalDados.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(tamanho, (long) CAPACIDADE_INICIAL * TAMANHO));
+        int slots = dados.capacity() / TAMANHO;
+        for (int slot = 0; slot < slots; slot++) {
+            Consulta c = ler(slot, ATIVA);
+            if (c != null) agendas.computeIfAbsent(c.getMedicoId(), m -> new LinhaDoTempo()).adicionar(c);
+            if (dados.get(slot * TAMANHO + 48) != VAZIO) proximoId = slot + 2;
+        }
+        for (ByteBuffer entrada : log.recuperar(TAMANHO)) {
+            aplicar(entrada);
+        }
+        dados.force();
+        log.esvaziar();
+    }
+
+    // Dobra o arquivo mapeado até caber 'slots' registros
+    private void garantirCapacidade(int slots) throws IOException {
+        long necessario = (long) slots * TAMANHO;
+        if (necessario <= dados.capacity()) return;
+        long novo = dados.capacity();
+        while (novo < necessario) novo *= 2;
+        if (novo > Integer.MAX_VALUE) throw new IllegalStateException("Armazenamento de consultas cheio");
+        dados.force();
+        dados = canalDados.map(FileChannel.MapMode.READ_WRITE, 0, novo);
+    }
+
+    private static void codificar(ByteBuffer buf, Consulta c, byte estado) {
+        int inicio = buf.position();
+        buf.putLong(c.getId())
+                .putLong(c.getPacienteId())
+                .putLong(c.getMedicoId())
+                .putLong(c.getInicio().toEpochSecond(ZoneOffset.UTC))
+                .putLong(c.getFim().toEpochSecond(ZoneOffset.UTC))
+                .putLong(c.getVersao())
+                .put(estado);
+        buf.putInt(inicio + 52, c.getInicio().getNano())
+                .putInt(inicio + 56, c.getFim().getNano());
+        buf.position(inicio + TAMANHO);
+    }
+
+    // Consulta do slot se estiver no estado pedido, senão null
+    private Consulta ler(int slot, byte estado) {
+        int pos = slot * TAMANHO;
+        if (pos + TAMANHO > dados.capacity() || dados.get(pos + 48) != estado) return null;
+        return new Consulta(dados.getLong(pos), dados.getLong(pos + 8), dados.getLong(pos + 16),
+                LocalDateTime.ofEpochSecond(dados.getLong(pos + 24), dados.getInt(pos + 52), ZoneOffset.UTC),
+                LocalDateTime.ofEpochSecond(dados.getLong(pos + 32), dados.getInt(pos + 56), ZoneOffset.UTC),
+                dados.getLong(pos + 40));
+    }
+}
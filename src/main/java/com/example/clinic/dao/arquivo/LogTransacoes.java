@@ -0,0 +1,84 @@
+package com.example.clinic.dao.arquivo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Log de escrita antecipada do armazenamento local: cada gravação é acrescentada aqui (e forçada para
+ * o disco, se pedido) antes de ser aplicada ao arquivo de dados mapeado em memória.
+ *
+ * Uma entrada é {@code int n, n registros de TAMANHO bytes, int crc32c}; o CRC cobre a entrada toda,
+ * então uma gravação interrompida no meio é descartada inteira na recuperação, inclusive lotes.
+ * Os registros são imagens completas do slot, logo reaplicar uma entrada é inofensivo.
+ */
+final class LogTransacoes implements AutoCloseable {
+
+    private final FileChannel canal;
+    private final boolean sincronizar;
+    private final CRC32C crc = new CRC32C();
+
+    LogTransacoes(Path arquivo, boolean sincronizar) throws IOException {
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.sincronizar = sincronizar;
+    }
+
+    /** Entradas íntegras do log, em ordem; o que vier depois da primeira entrada incompleta é cortado. */
+    List<ByteBuffer> recuperar(int tamanhoRegistro) throws IOException {
+        List<ByteBuffer> entradas = new ArrayList<>();
+        ByteBuffer conteudo = ByteBuffer.allocate((int) canal.size());
+        canal.read(conteudo, 0);
+        conteudo.flip();
+        int validos = 0;
+        while (conteudo.remaining() >= Integer.BYTES) {
+            int inicio = conteudo.position();
+            int n = conteudo.getInt();
+            long bytes = (long) n * tamanhoRegistro;
+            if (n <= 0 || conteudo.remaining() < bytes + Integer.BYTES) break;
+            ByteBuffer registros = conteudo.slice(conteudo.position(), (int) bytes);
+            conteudo.position(conteudo.position() + (int) bytes);
+            crc.reset();
+            crc.update(conteudo.duplicate().position(inicio).limit(conteudo.position()));
+            if ((int) crc.getValue() != conteudo.getInt()) break;
+            entradas.add(registros);
+            validos = conteudo.position();
+        }
+        canal.truncate(validos);
+        canal.position(validos);
+        return entradas;
+    }
+
+    /** Acrescenta uma entrada com os registros (posição 0 até o limite de {@code registros}). */
+    void acrescentar(ByteBuffer registros, int quantidade) throws IOException {
+        ByteBuffer entrada = ByteBuffer.allocate(Integer.BYTES + registros.remaining() + Integer.BYTES);
+        entrada.putInt(quantidade).put(registros);
+        crc.reset();
+        crc.update(entrada.duplicate().flip());
+        entrada.putInt((int) crc.getValue()).flip();
+        while (entrada.hasRemaining()) {
+            canal.write(entrada);
+        }
+        if (sincronizar) canal.force(false);
+    }
+
+    long tamanho() throws IOException {
+        return canal.position();
+    }
+
+    /** Chamado depois que o arquivo de dados foi forçado para o disco: as entradas não são mais necessárias. */
+    void esvaziar() throws IOException {
+        canal.truncate(0);
+        canal.position(0);
+        if (sincronizar) canal.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
@@ -2,117 +2,342 @@ package com.example.clinic.dao.jdbc;
 
 import com.example.clinic.domain.Consulta;
 import com.example.clinic.service.AgendaService;
-import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.service.ArquivadorConsultas;
+import com.example.clinic.config.Transacoes;
+import com.example.clinic.dao.jdbc.ExecutorJdbc.Operacao;
+import com.example.clinic.diario.Alteracao;
+import com.example.clinic.diario.CapturaAlteracoes;
 
 import java.sql.*;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-public class ConsultaJdbcRepository implements AgendaService.ConsultaRepository {
+public class ConsultaJdbcRepository implements AgendaService.ConsultaRepository, AgendaService.TransacaoPorMedico,
+        ArquivadorConsultas.Repositorio {
+
+    // Recebe as gravações já confirmadas (após o commit, quando houver transação)
+    public interface OuvinteConsultas {
+        void aoSalvar(Consulta consulta);
+        void aoAtualizar(Consulta consulta);
+        void aoDeletar(long consultaId);
+    }
+
+    // DEFAULT da coluna consultas.id; o lote reserva os ids nela antes de gravar
+    private static final String SEQUENCIA = "consultas_seq";
+
+    private static final String COLUNAS = "SELECT id, paciente_id, medico_id, inicio, fim, versao FROM consultas";
+
+    private static final String COLUNAS_HISTORICO = "SELECT id, paciente_id, medico_id, inicio, fim, versao FROM consultas_historico";
+
+    private static final String COLUNAS_AGENDA =
+            "SELECT c.id, c.inicio, c.fim, m.id, m.nome, m.crm, p.id, p.nome, p.email " +
+            "FROM consultas c JOIN medicos m ON m.id = c.medico_id JOIN pacientes p ON p.id = c.paciente_id";
+
+    // Operações medidas (Metricas: ConsultaJdbcRepository.<metodo> e fases .conexao/.execucao/.mapeamento)
+    private static final Operacao TRAVAR_MEDICO = Operacao.de("ConsultaJdbcRepository.travarMedico", "Erro ao travar agenda do médico");
+    private static final Operacao LISTAR_POR_MEDICO = Operacao.de("ConsultaJdbcRepository.listarPorMedicoNoIntervalo", "Erro ao listar consultas");
+    private static final Operacao SALVAR = Operacao.de("ConsultaJdbcRepository.salvar", "Erro ao salvar consulta");
+    private static final Operacao SALVAR_EM_LOTE = Operacao.de("ConsultaJdbcRepository.salvarEmLote", "Erro ao salvar consultas em lote");
+    private static final Operacao BUSCAR_POR_ID = Operacao.de("ConsultaJdbcRepository.buscarPorId", "Erro ao buscar consulta");
+    private static final Operacao LISTAR_TODAS = Operacao.de("ConsultaJdbcRepository.listarTodas", "Erro ao listar consultas");
+    private static final Operacao LISTAR_PAGINA = Operacao.de("ConsultaJdbcRepository.listarPagina", "Erro ao listar consultas");
+    private static final Operacao PERCORRER_TODAS = Operacao.de("ConsultaJdbcRepository.percorrerTodas", "Erro ao listar consultas");
+    private static final Operacao LISTAR_A_PARTIR_DE = Operacao.de("ConsultaJdbcRepository.listarAPartirDe", "Erro ao listar consultas");
+    private static final Operacao LISTAR_AGENDA = Operacao.de("ConsultaJdbcRepository.listarAgenda", "Erro ao listar agenda");
+    private static final Operacao ARQUIVAR = Operacao.de("ConsultaJdbcRepository.arquivarBloco", "Erro ao arquivar consultas");
+    private static final Operacao LISTAR_COM_HISTORICO = Operacao.de("ConsultaJdbcRepository.listarPorMedicoComHistorico", "Erro ao listar consultas");
+    private static final Operacao REMARCAR = Operacao.de("ConsultaJdbcRepository.remarcar", "Erro ao remarcar consulta");
+    private static final Operacao CANCELAR = Operacao.de("ConsultaJdbcRepository.cancelar", "Erro ao cancelar consulta");
+    private static final Operacao ATUALIZAR = Operacao.de("ConsultaJdbcRepository.atualizar", "Erro ao atualizar consulta");
+    private static final Operacao DELETAR = Operacao.de("ConsultaJdbcRepository.deletar", "Erro ao deletar consulta");
+
+    private final List<OuvinteConsultas> ouvintes = new CopyOnWriteArrayList<>();
+
+    public void adicionarOuvinte(OuvinteConsultas ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    /**
+     * Abre uma transação e trava a linha do médico (SELECT ... FOR UPDATE) antes de executar a operação.
+     * Agendamentos concorrentes para o mesmo médico, vindos de qualquer instância, ficam em fila até
+     * o commit; médicos diferentes não disputam a trava.
+     */
+    @Override
+    public <T> T executar(long medicoId, Supplier<T> operacao) {
+        String sql = "SELECT id FROM medicos WHERE id = ? FOR UPDATE";
+        return Transacoes.executar(con -> {
+            Long travado = ExecutorJdbc.buscarUm(TRAVAR_MEDICO, sql, ps -> ps.setLong(1, medicoId), rs -> rs.getLong(1));
+            if (travado == null) {
+                throw new IllegalArgumentException("Médico não encontrado: " + medicoId);
+            }
+            return operacao.get();
+        });
+    }
 
     @Override
     public List<Consulta> listarPorMedicoNoIntervalo(long medicoId, LocalDateTime inicio, LocalDateTime fim) {
-        String sql = "SELECT id, paciente_id, medico_id, inicio, fim FROM consultas " +
-                "WHERE medico_id = ? AND inicio < ? AND fim > ?";
-        List<Consulta> lista = new ArrayList<>();
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        String sql = COLUNAS + " WHERE medico_id = ? AND inicio < ? AND fim > ?";
+        return ExecutorJdbc.listar(LISTAR_POR_MEDICO, sql, ps -> {
             ps.setLong(1, medicoId);
-            ps.setTimestamp(2, Timestamp.valueOf(fim));
-            ps.setTimestamp(3, Timestamp.valueOf(inicio));
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    lista.add(map(rs));
-                }
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException("Erro ao listar consultas", e);
-        }
-        return lista;
+            ps.setObject(2, fim);
+            ps.setObject(3, inicio);
+        }, this::map);
     }
 
     @Override
     public Long salvar(Consulta c) {
         String sql = "INSERT INTO consultas (paciente_id, medico_id, inicio, fim) VALUES (?, ?, ?, ?)";
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql, new String[] {"ID"})) {
+        Long id = ExecutorJdbc.inserir(SALVAR, sql, ps -> {
             ps.setLong(1, c.getPacienteId());
             ps.setLong(2, c.getMedicoId());
-            ps.setTimestamp(3, Timestamp.valueOf(c.getInicio()));
-            ps.setTimestamp(4, Timestamp.valueOf(c.getFim()));
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) {
-                    return rs.getLong(1);
-                }
-            }
-            return null;
-        } catch (SQLException e) {
-            throw new RuntimeException("Erro ao salvar consulta", e);
+            ps.setObject(3, c.getInicio());
+            ps.setObject(4, c.getFim());
+        });
+        if (id != null) {
+            Consulta salva = new Consulta(id, c.getPacienteId(), c.getMedicoId(), c.getInicio(), c.getFim());
+            notificar(o -> o.aoSalvar(salva));
+            CapturaAlteracoes.registrar(Alteracao.Entidade.CONSULTA, id, Alteracao.Tipo.INSERCAO);
         }
+        return id;
     }
 
-    public Consulta buscarPorId(long id) {
-        String sql = "SELECT id, paciente_id, medico_id, inicio, fim FROM consultas WHERE id = ?";
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return map(rs);
-                return null;
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException("Erro ao buscar consulta", e);
+    /**
+     * Grava as consultas com addBatch/executeBatch, em blocos de {@link ExecutorJdbc#TAMANHO_LOTE} linhas,
+     * numa única transação (a atual, se houver). Os ids vêm de consultas_seq, reservados antes do lote
+     * (a mesma sequência é o DEFAULT da coluna id). Devolve os ids na mesma ordem da lista.
+     */
+    @Override
+    public List<Long> salvarEmLote(List<Consulta> consultas) {
+        String sql = "INSERT INTO consultas (id, paciente_id, medico_id, inicio, fim) VALUES (?, ?, ?, ?, ?)";
+        List<Long> ids = Transacoes.executar(con -> ExecutorJdbc.inserirEmLote(SALVAR_EM_LOTE, sql, SEQUENCIA, consultas, (ps, c) -> {
+            ps.setLong(2, c.getPacienteId());
+            ps.setLong(3, c.getMedicoId());
+            ps.setObject(4, c.getInicio());
+            ps.setObject(5, c.getFim());
+        }));
+        for (int i = 0; i < consultas.size(); i++) {
+            Consulta c = consultas.get(i);
+            Consulta salva = new Consulta(ids.get(i), c.getPacienteId(), c.getMedicoId(), c.getInicio(), c.getFim());
+            notificar(o -> o.aoSalvar(salva));
         }
+        CapturaAlteracoes.registrar(Alteracao.Entidade.CONSULTA, ids, Alteracao.Tipo.INSERCAO);
+        return ids;
+    }
+
+    @Override
+    public Consulta buscarPorId(long id) {
+        return ExecutorJdbc.buscarUm(BUSCAR_POR_ID, COLUNAS + " WHERE id = ?", ps -> ps.setLong(1, id), this::map);
     }
 
     public List<Consulta> listarTodas() {
-        String sql = "SELECT id, paciente_id, medico_id, inicio, fim FROM consultas";
-        List<Consulta> lista = new ArrayList<>();
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) lista.add(map(rs));
-            return lista;
-        } catch (SQLException e) {
-            throw new RuntimeException("Erro ao listar consultas", e);
-        }
+        return ExecutorJdbc.listar(LISTAR_TODAS, COLUNAS + " ORDER BY id", ExecutorJdbc.SEM_PARAMETROS, this::map);
+    }
+
+    // Paginação por chave: próxima página após 'aposId' (0 para a primeira), ordenada por id
+    public List<Consulta> listarPagina(long aposId, int limite) {
+        String sql = COLUNAS + " WHERE id > ? ORDER BY id FETCH FIRST ? ROWS ONLY";
+        return ExecutorJdbc.listar(LISTAR_PAGINA, sql, ps -> {
+            ps.setLong(1, aposId);
+            ps.setInt(2, limite);
+        }, this::map, limite);
+    }
+
+    // Todas as consultas em ordem de id, lidas sob demanda; o Stream deve ser fechado após o uso
+    public Stream<Consulta> percorrerTodas() {
+        return Cursor.abrir(PERCORRER_TODAS, COLUNAS + " ORDER BY id", ExecutorJdbc.SEM_PARAMETROS, this::map);
     }
 
+    // Consultas que terminam depois de 'desde', para aquecer o índice de agenda
+    public List<Consulta> listarAPartirDe(LocalDateTime desde) {
+        return ExecutorJdbc.listar(LISTAR_A_PARTIR_DE, COLUNAS + " WHERE fim > ?",
+                ps -> ps.setObject(1, desde), this::map);
+    }
+
+    /**
+     * Agenda do médico no intervalo, com nomes de médico e paciente, em uma única consulta ao banco
+     * (em vez de buscar cada paciente por id). Ordenada pelo início.
+     */
+    public List<LinhaAgenda> listarAgenda(long medicoId, LocalDateTime inicio, LocalDateTime fim) {
+        String sql = COLUNAS_AGENDA + " WHERE c.medico_id = ? AND c.inicio < ? AND c.fim > ? ORDER BY c.inicio";
+        return ExecutorJdbc.listar(LISTAR_AGENDA, sql, ps -> {
+            ps.setLong(1, medicoId);
+            ps.setObject(2, fim);
+            ps.setObject(3, inicio);
+        }, this::mapAgenda);
+    }
+
+    // Mesma projeção para todos os médicos, ordenada por médico e início
+    public List<LinhaAgenda> listarAgenda(LocalDateTime inicio, LocalDateTime fim) {
+        String sql = COLUNAS_AGENDA + " WHERE c.inicio < ? AND c.fim > ? ORDER BY m.nome, m.id, c.inicio";
+        return ExecutorJdbc.listar(LISTAR_AGENDA, sql, ps -> {
+            ps.setObject(1, fim);
+            ps.setObject(2, inicio);
+        }, this::mapAgenda);
+    }
+
+    /**
+     * Como {@link #listarPorMedicoNoIntervalo}, mas inclui as consultas já arquivadas em
+     * consultas_historico: para relatórios e consultas ao passado. Ordenada pelo início.
+     */
+    public List<Consulta> listarPorMedicoComHistorico(long medicoId, LocalDateTime inicio, LocalDateTime fim) {
+        String filtro = " WHERE medico_id = ? AND inicio < ? AND fim > ?";
+        String sql = COLUNAS + filtro + " UNION ALL " + COLUNAS_HISTORICO + filtro + " ORDER BY 4";
+        return ExecutorJdbc.listar(LISTAR_COM_HISTORICO, sql, ps -> {
+            for (int i = 0; i < 2; i++) {
+                ps.setLong(3 * i + 1, medicoId);
+                ps.setObject(3 * i + 2, fim);
+                ps.setObject(3 * i + 3, inicio);
+            }
+        }, this::map);
+    }
+
+    /**
+     * Move para consultas_historico até {@code limite} consultas (no máximo 1000, limite do Oracle para
+     * listas IN) terminadas antes de {@code antesDe}, numa transação própria: as linhas são travadas,
+     * copiadas com INSERT ... SELECT e apagadas. Como cópia e remoção são confirmadas juntas, uma
+     * interrupção nunca deixa consulta duplicada ou perdida; basta rodar de novo.
+     *
+     * Os ouvintes não são avisados: o índice de agenda só usa consultas futuras. No diário de
+     * alterações as consultas movidas aparecem como remoções.
+     */
+    @Override
+    public int arquivarBloco(LocalDateTime antesDe, int limite) {
+        int tamanho = Math.min(limite, 1000);
+        return Transacoes.executar(con -> {
+            List<Long> candidatas = ExecutorJdbc.listar(ARQUIVAR,
+                    "SELECT id FROM consultas WHERE fim < ? ORDER BY id FETCH FIRST ? ROWS ONLY", ps -> {
+                        ps.setObject(1, antesDe);
+                        ps.setInt(2, tamanho);
+                    }, rs -> rs.getLong(1), tamanho);
+            if (candidatas.isEmpty()) return 0;
+
+            // FOR UPDATE não combina com FETCH FIRST no Oracle: trava numa segunda leitura, conferindo o fim
+            // de novo caso a consulta tenha sido remarcada nesse meio tempo
+            String ids = String.join(", ", Collections.nCopies(candidatas.size(), "?"));
+            List<Long> travadas = ExecutorJdbc.listar(ARQUIVAR,
+                    "SELECT id FROM consultas WHERE id IN (" + ids + ") AND fim < ? FOR UPDATE", ps -> {
+                        vincularIds(ps, candidatas);
+                        ps.setObject(candidatas.size() + 1, antesDe);
+                    }, rs -> rs.getLong(1), tamanho);
+            if (travadas.isEmpty()) return 0;
+
+            String emTravadas = " WHERE id IN (" + String.join(", ", Collections.nCopies(travadas.size(), "?")) + ")";
+            ExecutorJdbc.atualizar(ARQUIVAR, "INSERT INTO consultas_historico (id, paciente_id, medico_id, inicio, fim, versao) "
+                    + COLUNAS + emTravadas, ps -> vincularIds(ps, travadas));
+            int movidas = ExecutorJdbc.atualizar(ARQUIVAR, "DELETE FROM consultas" + emTravadas, ps -> vincularIds(ps, travadas));
+            CapturaAlteracoes.registrar(Alteracao.Entidade.CONSULTA, travadas, Alteracao.Tipo.REMOCAO);
+            return movidas;
+        });
+    }
+
+    /**
+     * UPDATE condicional: só move se a consulta ainda estiver na versão de {@code atual} e nenhuma
+     * outra consulta do médico ocupar o novo intervalo. Verificação e mudança num só comando.
+     */
+    @Override
+    public boolean remarcar(Consulta atual, Consulta nova) {
+        String sql = "UPDATE consultas SET inicio = ?, fim = ?, versao = versao + 1 WHERE id = ? AND medico_id = ? AND versao = ? " +
+                "AND NOT EXISTS (SELECT 1 FROM consultas o WHERE o.medico_id = ? AND o.id <> ? AND o.inicio < ? AND o.fim > ?)";
+        int linhas = ExecutorJdbc.atualizar(REMARCAR, sql, ps -> {
+            ps.setObject(1, nova.getInicio());
+            ps.setObject(2, nova.getFim());
+            ps.setLong(3, atual.getId());
+            ps.setLong(4, atual.getMedicoId());
+            ps.setLong(5, atual.getVersao());
+            ps.setLong(6, atual.getMedicoId());
+            ps.setLong(7, atual.getId());
+            ps.setObject(8, nova.getFim());
+            ps.setObject(9, nova.getInicio());
+        });
+        if (linhas == 0) return false;
+        Consulta gravada = new Consulta(atual.getId(), atual.getPacienteId(), atual.getMedicoId(),
+                nova.getInicio(), nova.getFim(), atual.getVersao() + 1);
+        notificar(o -> o.aoAtualizar(gravada));
+        CapturaAlteracoes.registrar(Alteracao.Entidade.CONSULTA, atual.getId(), Alteracao.Tipo.ATUALIZACAO);
+        return true;
+    }
+
+    @Override
+    public boolean cancelar(long consultaId, LocalDateTime agora) {
+        int linhas = ExecutorJdbc.atualizar(CANCELAR, "DELETE FROM consultas WHERE id = ? AND inicio > ?", ps -> {
+            ps.setLong(1, consultaId);
+            ps.setObject(2, agora);
+        });
+        if (linhas == 0) return false;
+        notificar(o -> o.aoDeletar(consultaId));
+        CapturaAlteracoes.registrar(Alteracao.Entidade.CONSULTA, consultaId, Alteracao.Tipo.REMOCAO);
+        return true;
+    }
+
+    /**
+     * Grava a consulta se a linha ainda estiver na versão lida ({@code c.getVersao()}), incrementando-a.
+     * Não verifica choque de horário: para mudar o horário use {@link #remarcar}.
+     *
+     * @throws ModificacaoConcorrenteException a linha foi alterada ou removida depois da leitura
+     */
     public void atualizar(Consulta c) {
-        String sql = "UPDATE consultas SET paciente_id=?, medico_id=?, inicio=?, fim=? WHERE id=?";
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        String sql = "UPDATE consultas SET paciente_id=?, medico_id=?, inicio=?, fim=?, versao=versao+1 WHERE id=? AND versao=?";
+        int linhas = ExecutorJdbc.atualizar(ATUALIZAR, sql, ps -> {
             ps.setLong(1, c.getPacienteId());
             ps.setLong(2, c.getMedicoId());
-            ps.setTimestamp(3, Timestamp.valueOf(c.getInicio()));
-            ps.setTimestamp(4, Timestamp.valueOf(c.getFim()));
+            ps.setObject(3, c.getInicio());
+            ps.setObject(4, c.getFim());
             ps.setLong(5, c.getId());
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException("Erro ao atualizar consulta", e);
-        }
+            ps.setLong(6, c.getVersao());
+        });
+        ModificacaoConcorrenteException.verificar(linhas, "Consulta", c.getId(), c.getVersao());
+        Consulta gravada = new Consulta(c.getId(), c.getPacienteId(), c.getMedicoId(), c.getInicio(), c.getFim(),
+                c.getVersao() + 1);
+        notificar(o -> o.aoAtualizar(gravada));
+        CapturaAlteracoes.registrar(Alteracao.Entidade.CONSULTA, c.getId(), Alteracao.Tipo.ATUALIZACAO);
     }
 
     public void deletar(long id) {
-        String sql = "DELETE FROM consultas WHERE id=?";
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException("Erro ao deletar consulta", e);
+        if (ExecutorJdbc.atualizar(DELETAR, "DELETE FROM consultas WHERE id=?", ps -> ps.setLong(1, id)) == 0) return;
+        notificar(o -> o.aoDeletar(id));
+        CapturaAlteracoes.registrar(Alteracao.Entidade.CONSULTA, id, Alteracao.Tipo.REMOCAO);
+    }
+
+    private static void vincularIds(PreparedStatement ps, List<Long> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            ps.setLong(i + 1, ids.get(i));
         }
     }
 
-    private Consulta map(ResultSet rs) throws SQLException {
+    private void notificar(Consumer<OuvinteConsultas> evento) {
+        if (ouvintes.isEmpty()) return;
+        Transacoes.aposCommit(() -> ouvintes.forEach(evento));
+    }
+
+    // Colunas por posição, na ordem de COLUNAS: id, paciente_id, medico_id, inicio, fim, versao
+    Consulta map(ResultSet rs) throws SQLException {
         return new Consulta(
-                rs.getLong("id"),
-                rs.getLong("paciente_id"),
-                rs.getLong("medico_id"),
-                rs.getTimestamp("inicio").toLocalDateTime(),
-                rs.getTimestamp("fim").toLocalDateTime()
+                rs.getLong(1),
+                rs.getLong(2),
+                rs.getLong(3),
+                rs.getObject(4, LocalDateTime.class),
+                rs.getObject(5, LocalDateTime.class),
+                rs.getLong(6)
+        );
+    }
+
+    // Colunas por posição, na ordem de COLUNAS_AGENDA
+    private LinhaAgenda mapAgenda(ResultSet rs) throws SQLException {
+        return new LinhaAgenda(
+                rs.getLong(1),
+                rs.getObject(2, LocalDateTime.class),
+                rs.getObject(3, LocalDateTime.class),
+                rs.getLong(4),
+                rs.getString(5),
+                rs.getString(6),
+                rs.getLong(7),
+                rs.getString(8),
+                rs.getString(9)
         );
     }
 }
@@ -0,0 +1,10 @@
+package com.example.clinic.dao.jdbc;
+
+// Resultado de um MERGE em lote: linhas novas, alteradas e já idênticas ao banco (não enviadas)
+public record ContagemMescla(int inseridos, int atualizados, int inalterados) {
+
+    public ContagemMescla somar(ContagemMescla outra) {
+        return new ContagemMescla(inseridos + outra.inseridos, atualizados + outra.atualizados,
+                inalterados + outra.inalterados);
+    }
+}
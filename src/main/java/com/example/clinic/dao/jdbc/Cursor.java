@@ -0,0 +1,92 @@
+package com.example.clinic.dao.jdbc;
+
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.metricas.MedidorJdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stream sobre um ResultSet aberto: as linhas são mapeadas conforme consumidas, em blocos de
+ * {@link #FETCH_SIZE} por ida ao banco, sem materializar a lista inteira.
+ *
+ * O Stream segura a conexão até ser fechado, então deve ser usado em try-with-resources.
+ */
+final class Cursor {
+
+    // Linhas trazidas por ida ao banco (o padrão do driver Oracle é 10)
+    static final int FETCH_SIZE = Configuracao.inteiro("CLINICA_JDBC_FETCH_SIZE", 500);
+
+    private Cursor() {}
+
+    // As métricas cobrem a abertura (conexão e execução); o consumo do Stream fica com quem o lê
+    static <T> Stream<T> abrir(ExecutorJdbc.Operacao op, String sql, ExecutorJdbc.Parametros parametros,
+                               ExecutorJdbc.Mapeador<T> mapeador) {
+        MedidorJdbc m = op.medidor;
+        long inicio = System.nanoTime();
+        Connection con = null;
+        PreparedStatement ps = null;
+        ResultSet rs;
+        try {
+            con = OracleConnectionFactory.getConnection();
+            long t = m.conexao.registrarDesde(inicio);
+            ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            parametros.aplicar(ps);
+            rs = ps.executeQuery();
+            m.execucao.registrarDesde(t);
+        } catch (SQLException e) {
+            fecharSilenciosamente(ps, con);
+            m.total.registrarErro();
+            throw op.erro(e);
+        } catch (RuntimeException e) {
+            // Ex.: falha ao vincular parâmetros; sem o Stream, ninguém mais devolveria a conexão
+            fecharSilenciosamente(ps, con);
+            m.total.registrarErro();
+            throw e;
+        } finally {
+            m.total.registrarDesde(inicio);
+        }
+
+        Connection conexao = con;
+        PreparedStatement stmt = ps;
+        Spliterator<T> linhas = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> acao) {
+                try {
+                    if (!rs.next()) return false;
+                    acao.accept(mapeador.mapear(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Erro ao ler cursor", e);
+                }
+            }
+        };
+        return StreamSupport.stream(linhas, false).onClose(() -> {
+            try {
+                rs.close();
+            } catch (SQLException ignored) {
+            }
+            fecharSilenciosamente(stmt, conexao);
+        });
+    }
+
+    private static void fecharSilenciosamente(PreparedStatement ps, Connection con) {
+        try {
+            if (ps != null) ps.close();
+        } catch (SQLException ignored) {
+        }
+        try {
+            if (con != null) con.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.clinic.dao.jdbc;
+
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.metricas.MedidorJdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Execução dos comandos dos DAOs com medição de cada fase: obtenção da conexão, execução do
+ * comando e mapeamento do resultado (que inclui a leitura das linhas seguintes do cursor).
+ * Erros de SQL são convertidos em RuntimeException como os DAOs já faziam.
+ *
+ * Convenções para quem usa: mapeadores leem as colunas por posição, na ordem do SELECT, e datas
+ * trafegam como LocalDateTime direto (setObject/getObject), sem passar por Timestamp.
+ * Os PreparedStatements são reaproveitados pelo cache de statements do driver, por conexão
+ * física (ORACLE_STATEMENT_CACHE em {@link OracleConnectionFactory}).
+ */
+final class ExecutorJdbc {
+
+    @FunctionalInterface
+    interface Parametros {
+        void aplicar(PreparedStatement ps) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface Mapeador<T> {
+        T mapear(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface Vinculador<T> {
+        void vincular(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface Trabalho<T> {
+        T executar(Connection con) throws SQLException;
+    }
+
+    static final Parametros SEM_PARAMETROS = ps -> {};
+
+    // Linhas enviadas por executeBatch
+    static final int TAMANHO_LOTE = Configuracao.inteiro("CLINICA_JDBC_LOTE", 500);
+
+    /** Uma operação de DAO: nome usado nas métricas e mensagem da exceção (null = só a causa). */
+    static final class Operacao {
+        final MedidorJdbc medidor;
+        private final String mensagemErro;
+
+        private Operacao(String nome, String mensagemErro) {
+            this.medidor = MedidorJdbc.de(nome);
+            this.mensagemErro = mensagemErro;
+        }
+
+        static Operacao de(String nome) {
+            return new Operacao(nome, null);
+        }
+
+        static Operacao de(String nome, String mensagemErro) {
+            return new Operacao(nome, mensagemErro);
+        }
+
+        RuntimeException erro(SQLException e) {
+            return mensagemErro == null ? new RuntimeException(e) : new RuntimeException(mensagemErro, e);
+        }
+    }
+
+    private ExecutorJdbc() {}
+
+    static <T> List<T> listar(Operacao op, String sql, Parametros parametros, Mapeador<T> mapeador) {
+        return listar(op, sql, parametros, mapeador, Cursor.FETCH_SIZE);
+    }
+
+    static <T> List<T> listar(Operacao op, String sql, Parametros parametros, Mapeador<T> mapeador, int fetchSize) {
+        MedidorJdbc m = op.medidor;
+        long inicio = System.nanoTime();
+        try (Connection con = OracleConnectionFactory.getConnection()) {
+            long t = m.conexao.registrarDesde(inicio);
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                ps.setFetchSize(fetchSize);
+                parametros.aplicar(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    t = m.execucao.registrarDesde(t);
+                    List<T> lista = new ArrayList<>();
+                    while (rs.next()) {
+                        lista.add(mapeador.mapear(rs));
+                    }
+                    m.mapeamento.registrarDesde(t);
+                    return lista;
+                }
+            }
+        } catch (SQLException e) {
+            m.total.registrarErro();
+            throw op.erro(e);
+        } catch (RuntimeException e) {
+            m.total.registrarErro();
+            throw e;
+        } finally {
+            m.total.registrarDesde(inicio);
+        }
+    }
+
+    /** Primeira linha mapeada, ou null se a consulta não retornar linhas. */
+    static <T> T buscarUm(Operacao op, String sql, Parametros parametros, Mapeador<T> mapeador) {
+        MedidorJdbc m = op.medidor;
+        long inicio = System.nanoTime();
+        try (Connection con = OracleConnectionFactory.getConnection()) {
+            long t = m.conexao.registrarDesde(inicio);
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                parametros.aplicar(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    t = m.execucao.registrarDesde(t);
+                    T resultado = rs.next() ? mapeador.mapear(rs) : null;
+                    m.mapeamento.registrarDesde(t);
+                    return resultado;
+                }
+            }
+        } catch (SQLException e) {
+            m.total.registrarErro();
+            throw op.erro(e);
+        } catch (RuntimeException e) {
+            m.total.registrarErro();
+            throw e;
+        } finally {
+            m.total.registrarDesde(inicio);
+        }
+    }
+
+    /** UPDATE/DELETE: devolve a quantidade de linhas afetadas. */
+    static int atualizar(Operacao op, String sql, Parametros parametros) {
+        return comConexao(op, con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                parametros.aplicar(ps);
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    /** INSERT com a chave gerada na coluna ID; null se o banco não devolver a chave. */
+    static Long inserir(Operacao op, String sql, Parametros parametros) {
+        return comConexao(op, con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql, new String[] {"ID"})) {
+                parametros.aplicar(ps);
+                ps.executeUpdate();
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    return rs.next() ? rs.getLong(1) : null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Executa o comando uma vez por item com addBatch/executeBatch, em blocos de {@link #TAMANHO_LOTE}.
+     * Devolve o total de linhas afetadas (linhas sem contagem informada pelo driver contam como 1).
+     */
+    static <T> int executarEmLote(Operacao op, String sql, List<T> itens, Vinculador<T> vinculador) {
+        if (itens.isEmpty()) return 0;
+        return comConexao(op, con -> {
+            int afetadas = 0;
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                for (int i = 0; i < itens.size(); i++) {
+                    vinculador.vincular(ps, itens.get(i));
+                    ps.addBatch();
+                    if ((i + 1) % TAMANHO_LOTE == 0 || i == itens.size() - 1) {
+                        for (int n : ps.executeBatch()) {
+                            afetadas += n == PreparedStatement.SUCCESS_NO_INFO ? 1 : Math.max(n, 0);
+                        }
+                    }
+                }
+            }
+            return afetadas;
+        });
+    }
+
+    /**
+     * INSERT em lote com os ids reservados antes na {@code sequencia}, numa única consulta, e devolvidos na
+     * mesma ordem dos itens. O comando recebe o id no primeiro parâmetro; o vinculador preenche a partir
+     * do segundo. Não usa getGeneratedKeys depois do executeBatch: o driver Oracle não devolve as chaves
+     * geradas de um lote.
+     */
+    static <T> List<Long> inserirEmLote(Operacao op, String sql, String sequencia, List<T> itens, Vinculador<T> vinculador) {
+        if (itens.isEmpty()) return new ArrayList<>();
+        return comConexao(op, con -> {
+            List<Long> ids = reservarIds(con, sequencia, itens.size());
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                for (int i = 0; i < itens.size(); i++) {
+                    ps.setLong(1, ids.get(i));
+                    vinculador.vincular(ps, itens.get(i));
+                    ps.addBatch();
+                    if ((i + 1) % TAMANHO_LOTE == 0 || i == itens.size() - 1) {
+                        ps.executeBatch();
+                    }
+                }
+            }
+            return ids;
+        });
+    }
+
+    // n valores da sequência numa ida ao banco; o WITH recursivo gera as linhas no Oracle (11gR2+) e no H2
+    private static List<Long> reservarIds(Connection con, String sequencia, int n) throws SQLException {
+        String sql = "WITH n (i) AS (SELECT 1 FROM dual UNION ALL SELECT i + 1 FROM n WHERE i < ?) "
+                + "SELECT " + sequencia + ".NEXTVAL FROM n";
+        List<Long> ids = new ArrayList<>(n);
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setFetchSize(Math.min(n, TAMANHO_LOTE));
+            ps.setInt(1, n);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.add(rs.getLong(1));
+            }
+        }
+        if (ids.size() != n) {
+            throw new SQLException("Sequência " + sequencia + " reservou " + ids.size() + " ids para " + n + " linhas");
+        }
+        return ids;
+    }
+
+    /** Trabalho livre sobre a conexão (lotes, travas); a execução inteira conta como fase de execução. */
+    static <T> T comConexao(Operacao op, Trabalho<T> trabalho) {
+        MedidorJdbc m = op.medidor;
+        long inicio = System.nanoTime();
+        try (Connection con = OracleConnectionFactory.getConnection()) {
+            long t = m.conexao.registrarDesde(inicio);
+            T resultado = trabalho.executar(con);
+            m.execucao.registrarDesde(t);
+            return resultado;
+        } catch (SQLException e) {
+            m.total.registrarErro();
+            throw op.erro(e);
+        } catch (RuntimeException e) {
+            m.total.registrarErro();
+            throw e;
+        } finally {
+            m.total.registrarDesde(inicio);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.clinic.dao.jdbc;
+
+import java.time.LocalDateTime;
+
+// Linha da agenda já com os nomes de médico e paciente (consultas + medicos + pacientes num único JOIN)
+public record LinhaAgenda(long consultaId, LocalDateTime inicio, LocalDateTime fim,
+                          long medicoId, String medicoNome, String medicoCrm,
+                          long pacienteId, String pacienteNome, String pacienteEmail) {
+}
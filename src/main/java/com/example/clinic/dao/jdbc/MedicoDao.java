@@ -1,81 +1,121 @@
 package com.example.clinic.dao.jdbc;
 
 import com.example.clinic.domain.Medico;
-import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.dao.jdbc.ExecutorJdbc.Operacao;
+import com.example.clinic.diario.Alteracao;
+import com.example.clinic.diario.CapturaAlteracoes;
 
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class MedicoDao {
+
+    // Operações medidas (Metricas: MedicoDao.<metodo> e fases .conexao/.execucao/.mapeamento)
+    private static final Operacao SALVAR = Operacao.de("MedicoDao.salvar");
+    private static final Operacao SALVAR_EM_LOTE = Operacao.de("MedicoDao.salvarEmLote");
+    private static final Operacao BUSCAR_POR_ID = Operacao.de("MedicoDao.buscarPorId");
+    private static final Operacao BUSCAR_POR_CRM = Operacao.de("MedicoDao.buscarPorCrm");
+    private static final Operacao LISTAR_TODOS = Operacao.de("MedicoDao.listarTodos");
+    private static final Operacao LISTAR_PAGINA = Operacao.de("MedicoDao.listarPagina");
+    private static final Operacao PERCORRER_TODOS = Operacao.de("MedicoDao.percorrerTodos");
+    private static final Operacao ATUALIZAR = Operacao.de("MedicoDao.atualizar");
+    private static final Operacao DELETAR = Operacao.de("MedicoDao.deletar");
+    private static final Operacao MESCLAR_EM_LOTE = Operacao.de("MedicoDao.mesclarEmLote");
+
+    private static final MesclaPorChave<Medico> MESCLA = new MesclaPorChave<>(MESCLAR_EM_LOTE,
+            "medicos", "crm", Medico::getCrm, Medico::getNome);
+
     public Long salvar(Medico m) {
         String sql = "INSERT INTO medicos (nome, crm) VALUES (?, ?)";
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql, new String[]{"ID"})) {
+        Long id = ExecutorJdbc.inserir(SALVAR, sql, ps -> {
             ps.setString(1, m.getNome());
             ps.setString(2, m.getCrm());
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) return rs.getLong(1);
-            }
-            return null;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        });
+        if (id != null) CapturaAlteracoes.registrar(Alteracao.Entidade.MEDICO, id, Alteracao.Tipo.INSERCAO);
+        return id;
+    }
+
+    // Grava em lote (executeBatch) dentro da transação atual, se houver
+    public void salvarEmLote(List<Medico> lista) {
+        String sql = "INSERT INTO medicos (nome, crm) VALUES (?, ?)";
+        ExecutorJdbc.executarEmLote(SALVAR_EM_LOTE, sql, lista, (ps, m) -> {
+            ps.setString(1, m.getNome());
+            ps.setString(2, m.getCrm());
+        });
+        // Os ids gerados não são lidos: registra uma carga da entidade
+        if (!lista.isEmpty()) CapturaAlteracoes.registrar(Alteracao.Entidade.MEDICO, 0L, Alteracao.Tipo.CARGA);
+    }
+
+    /**
+     * Insere ou atualiza o nome pelo CRM (MERGE em lote), dentro da transação atual, se houver.
+     * Registros idênticos aos do banco não são regravados.
+     */
+    public ContagemMescla mesclarEmLote(List<Medico> lista) {
+        ContagemMescla contagem = MESCLA.mesclar(lista);
+        if (contagem.inseridos() + contagem.atualizados() > 0) {
+            CapturaAlteracoes.registrar(Alteracao.Entidade.MEDICO, 0L, Alteracao.Tipo.CARGA);
         }
+        return contagem;
     }
 
     public Medico buscarPorId(long id) {
-        String sql = "SELECT id, nome, crm FROM medicos WHERE id = ?";
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return new Medico(rs.getLong("id"), rs.getString("nome"), rs.getString("crm"));
-                }
-                return null;
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        String sql = "SELECT id, nome, crm, versao FROM medicos WHERE id = ?";
+        return ExecutorJdbc.buscarUm(BUSCAR_POR_ID, sql, ps -> ps.setLong(1, id), this::map);
+    }
+
+    public Medico buscarPorCrm(String crm) {
+        String sql = "SELECT id, nome, crm, versao FROM medicos WHERE crm = ?";
+        return ExecutorJdbc.buscarUm(BUSCAR_POR_CRM, sql, ps -> ps.setString(1, crm), this::map);
     }
 
     public List<Medico> listarTodos() {
-        String sql = "SELECT id, nome, crm FROM medicos";
-        List<Medico> lista = new ArrayList<>();
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                lista.add(new Medico(rs.getLong("id"), rs.getString("nome"), rs.getString("crm")));
-            }
-            return lista;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        String sql = "SELECT id, nome, crm, versao FROM medicos ORDER BY id";
+        return ExecutorJdbc.listar(LISTAR_TODOS, sql, ExecutorJdbc.SEM_PARAMETROS, this::map);
+    }
+
+    // Paginação por chave: próxima página após 'aposId' (0 para a primeira), ordenada por id
+    public List<Medico> listarPagina(long aposId, int limite) {
+        String sql = "SELECT id, nome, crm, versao FROM medicos WHERE id > ? ORDER BY id FETCH FIRST ? ROWS ONLY";
+        return ExecutorJdbc.listar(LISTAR_PAGINA, sql, ps -> {
+            ps.setLong(1, aposId);
+            ps.setInt(2, limite);
+        }, this::map, limite);
     }
 
+    // Todos os registros em ordem de id, lidos sob demanda; o Stream deve ser fechado após o uso
+    public Stream<Medico> percorrerTodos() {
+        return Cursor.abrir(PERCORRER_TODOS, "SELECT id, nome, crm, versao FROM medicos ORDER BY id",
+                ExecutorJdbc.SEM_PARAMETROS, this::map);
+    }
+
+    /**
+     * Grava nome e CRM se a linha ainda estiver na versão lida ({@code m.getVersao()}), incrementando-a.
+     * Nenhuma trava é mantida entre a leitura e a escrita.
+     *
+     * @throws ModificacaoConcorrenteException a linha foi alterada ou removida depois da leitura
+     */
     public void atualizar(Medico m) {
-        String sql = "UPDATE medicos SET nome=?, crm=? WHERE id=?";
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        String sql = "UPDATE medicos SET nome=?, crm=?, versao=versao+1 WHERE id=? AND versao=?";
+        int linhas = ExecutorJdbc.atualizar(ATUALIZAR, sql, ps -> {
             ps.setString(1, m.getNome());
             ps.setString(2, m.getCrm());
             ps.setLong(3, m.getId());
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+            ps.setLong(4, m.getVersao());
+        });
+        ModificacaoConcorrenteException.verificar(linhas, "Médico", m.getId(), m.getVersao());
+        CapturaAlteracoes.registrar(Alteracao.Entidade.MEDICO, m.getId(), Alteracao.Tipo.ATUALIZACAO);
     }
 
     public void deletar(long id) {
         String sql = "DELETE FROM medicos WHERE id=?";
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        if (ExecutorJdbc.atualizar(DELETAR, sql, ps -> ps.setLong(1, id)) > 0) {
+            CapturaAlteracoes.registrar(Alteracao.Entidade.MEDICO, id, Alteracao.Tipo.REMOCAO);
         }
     }
+
+    // Colunas por posição, na ordem dos SELECTs: id, nome, crm, versao
+    private Medico map(ResultSet rs) throws SQLException {
+        return new Medico(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4));
+    }
 }
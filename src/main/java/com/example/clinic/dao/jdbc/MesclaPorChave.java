@@ -0,0 +1,115 @@
+package com.example.clinic.dao.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Upsert em lote de tabelas {@code (id, nome, <chave única>, versao)}: insere quem não existe e atualiza
+ * o nome de quem mudou (incrementando a versão), via MERGE com executeBatch.
+ *
+ * Cada bloco de até {@link ExecutorJdbc#TAMANHO_LOTE} itens começa com um único SELECT ... IN pelas
+ * chaves do bloco. Com ele, as linhas idênticas ao banco nem são enviadas e as contagens de
+ * inseridos/atualizados saem da comparação, sem depender de erro de chave duplicada.
+ * Chaves repetidas na entrada valem na ordem: a última ocorrência prevalece.
+ */
+final class MesclaPorChave<T> {
+
+    // O Oracle aceita no máximo 1000 expressões numa lista IN
+    private static final int BLOCO = Math.min(ExecutorJdbc.TAMANHO_LOTE, 1000);
+
+    private final ExecutorJdbc.Operacao op;
+    private final String tabela;
+    private final String colunaChave;
+    private final Function<T, String> chave;
+    private final Function<T, String> nome;
+    private final String merge;
+
+    MesclaPorChave(ExecutorJdbc.Operacao op, String tabela, String colunaChave,
+                   Function<T, String> chave, Function<T, String> nome) {
+        this.op = op;
+        this.tabela = tabela;
+        this.colunaChave = colunaChave;
+        this.chave = chave;
+        this.nome = nome;
+        // CAST dá tipo aos parâmetros da subconsulta (exigido pelo H2 dos testes; neutro no Oracle)
+        this.merge = "MERGE INTO " + tabela + " t USING (SELECT CAST(? AS VARCHAR2(120)) AS chave, " +
+                "CAST(? AS VARCHAR2(120)) AS nome FROM dual) s " +
+                "ON (t." + colunaChave + " = s.chave) " +
+                "WHEN MATCHED THEN UPDATE SET t.nome = s.nome, t.versao = t.versao + 1 " +
+                "WHEN NOT MATCHED THEN INSERT (nome, " + colunaChave + ") VALUES (s.nome, s.chave)";
+    }
+
+    ContagemMescla mesclar(List<T> itens) {
+        if (itens.isEmpty()) return new ContagemMescla(0, 0, 0);
+        return ExecutorJdbc.comConexao(op, con -> {
+            ContagemMescla total = new ContagemMescla(0, 0, 0);
+            for (int de = 0; de < itens.size(); de += BLOCO) {
+                List<T> bloco = itens.subList(de, Math.min(de + BLOCO, itens.size()));
+                total = total.somar(mesclarBloco(con, bloco));
+            }
+            return total;
+        });
+    }
+
+    private ContagemMescla mesclarBloco(Connection con, List<T> bloco) throws SQLException {
+        Map<String, String> atuais = existentes(con, bloco);
+        int inseridos = 0, atualizados = 0, inalterados = 0;
+        List<T> enviar = new ArrayList<>(bloco.size());
+        for (T item : bloco) {
+            String k = chave.apply(item);
+            String n = nome.apply(item);
+            boolean existe = atuais.containsKey(k);
+            String atual = atuais.put(k, n);
+            if (!existe) {
+                inseridos++;
+            } else if (n.equals(atual)) {
+                inalterados++;
+                continue;
+            } else {
+                atualizados++;
+            }
+            enviar.add(item);
+        }
+        if (!enviar.isEmpty()) {
+            try (PreparedStatement ps = con.prepareStatement(merge)) {
+                for (T item : enviar) {
+                    ps.setString(1, chave.apply(item));
+                    ps.setString(2, nome.apply(item));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        return new ContagemMescla(inseridos, atualizados, inalterados);
+    }
+
+    // chave -> nome atual dos registros do bloco que já estão no banco
+    private Map<String, String> existentes(Connection con, List<T> bloco) throws SQLException {
+        List<String> chaves = bloco.stream().map(chave).distinct().toList();
+        StringBuilder sql = new StringBuilder("SELECT ").append(colunaChave).append(", nome FROM ")
+                .append(tabela).append(" WHERE ").append(colunaChave).append(" IN (");
+        for (int i = 0; i < chaves.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+        Map<String, String> atuais = new HashMap<>(chaves.size() * 2);
+        try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            for (int i = 0; i < chaves.size(); i++) {
+                ps.setString(i + 1, chaves.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    atuais.put(rs.getString(1), rs.getString(2));
+                }
+            }
+        }
+        return atuais;
+    }
+}
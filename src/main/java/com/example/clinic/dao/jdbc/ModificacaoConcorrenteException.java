@@ -0,0 +1,32 @@
+package com.example.clinic.dao.jdbc;
+
+/**
+ * Um UPDATE condicionado à versão não encontrou a linha: outra operação alterou ou removeu o registro
+ * depois da leitura. Quem chamou deve reler o registro e decidir se reaplica a mudança.
+ *
+ * É um {@link IllegalStateException}, tratado como conflito (HTTP 409) pela API.
+ */
+public class ModificacaoConcorrenteException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String entidade;
+    private final long id;
+    private final long versao;
+
+    public ModificacaoConcorrenteException(String entidade, long id, long versao) {
+        super(entidade + " " + id + " foi alterado ou removido por outra operação (versão lida: " + versao + ")");
+        this.entidade = entidade;
+        this.id = id;
+        this.versao = versao;
+    }
+
+    // Lança a exceção quando o UPDATE condicional não alterou nenhuma linha
+    static void verificar(int linhas, String entidade, long id, long versao) {
+        if (linhas == 0) throw new ModificacaoConcorrenteException(entidade, id, versao);
+    }
+
+    public String getEntidade() { return entidade; }
+    public long getId() { return id; }
+    public long getVersao() { return versao; }
+}
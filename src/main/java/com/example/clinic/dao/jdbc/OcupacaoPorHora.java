@@ -0,0 +1,5 @@
+package com.example.clinic.dao.jdbc;
+
+// Consultas e minutos agendados pela hora de início (0-23), somando todos os médicos
+public record OcupacaoPorHora(int hora, long consultas, long minutosAgendados) {
+}
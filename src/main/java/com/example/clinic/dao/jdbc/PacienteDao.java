@@ -1,81 +1,121 @@
 package com.example.clinic.dao.jdbc;
 
 import com.example.clinic.domain.Paciente;
-import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.dao.jdbc.ExecutorJdbc.Operacao;
+import com.example.clinic.diario.Alteracao;
+import com.example.clinic.diario.CapturaAlteracoes;
 
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class PacienteDao {
+
+    // Operações medidas (Metricas: PacienteDao.<metodo> e fases .conexao/.execucao/.mapeamento)
+    private static final Operacao SALVAR = Operacao.de("PacienteDao.salvar");
+    private static final Operacao SALVAR_EM_LOTE = Operacao.de("PacienteDao.salvarEmLote");
+    private static final Operacao BUSCAR_POR_ID = Operacao.de("PacienteDao.buscarPorId");
+    private static final Operacao BUSCAR_POR_EMAIL = Operacao.de("PacienteDao.buscarPorEmail");
+    private static final Operacao LISTAR_TODOS = Operacao.de("PacienteDao.listarTodos");
+    private static final Operacao LISTAR_PAGINA = Operacao.de("PacienteDao.listarPagina");
+    private static final Operacao PERCORRER_TODOS = Operacao.de("PacienteDao.percorrerTodos");
+    private static final Operacao ATUALIZAR = Operacao.de("PacienteDao.atualizar");
+    private static final Operacao DELETAR = Operacao.de("PacienteDao.deletar");
+    private static final Operacao MESCLAR_EM_LOTE = Operacao.de("PacienteDao.mesclarEmLote");
+
+    private static final MesclaPorChave<Paciente> MESCLA = new MesclaPorChave<>(MESCLAR_EM_LOTE,
+            "pacientes", "email", Paciente::getEmail, Paciente::getNome);
+
     public Long salvar(Paciente p) {
         String sql = "INSERT INTO pacientes (nome, email) VALUES (?, ?)";
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql, new String[]{"ID"})) {
+        Long id = ExecutorJdbc.inserir(SALVAR, sql, ps -> {
             ps.setString(1, p.getNome());
             ps.setString(2, p.getEmail());
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) return rs.getLong(1);
-            }
-            return null;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        });
+        if (id != null) CapturaAlteracoes.registrar(Alteracao.Entidade.PACIENTE, id, Alteracao.Tipo.INSERCAO);
+        return id;
+    }
+
+    // Grava em lote (executeBatch) dentro da transação atual, se houver
+    public void salvarEmLote(List<Paciente> lista) {
+        String sql = "INSERT INTO pacientes (nome, email) VALUES (?, ?)";
+        ExecutorJdbc.executarEmLote(SALVAR_EM_LOTE, sql, lista, (ps, p) -> {
+            ps.setString(1, p.getNome());
+            ps.setString(2, p.getEmail());
+        });
+        // Os ids gerados não são lidos: registra uma carga da entidade
+        if (!lista.isEmpty()) CapturaAlteracoes.registrar(Alteracao.Entidade.PACIENTE, 0L, Alteracao.Tipo.CARGA);
+    }
+
+    /**
+     * Insere ou atualiza o nome pelo email (MERGE em lote), dentro da transação atual, se houver.
+     * Registros idênticos aos do banco não são regravados.
+     */
+    public ContagemMescla mesclarEmLote(List<Paciente> lista) {
+        ContagemMescla contagem = MESCLA.mesclar(lista);
+        if (contagem.inseridos() + contagem.atualizados() > 0) {
+            CapturaAlteracoes.registrar(Alteracao.Entidade.PACIENTE, 0L, Alteracao.Tipo.CARGA);
         }
+        return contagem;
     }
 
     public Paciente buscarPorId(long id) {
-        String sql = "SELECT id, nome, email FROM pacientes WHERE id = ?";
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return new Paciente(rs.getLong("id"), rs.getString("nome"), rs.getString("email"));
-                }
-                return null;
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        String sql = "SELECT id, nome, email, versao FROM pacientes WHERE id = ?";
+        return ExecutorJdbc.buscarUm(BUSCAR_POR_ID, sql, ps -> ps.setLong(1, id), this::map);
+    }
+
+    public Paciente buscarPorEmail(String email) {
+        String sql = "SELECT id, nome, email, versao FROM pacientes WHERE email = ?";
+        return ExecutorJdbc.buscarUm(BUSCAR_POR_EMAIL, sql, ps -> ps.setString(1, email), this::map);
     }
 
     public List<Paciente> listarTodos() {
-        String sql = "SELECT id, nome, email FROM pacientes";
-        List<Paciente> lista = new ArrayList<>();
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                lista.add(new Paciente(rs.getLong("id"), rs.getString("nome"), rs.getString("email")));
-            }
-            return lista;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        String sql = "SELECT id, nome, email, versao FROM pacientes ORDER BY id";
+        return ExecutorJdbc.listar(LISTAR_TODOS, sql, ExecutorJdbc.SEM_PARAMETROS, this::map);
+    }
+
+    // Paginação por chave: próxima página após 'aposId' (0 para a primeira), ordenada por id
+    public List<Paciente> listarPagina(long aposId, int limite) {
+        String sql = "SELECT id, nome, email, versao FROM pacientes WHERE id > ? ORDER BY id FETCH FIRST ? ROWS ONLY";
+        return ExecutorJdbc.listar(LISTAR_PAGINA, sql, ps -> {
+            ps.setLong(1, aposId);
+            ps.setInt(2, limite);
+        }, this::map, limite);
     }
 
+    // Todos os registros em ordem de id, lidos sob demanda; o Stream deve ser fechado após o uso
+    public Stream<Paciente> percorrerTodos() {
+        return Cursor.abrir(PERCORRER_TODOS, "SELECT id, nome, email, versao FROM pacientes ORDER BY id",
+                ExecutorJdbc.SEM_PARAMETROS, this::map);
+    }
+
+    /**
+     * Grava nome e email se a linha ainda estiver na versão lida ({@code p.getVersao()}), incrementando-a.
+     * Nenhuma trava é mantida entre a leitura e a escrita.
+     *
+     * @throws ModificacaoConcorrenteException a linha foi alterada ou removida depois da leitura
+     */
     public void atualizar(Paciente p) {
-        String sql = "UPDATE pacientes SET nome=?, email=? WHERE id=?";
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        String sql = "UPDATE pacientes SET nome=?, email=?, versao=versao+1 WHERE id=? AND versao=?";
+        int linhas = ExecutorJdbc.atualizar(ATUALIZAR, sql, ps -> {
             ps.setString(1, p.getNome());
             ps.setString(2, p.getEmail());
             ps.setLong(3, p.getId());
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+            ps.setLong(4, p.getVersao());
+        });
+        ModificacaoConcorrenteException.verificar(linhas, "Paciente", p.getId(), p.getVersao());
+        CapturaAlteracoes.registrar(Alteracao.Entidade.PACIENTE, p.getId(), Alteracao.Tipo.ATUALIZACAO);
     }
 
     public void deletar(long id) {
         String sql = "DELETE FROM pacientes WHERE id=?";
-        try (Connection con = OracleConnectionFactory.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        if (ExecutorJdbc.atualizar(DELETAR, sql, ps -> ps.setLong(1, id)) > 0) {
+            CapturaAlteracoes.registrar(Alteracao.Entidade.PACIENTE, id, Alteracao.Tipo.REMOCAO);
         }
     }
+
+    // Colunas por posição, na ordem dos SELECTs: id, nome, email, versao
+    private Paciente map(ResultSet rs) throws SQLException {
+        return new Paciente(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4));
+    }
 }
@@ -0,0 +1,80 @@
+package com.example.clinic.dao.jdbc;
+
+import com.example.clinic.dao.jdbc.ExecutorJdbc.Operacao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Relatórios de ocupação agregados no banco: só as linhas resumidas (uma por médico e período, ou
+ * uma por hora) trafegam, em vez das consultas. Cobrem consultas e consultas_historico.
+ */
+public class RelatorioDao {
+
+    private static final Operacao UTILIZACAO = Operacao.de("RelatorioDao.utilizacao", "Erro ao gerar relatório de utilização");
+    private static final Operacao OCUPACAO_POR_HORA = Operacao.de("RelatorioDao.ocupacaoPorHora", "Erro ao gerar relatório por hora");
+
+    private static final String TODAS =
+            "(SELECT medico_id, inicio, fim FROM consultas WHERE inicio >= ? AND inicio < ? " +
+            "UNION ALL SELECT medico_id, inicio, fim FROM consultas_historico WHERE inicio >= ? AND inicio < ?)";
+
+    /**
+     * Utilização por médico e dia das consultas que começam entre {@code de} e {@code ate}
+     * (inclusive), ordenada por médico e dia. Uma única consulta SQL; o Stream lê as linhas sob
+     * demanda e deve ser fechado após o uso.
+     */
+    public Stream<UtilizacaoMedico> utilizacaoPorDia(LocalDate de, LocalDate ate) {
+        String sql = "SELECT x.medico_id, m.nome, x.periodo, COUNT(*), SUM(x.minutos), " +
+                "SUM(CASE WHEN x.intervalo > 0 THEN x.intervalo ELSE 0 END), " +
+                "SUM(CASE WHEN x.intervalo = 0 THEN 1 ELSE 0 END) " +
+                "FROM (SELECT c.medico_id, TRUNC(c.inicio) AS periodo, " +
+                minutos("c.inicio", "c.fim") + " AS minutos, " +
+                minutos("LAG(c.fim) OVER (PARTITION BY c.medico_id, TRUNC(c.inicio) ORDER BY c.inicio)", "c.inicio") +
+                " AS intervalo FROM " + TODAS + " c) x " +
+                "JOIN medicos m ON m.id = x.medico_id " +
+                "GROUP BY x.medico_id, m.nome, x.periodo ORDER BY x.medico_id, x.periodo";
+        return Cursor.abrir(UTILIZACAO, sql, ps -> intervalo(ps, de, ate), this::mapUtilizacao);
+    }
+
+    // Consultas por hora de início no intervalo [de, ate], em ordem de hora
+    public List<OcupacaoPorHora> ocupacaoPorHora(LocalDate de, LocalDate ate) {
+        String sql = "SELECT EXTRACT(HOUR FROM c.inicio), COUNT(*), SUM(" + minutos("c.inicio", "c.fim") + ") " +
+                "FROM " + TODAS + " c GROUP BY EXTRACT(HOUR FROM c.inicio) ORDER BY 1";
+        return ExecutorJdbc.listar(OCUPACAO_POR_HORA, sql, ps -> intervalo(ps, de, ate),
+                rs -> new OcupacaoPorHora(rs.getInt(1), rs.getLong(2), rs.getLong(3)));
+    }
+
+    // Minutos entre dois TIMESTAMP: a diferença é um INTERVAL DAY TO SECOND
+    private static String minutos(String de, String ate) {
+        String diferenca = "(" + ate + " - " + de + ")";
+        return "(EXTRACT(DAY FROM " + diferenca + ") * 1440 + EXTRACT(HOUR FROM " + diferenca + ") * 60 + " +
+                "EXTRACT(MINUTE FROM " + diferenca + "))";
+    }
+
+    private static void intervalo(PreparedStatement ps, LocalDate de, LocalDate ate) throws SQLException {
+        LocalDateTime inicio = de.atStartOfDay();
+        LocalDateTime fim = ate.plusDays(1).atStartOfDay();
+        ps.setObject(1, inicio);
+        ps.setObject(2, fim);
+        ps.setObject(3, inicio);
+        ps.setObject(4, fim);
+    }
+
+    // Colunas por posição: medico_id, nome, periodo, consultas, minutos, minutos entre consultas, em sequência
+    private UtilizacaoMedico mapUtilizacao(ResultSet rs) throws SQLException {
+        return new UtilizacaoMedico(
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getObject(3, LocalDateTime.class).toLocalDate(),
+                rs.getInt(4),
+                rs.getLong(5),
+                rs.getLong(6),
+                rs.getInt(7)
+        );
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.clinic.dao.jdbc;
+
+import java.time.LocalDate;
+
+/**
+ * Agregado de um médico num período (dia, ou semana iniciada em {@code periodo}): minutos agendados,
+ * minutos vagos entre consultas do mesmo dia e quantas consultas começaram exatamente no fim da anterior.
+ */
+public record UtilizacaoMedico(long medicoId, String medicoNome, LocalDate periodo, int consultas,
+                               long minutosAgendados, long minutosEntreConsultas, int consultasEmSequencia) {
+
+    // Soma outro agregado do mesmo médico, mantendo o início de período deste
+    public UtilizacaoMedico somar(UtilizacaoMedico outro) {
+        return new UtilizacaoMedico(medicoId, medicoNome, periodo, consultas + outro.consultas,
+                minutosAgendados + outro.minutosAgendados, minutosEntreConsultas + outro.minutosEntreConsultas,
+                consultasEmSequencia + outro.consultasEmSequencia);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.clinic.diario;
+
+import java.time.Instant;
+
+/**
+ * Uma escrita confirmada no banco, como registrada no {@link DiarioAlteracoes}. {@code posicao} é a
+ * ordem da alteração no diário (0, 1, 2, ...) e serve de ponto de retomada para os leitores.
+ * Com {@link Tipo#CARGA} o id é 0: várias linhas da entidade mudaram de uma vez (importação, mescla
+ * em lote) e quem mantém cópia dos dados deve recarregá-la.
+ */
+public record Alteracao(long posicao, Entidade entidade, long id, Tipo tipo, Instant instante) {
+
+    // O código gravado no arquivo é o ordinal: novos valores só no fim das listas
+    public enum Entidade { PACIENTE, MEDICO, CONSULTA }
+
+    public enum Tipo { INSERCAO, ATUALIZACAO, REMOCAO, CARGA }
+}
@@ -0,0 +1,66 @@
+package com.example.clinic.diario;
+
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.config.Transacoes;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ponto único por onde os DAOs registram suas escritas no {@link DiarioAlteracoes} do processo.
+ * Sem diário configurado (CLINICA_DIARIO_DIR vazio), registrar não faz nada.
+ *
+ * O registro acontece depois do commit ({@link Transacoes#aposCommit}): rollback não gera alteração.
+ * Se o processo cair entre o commit e o registro a alteração se perde; por isso quem acompanha o
+ * diário ainda deve recarregar tudo ao iniciar.
+ */
+public final class CapturaAlteracoes {
+
+    private static final Logger LOG = Logger.getLogger(CapturaAlteracoes.class.getName());
+    private static volatile DiarioAlteracoes diario;
+
+    private CapturaAlteracoes() {}
+
+    /** Abre o diário em CLINICA_DIARIO_DIR e passa a usá-lo; devolve null se não configurado. */
+    public static DiarioAlteracoes iniciarConfigurada() {
+        String dir = Configuracao.texto("CLINICA_DIARIO_DIR", null);
+        if (dir == null) return null;
+        DiarioAlteracoes aberto = DiarioAlteracoes.abrir(Path.of(dir));
+        usar(aberto);
+        return aberto;
+    }
+
+    public static void usar(DiarioAlteracoes novo) {
+        diario = novo;
+    }
+
+    public static DiarioAlteracoes atual() {
+        return diario;
+    }
+
+    /** Deixa de registrar e fecha o diário em uso. */
+    public static void parar() {
+        DiarioAlteracoes anterior = diario;
+        diario = null;
+        if (anterior != null) anterior.close();
+    }
+
+    public static void registrar(Alteracao.Entidade entidade, long id, Alteracao.Tipo tipo) {
+        registrar(entidade, List.of(id), tipo);
+    }
+
+    public static void registrar(Alteracao.Entidade entidade, List<Long> ids, Alteracao.Tipo tipo) {
+        DiarioAlteracoes d = diario;
+        if (d == null || ids.isEmpty()) return;
+        Transacoes.aposCommit(() -> {
+            try {
+                d.anexar(entidade, ids, tipo);
+            } catch (RuntimeException e) {
+                // A escrita no banco já foi confirmada: a falha no diário não pode desfazê-la
+                LOG.log(Level.WARNING, "Erro ao registrar alteração de " + entidade + " no diário", e);
+            }
+        });
+    }
+}
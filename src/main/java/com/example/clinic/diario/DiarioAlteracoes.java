@@ -0,0 +1,227 @@
+package com.example.clinic.diario;
+
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.metricas.Medidor;
+import com.example.clinic.metricas.Metricas;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Diário local, só de acréscimo, das escritas confirmadas no banco (entidade, id, tipo, instante).
+ * Caches, índices e relatórios acompanham o diário a partir de uma posição ({@link LeitorDiario}) e se
+ * atualizam aos poucos, em vez de recarregar tabelas inteiras ou consultar o banco periodicamente.
+ *
+ * Os arquivos ficam num diretório próprio, em segmentos de CLINICA_DIARIO_REGISTROS_POR_SEGMENTO
+ * registros de 32 bytes (padrão 65536, 2 MB) mapeados em memória: anexar é escrever na página mapeada,
+ * sem chamada de sistema. Há um único escritor por diretório (garantido por trava de arquivo); leitores
+ * podem estar em qualquer JVM da máquina. Com CLINICA_DIARIO_SINCRONIZAR=true cada registro é forçado
+ * para o disco; sem isso, sobrevive a uma queda do processo mas não a uma queda do sistema operacional.
+ * Segmentos antigos são removidos com {@link #descartarAntesDe(long)}.
+ */
+public final class DiarioAlteracoes implements AutoCloseable {
+
+    private static final Medidor ANEXAR = Metricas.medidor("DiarioAlteracoes.anexar");
+    private static final String TRAVA = "diario.trava";
+
+    private final Path diretorio;
+    private final int registrosPorSegmento;
+    private final boolean sincronizar;
+    private final FileChannel canalTrava;
+    private final FileLock trava;
+
+    private MappedByteBuffer atual;
+    private long baseAtual;
+    private int capacidadeAtual;
+    private volatile long proxima;
+    private boolean fechado;
+
+    private DiarioAlteracoes(Path diretorio, int registrosPorSegmento, boolean sincronizar,
+                             FileChannel canalTrava, FileLock trava) {
+        this.diretorio = diretorio;
+        this.registrosPorSegmento = registrosPorSegmento;
+        this.sincronizar = sincronizar;
+        this.canalTrava = canalTrava;
+        this.trava = trava;
+    }
+
+    public static DiarioAlteracoes abrir(Path diretorio) {
+        return abrir(diretorio,
+                Configuracao.inteiro("CLINICA_DIARIO_REGISTROS_POR_SEGMENTO", 65536),
+                Configuracao.booleano("CLINICA_DIARIO_SINCRONIZAR", false));
+    }
+
+    /**
+     * Abre (ou cria) o diário no diretório e continua depois da última alteração gravada.
+     *
+     * @throws IllegalStateException outro escritor (deste ou de outro processo) já usa o diretório
+     */
+    public static DiarioAlteracoes abrir(Path diretorio, int registrosPorSegmento, boolean sincronizar) {
+        if (registrosPorSegmento <= 0) {
+            throw new IllegalArgumentException("Registros por segmento deve ser positivo");
+        }
+        try {
+            Files.createDirectories(diretorio);
+            FileChannel canal = FileChannel.open(diretorio.resolve(TRAVA),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock trava;
+            try {
+                trava = canal.tryLock();
+            } catch (OverlappingFileLockException e) {
+                trava = null; // já aberto nesta mesma JVM
+            }
+            if (trava == null) {
+                canal.close();
+                throw new IllegalStateException("Diário de alterações em " + diretorio + " já está aberto por outro escritor");
+            }
+            DiarioAlteracoes diario = new DiarioAlteracoes(diretorio, registrosPorSegmento, sincronizar, canal, trava);
+            diario.retomar();
+            return diario;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao abrir o diário em " + diretorio, e);
+        }
+    }
+
+    public Path diretorio() {
+        return diretorio;
+    }
+
+    /** Posição que a próxima alteração receberá (= total de alterações já anexadas). */
+    public long proximaPosicao() {
+        return proxima;
+    }
+
+    /** Posição da alteração mais antiga ainda guardada. */
+    public long primeiraPosicao() {
+        List<Long> bases = Segmento.bases(diretorio);
+        return bases.isEmpty() ? proxima : bases.get(0);
+    }
+
+    public long anexar(Alteracao.Entidade entidade, long id, Alteracao.Tipo tipo) {
+        return anexar(entidade, List.of(id), tipo);
+    }
+
+    /** Anexa uma alteração por id, na ordem da lista; devolve a posição da primeira. */
+    public long anexar(Alteracao.Entidade entidade, List<Long> ids, Alteracao.Tipo tipo) {
+        return Metricas.medir(ANEXAR, () -> {
+            synchronized (this) {
+                if (fechado) throw new IllegalStateException("Diário de alterações fechado");
+                long primeira = proxima;
+                long instante = System.currentTimeMillis();
+                int desde = (int) (proxima - baseAtual);
+                for (long id : ids) {
+                    if (proxima == baseAtual + capacidadeAtual) {
+                        sincronizar(desde);
+                        mapear(proxima);
+                        desde = 0;
+                    }
+                    Segmento.escrever(atual, (int) (proxima - baseAtual), proxima, instante, entidade, id, tipo);
+                    proxima++;
+                }
+                sincronizar(desde);
+                return primeira;
+            }
+        });
+    }
+
+    /**
+     * Remove os segmentos cujas alterações são todas anteriores a {@code posicao} (o segmento em uso
+     * nunca é removido). Leitores que ainda não passaram dali recebem erro e devem recarregar.
+     * Devolve quantos segmentos foram removidos.
+     */
+    public synchronized int descartarAntesDe(long posicao) {
+        List<Long> bases = Segmento.bases(diretorio);
+        int removidos = 0;
+        for (int i = 0; i + 1 < bases.size() && bases.get(i + 1) <= posicao && bases.get(i) != baseAtual; i++) {
+            try {
+                Files.deleteIfExists(diretorio.resolve(Segmento.nome(bases.get(i))));
+                removidos++;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Erro ao descartar segmento do diário", e);
+            }
+        }
+        return removidos;
+    }
+
+    public LeitorDiario leitor(long aPartirDe) {
+        return new LeitorDiario(diretorio, aPartirDe);
+    }
+
+    /** Entrega ao ouvinte, numa thread própria, as alterações a partir da posição (ver {@link LeitorDiario#acompanhar}). */
+    public LeitorDiario.Assinatura assinar(long aPartirDe, Consumer<? super Alteracao> ouvinte) {
+        return LeitorDiario.acompanhar(diretorio, aPartirDe,
+                Duration.ofMillis(Configuracao.longo("CLINICA_DIARIO_INTERVALO_MS", 20)), ouvinte);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (fechado) return;
+        fechado = true;
+        if (atual != null) atual.force();
+        atual = null;
+        try {
+            trava.release();
+            canalTrava.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao fechar o diário em " + diretorio, e);
+        }
+    }
+
+    // Mapeia o último segmento e procura o primeiro registro ainda não escrito
+    private void retomar() throws IOException {
+        List<Long> bases = Segmento.bases(diretorio);
+        if (bases.isEmpty()) {
+            mapear(0);
+            return;
+        }
+        long base = bases.get(bases.size() - 1);
+        try (FileChannel canal = FileChannel.open(diretorio.resolve(Segmento.nome(base)),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            atual = canal.map(FileChannel.MapMode.READ_WRITE, 0, canal.size());
+        }
+        baseAtual = base;
+        capacidadeAtual = atual.capacity() / Segmento.TAMANHO_REGISTRO;
+        int indice = 0;
+        while (indice < capacidadeAtual && Segmento.ler(atual, indice, base + indice) != null) {
+            indice++;
+        }
+        proxima = base + indice;
+    }
+
+    // Cria o segmento já no tamanho final e só então lhe dá o nome definitivo: leitores nunca veem
+    // um segmento incompleto
+    private void mapear(long base) {
+        Path temporario = diretorio.resolve(Segmento.nome(base) + ".novo");
+        try {
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                atual = canal.map(FileChannel.MapMode.READ_WRITE, 0,
+                        (long) registrosPorSegmento * Segmento.TAMANHO_REGISTRO);
+            }
+            Files.move(temporario, diretorio.resolve(Segmento.nome(base)), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao criar segmento do diário em " + diretorio, e);
+        }
+        baseAtual = base;
+        capacidadeAtual = registrosPorSegmento;
+        proxima = base;
+    }
+
+    private void sincronizar(int desdeIndice) {
+        int ate = (int) (proxima - baseAtual);
+        if (sincronizar && ate > desdeIndice) {
+            atual.force(desdeIndice * Segmento.TAMANHO_REGISTRO, (ate - desdeIndice) * Segmento.TAMANHO_REGISTRO);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.clinic.diario;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Leitura sequencial de um {@link DiarioAlteracoes} a partir de uma posição. Só lê os arquivos
+ * (mapeados somente leitura), então pode rodar em outra JVM da mesma máquina. Não é thread-safe:
+ * cada consumidor usa o seu, guardando {@link #posicao()} para retomar depois.
+ */
+public final class LeitorDiario {
+
+    private static final Logger LOG = Logger.getLogger(LeitorDiario.class.getName());
+    private static final int LOTE = 1024;
+
+    private final Path diretorio;
+    private long posicao;
+    private ByteBuffer segmento;
+    private long base;
+    private int capacidade;
+
+    public LeitorDiario(Path diretorio, long aPartirDe) {
+        if (aPartirDe < 0) throw new IllegalArgumentException("Posição inválida: " + aPartirDe);
+        this.diretorio = diretorio;
+        this.posicao = aPartirDe;
+    }
+
+    /** Posição da próxima alteração a ser lida. */
+    public long posicao() {
+        return posicao;
+    }
+
+    /**
+     * Lê até {@code maximo} alterações a partir da posição atual e avança; lista vazia quando não há
+     * nada novo.
+     *
+     * @throws IllegalStateException a posição já foi descartada do diário: recarregue os dados e
+     *                               recomece de {@link DiarioAlteracoes#primeiraPosicao()}
+     */
+    public List<Alteracao> ler(int maximo) {
+        List<Alteracao> lidas = new ArrayList<>(Math.min(maximo, LOTE));
+        while (lidas.size() < maximo) {
+            if ((segmento == null || posicao >= base + capacidade) && !localizar()) break;
+            Alteracao a = Segmento.ler(segmento, (int) (posicao - base), posicao);
+            if (a == null) break;
+            lidas.add(a);
+            posicao++;
+        }
+        return lidas;
+    }
+
+    /**
+     * Entrega ao ouvinte, em ordem, cada alteração a partir de {@code aPartirDe}, verificando o diário a
+     * cada {@code intervalo} numa thread daemon. Erro do ouvinte é registrado no log e a entrega segue
+     * com a próxima alteração; se a posição for descartada do diário, o acompanhamento é encerrado.
+     */
+    public static Assinatura acompanhar(Path diretorio, long aPartirDe, Duration intervalo,
+                                        Consumer<? super Alteracao> ouvinte) {
+        return new Assinatura(new LeitorDiario(diretorio, aPartirDe), intervalo, ouvinte);
+    }
+
+    // Mapeia o segmento que contém a posição; false se ele ainda não existe
+    private boolean localizar() {
+        long escolhida;
+        if (segmento != null && posicao == base + capacidade) {
+            // Caminho comum: o próximo segmento começa onde o atual termina
+            escolhida = posicao;
+        } else {
+            List<Long> bases = Segmento.bases(diretorio);
+            if (bases.isEmpty()) return false;
+            if (posicao < bases.get(0)) {
+                throw new IllegalStateException("Posição " + posicao + " já foi descartada do diário (primeira: "
+                        + bases.get(0) + ")");
+            }
+            escolhida = bases.get(0);
+            for (long b : bases) {
+                if (b <= posicao) escolhida = b;
+            }
+        }
+        try (FileChannel canal = FileChannel.open(diretorio.resolve(Segmento.nome(escolhida)), StandardOpenOption.READ)) {
+            ByteBuffer mapeado = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            int registros = mapeado.capacity() / Segmento.TAMANHO_REGISTRO;
+            if (posicao >= escolhida + registros) return false;
+            segmento = mapeado;
+            base = escolhida;
+            capacidade = registros;
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao ler o diário em " + diretorio, e);
+        }
+    }
+
+    /** Acompanhamento em segundo plano criado por {@link #acompanhar}; {@link #close()} encerra. */
+    public static final class Assinatura implements AutoCloseable {
+        private final LeitorDiario leitor;
+        private final Consumer<? super Alteracao> ouvinte;
+        private final ScheduledExecutorService agendador;
+        private volatile long posicao;
+
+        private Assinatura(LeitorDiario leitor, Duration intervalo, Consumer<? super Alteracao> ouvinte) {
+            this.leitor = leitor;
+            this.ouvinte = ouvinte;
+            this.posicao = leitor.posicao();
+            this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "diario-leitor");
+                t.setDaemon(true);
+                return t;
+            });
+            long ms = Math.max(1, intervalo.toMillis());
+            agendador.scheduleWithFixedDelay(this::entregar, 0, ms, TimeUnit.MILLISECONDS);
+        }
+
+        /** Posição da próxima alteração a ser entregue. */
+        public long posicao() {
+            return posicao;
+        }
+
+        private void entregar() {
+            try {
+                List<Alteracao> lidas;
+                do {
+                    lidas = leitor.ler(LOTE);
+                    for (Alteracao a : lidas) {
+                        try {
+                            ouvinte.accept(a);
+                        } catch (RuntimeException e) {
+                            LOG.log(Level.WARNING, "Erro ao tratar alteração " + a, e);
+                        }
+                        posicao = a.posicao() + 1;
+                    }
+                } while (lidas.size() == LOTE && !Thread.currentThread().isInterrupted());
+            } catch (IllegalStateException e) {
+                // Posição descartada: não há como continuar sem recarregar os dados
+                LOG.log(Level.SEVERE, "Acompanhamento do diário encerrado", e);
+                agendador.shutdown();
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Erro ao ler o diário de alterações", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            agendador.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.clinic.diario;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Formato dos arquivos do diário. Cada segmento se chama {@code <posição da 1ª alteração>.diario}
+ * (20 dígitos) e guarda registros de tamanho fixo, de modo que a alteração na posição p fica no byte
+ * {@code (p - base) * TAMANHO_REGISTRO} do segmento, sem índice à parte:
+ * <pre>
+ *   0  long instante (epoch ms)    16 long posição    24 byte entidade, byte tipo, 2 bytes livres
+ *   8  long id                                        28 int  marca
+ * </pre>
+ * A marca é escrita por último, com semântica de release: um leitor (desta ou de outra JVM) que a
+ * encontra vê o registro inteiro. Área ainda zerada significa fim do que foi escrito.
+ */
+final class Segmento {
+
+    static final int TAMANHO_REGISTRO = 32;
+    private static final int MARCA = 0x44494152; // "DIAR"
+    private static final String EXTENSAO = ".diario";
+    private static final VarHandle INTEIRO =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final Alteracao.Entidade[] ENTIDADES = Alteracao.Entidade.values();
+    private static final Alteracao.Tipo[] TIPOS = Alteracao.Tipo.values();
+
+    private Segmento() {}
+
+    static String nome(long base) {
+        return String.format("%020d", base) + EXTENSAO;
+    }
+
+    // Posições iniciais dos segmentos existentes, em ordem crescente
+    static List<Long> bases(Path diretorio) {
+        List<Long> bases = new ArrayList<>();
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            arquivos.map(a -> a.getFileName().toString())
+                    .filter(n -> n.endsWith(EXTENSAO) && n.length() == 20 + EXTENSAO.length())
+                    .forEach(n -> bases.add(Long.parseLong(n.substring(0, 20))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao listar o diário em " + diretorio, e);
+        }
+        bases.sort(null);
+        return bases;
+    }
+
+    static void escrever(ByteBuffer buf, int indice, long posicao, long instante,
+                         Alteracao.Entidade entidade, long id, Alteracao.Tipo tipo) {
+        int pos = indice * TAMANHO_REGISTRO;
+        buf.putLong(pos, instante);
+        buf.putLong(pos + 8, id);
+        buf.putLong(pos + 16, posicao);
+        buf.put(pos + 24, (byte) entidade.ordinal());
+        buf.put(pos + 25, (byte) tipo.ordinal());
+        INTEIRO.setRelease(buf, pos + 28, MARCA);
+    }
+
+    // Alteração gravada no índice, ou null se ainda não foi escrita
+    static Alteracao ler(ByteBuffer buf, int indice, long posicao) {
+        int pos = indice * TAMANHO_REGISTRO;
+        if ((int) INTEIRO.getAcquire(buf, pos + 28) != MARCA || buf.getLong(pos + 16) != posicao) {
+            return null;
+        }
+        return new Alteracao(posicao, ENTIDADES[buf.get(pos + 24)], buf.getLong(pos + 8),
+                TIPOS[buf.get(pos + 25)], Instant.ofEpochMilli(buf.getLong(pos)));
+    }
+}
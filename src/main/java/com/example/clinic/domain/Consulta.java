@@ -10,9 +10,16 @@ public class Consulta {
     private Long medicoId;
     private LocalDateTime inicio;
     private LocalDateTime fim;
+    // Versão da linha no banco (controle de concorrência otimista); 0 para registros novos
+    private long versao;
 
     public Consulta(Long id, Long pacienteId, Long medicoId, LocalDateTime inicio, LocalDateTime fim) {
+        this(id, pacienteId, medicoId, inicio, fim, 0);
+    }
+
+    public Consulta(Long id, Long pacienteId, Long medicoId, LocalDateTime inicio, LocalDateTime fim, long versao) {
         this.id = id;
+        this.versao = versao;
         this.pacienteId = Objects.requireNonNull(pacienteId);
         this.medicoId = Objects.requireNonNull(medicoId);
         this.inicio = Objects.requireNonNull(inicio);
@@ -27,4 +34,5 @@ public class Consulta {
     public Long getMedicoId() { return medicoId; }
     public LocalDateTime getInicio() { return inicio; }
     public LocalDateTime getFim() { return fim; }
+    public long getVersao() { return versao; }
 }
@@ -6,14 +6,22 @@ public class Medico {
     private Long id;
     private String nome;
     private String crm;
+    // Versão da linha no banco (controle de concorrência otimista); 0 para registros novos
+    private long versao;
 
     public Medico(Long id, String nome, String crm) {
+        this(id, nome, crm, 0);
+    }
+
+    public Medico(Long id, String nome, String crm, long versao) {
         this.id = id;
         this.nome = Objects.requireNonNull(nome);
         this.crm = Objects.requireNonNull(crm);
+        this.versao = versao;
     }
 
     public Long getId() { return id; }
     public String getNome() { return nome; }
     public String getCrm() { return crm; }
+    public long getVersao() { return versao; }
 }
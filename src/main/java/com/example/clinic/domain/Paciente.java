@@ -6,16 +6,24 @@ public class Paciente {
     private Long id;
     private String nome;
     private String email;
+    // Versão da linha no banco (controle de concorrência otimista); 0 para registros novos
+    private long versao;
 
     public Paciente(Long id, String nome, String email) {
+        this(id, nome, email, 0);
+    }
+
+    public Paciente(Long id, String nome, String email, long versao) {
         this.id = id;
         this.nome = Objects.requireNonNull(nome, "nome é obrigatório");
         this.email = Objects.requireNonNull(email, "email é obrigatório");
+        this.versao = versao;
     }
 
     public Long getId() { return id; }
     public String getNome() { return nome; }
     public String getEmail() { return email; }
+    public long getVersao() { return versao; }
 
     public void alterarEmail(String novoEmail) {
         if (novoEmail == null || !novoEmail.contains("@")) {
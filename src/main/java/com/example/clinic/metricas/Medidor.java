@@ -0,0 +1,136 @@
+package com.example.clinic.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores e histograma de latência de uma operação, sem travas.
+ *
+ * O histograma tem faixas logarítmicas com 8 subdivisões por potência de 2 (erro máximo de 12,5%
+ * nos percentis), guardadas num AtomicLongArray; registrar é só um incremento atômico.
+ */
+public final class Medidor implements MedidorMBean {
+
+    private static final int BITS_SUB = 3;
+    private static final int SUB = 1 << BITS_SUB;
+
+    private final String nome;
+    private final AtomicLongArray faixas = new AtomicLongArray(64 * SUB);
+    private final LongAdder chamadas = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+    private final LongAdder somaNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    Medidor(String nome) {
+        this.nome = nome;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void registrar(long nanos) {
+        if (nanos < 0) nanos = 0;
+        chamadas.increment();
+        somaNanos.add(nanos);
+        faixas.incrementAndGet(faixa(nanos));
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /** Registra o tempo decorrido desde {@code inicioNanos} e devolve o instante atual (para encadear fases). */
+    public long registrarDesde(long inicioNanos) {
+        long agora = System.nanoTime();
+        registrar(agora - inicioNanos);
+        return agora;
+    }
+
+    public void registrarErro() {
+        erros.increment();
+    }
+
+    @Override
+    public long getChamadas() {
+        return chamadas.sum();
+    }
+
+    @Override
+    public long getErros() {
+        return erros.sum();
+    }
+
+    @Override
+    public double getMediaMicros() {
+        long n = chamadas.sum();
+        return n == 0 ? 0 : somaNanos.sum() / 1_000.0 / n;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentil(0.50) / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentil(0.99) / 1_000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return maxNanos.get() / 1_000.0;
+    }
+
+    @Override
+    public void zerar() {
+        for (int i = 0; i < faixas.length(); i++) {
+            faixas.set(i, 0);
+        }
+        chamadas.reset();
+        erros.reset();
+        somaNanos.reset();
+        maxNanos.set(0);
+    }
+
+    /** Percentil aproximado (limite superior da faixa), em nanossegundos. */
+    public long percentil(double p) {
+        long[] copia = new long[faixas.length()];
+        long total = 0;
+        for (int i = 0; i < copia.length; i++) {
+            copia[i] = faixas.get(i);
+            total += copia[i];
+        }
+        if (total == 0) return 0;
+        long alvo = (long) Math.ceil(p * total);
+        long acumulado = 0;
+        for (int i = 0; i < copia.length; i++) {
+            acumulado += copia[i];
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: chamadas=%d erros=%d media=%.1fus p50=%.1fus p99=%.1fus max=%.1fus",
+                nome, getChamadas(), getErros(), getMediaMicros(), getP50Micros(), getP99Micros(), getMaxMicros());
+    }
+
+    static int faixa(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) ((v >>> (exp - BITS_SUB)) & (SUB - 1));
+        return (exp - BITS_SUB + 1) * SUB + sub;
+    }
+
+    static long limiteSuperior(int faixa) {
+        if (faixa < SUB) return faixa;
+        int exp = faixa / SUB + BITS_SUB - 1;
+        int sub = faixa % SUB;
+        return ((long) (SUB + sub + 1) << (exp - BITS_SUB)) - 1;
+    }
+}
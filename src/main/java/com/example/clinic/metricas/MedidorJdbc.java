@@ -0,0 +1,24 @@
+package com.example.clinic.metricas;
+
+/**
+ * Medidores de uma operação JDBC: total e as fases de obtenção da conexão, execução do
+ * comando e mapeamento do resultado.
+ */
+public final class MedidorJdbc {
+
+    public final Medidor total;
+    public final Medidor conexao;
+    public final Medidor execucao;
+    public final Medidor mapeamento;
+
+    private MedidorJdbc(String nome) {
+        this.total = Metricas.medidor(nome);
+        this.conexao = Metricas.medidor(nome + ".conexao");
+        this.execucao = Metricas.medidor(nome + ".execucao");
+        this.mapeamento = Metricas.medidor(nome + ".mapeamento");
+    }
+
+    public static MedidorJdbc de(String nome) {
+        return new MedidorJdbc(nome);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.clinic.metricas;
+
+// Atributos expostos via JMX (jconsole/VisualVM: com.example.clinic > Metricas)
+public interface MedidorMBean {
+    long getChamadas();
+    long getErros();
+    double getMediaMicros();
+    double getP50Micros();
+    double getP99Micros();
+    double getMaxMicros();
+    void zerar();
+}
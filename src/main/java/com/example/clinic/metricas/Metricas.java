@@ -0,0 +1,116 @@
+package com.example.clinic.metricas;
+
+import com.example.clinic.config.Configuracao;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Registro dos medidores da aplicação. Cada medidor é publicado como MBean
+ * ({@code com.example.clinic:type=Metricas,name=<nome>}) e pode ser despejado periodicamente no log
+ * (CLINICA_METRICAS_LOG_SEGUNDOS, 0 = desligado).
+ *
+ * Convenção de nomes: {@code Classe.metodo} para a operação inteira e, nas operações JDBC,
+ * {@code Classe.metodo.conexao}, {@code .execucao} e {@code .mapeamento} para cada fase.
+ */
+public final class Metricas {
+
+    private static final Logger LOG = Logger.getLogger(Metricas.class.getName());
+    private static final Map<String, Medidor> MEDIDORES = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService relatorio;
+
+    private Metricas() {}
+
+    public static Medidor medidor(String nome) {
+        return MEDIDORES.computeIfAbsent(nome, Metricas::criar);
+    }
+
+    /** Executa a operação registrando latência (e erro, se lançar exceção) no medidor. */
+    public static <T> T medir(Medidor medidor, Supplier<T> operacao) {
+        long inicio = System.nanoTime();
+        try {
+            return operacao.get();
+        } catch (RuntimeException | Error e) {
+            medidor.registrarErro();
+            throw e;
+        } finally {
+            medidor.registrarDesde(inicio);
+        }
+    }
+
+    public static void medir(Medidor medidor, Runnable operacao) {
+        medir(medidor, () -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    public static List<Medidor> todos() {
+        List<Medidor> lista = new ArrayList<>(MEDIDORES.values());
+        lista.sort(Comparator.comparing(Medidor::getNome));
+        return lista;
+    }
+
+    public static String resumo() {
+        StringBuilder sb = new StringBuilder("Métricas:");
+        for (Medidor m : todos()) {
+            if (m.getChamadas() > 0) {
+                sb.append("\n  ").append(m);
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Liga o despejo periódico conforme CLINICA_METRICAS_LOG_SEGUNDOS. */
+    public static void iniciarRelatorioConfigurado() {
+        long segundos = Configuracao.longo("CLINICA_METRICAS_LOG_SEGUNDOS", 0);
+        if (segundos > 0) {
+            iniciarRelatorio(Duration.ofSeconds(segundos));
+        }
+    }
+
+    public static synchronized void iniciarRelatorio(Duration intervalo) {
+        if (relatorio != null) return;
+        relatorio = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metricas-relatorio");
+            t.setDaemon(true);
+            return t;
+        });
+        long ms = intervalo.toMillis();
+        relatorio.scheduleAtFixedRate(() -> LOG.info(resumo()), ms, ms, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void pararRelatorio() {
+        if (relatorio != null) {
+            relatorio.shutdownNow();
+            relatorio = null;
+        }
+    }
+
+    private static Medidor criar(String nome) {
+        Medidor medidor = new Medidor(nome);
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objeto = new ObjectName("com.example.clinic:type=Metricas,name=" + ObjectName.quote(nome));
+            if (!servidor.isRegistered(objeto)) {
+                servidor.registerMBean(medidor, objeto);
+            }
+        } catch (Exception e) {
+            // JMX indisponível não impede a coleta
+            LOG.fine(() -> "Não foi possível registrar MBean " + nome + ": " + e);
+        }
+        return medidor;
+    }
+}
@@ -1,32 +1,431 @@
 package com.example.clinic.service;
 
 import com.example.clinic.domain.Consulta;
+import com.example.clinic.metricas.Medidor;
+import com.example.clinic.metricas.Metricas;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 public class AgendaService {
 
     public interface ConsultaRepository {
         List<Consulta> listarPorMedicoNoIntervalo(long medicoId, LocalDateTime inicio, LocalDateTime fim);
         Long salvar(Consulta c);
+
+        // Implementações JDBC gravam com executeBatch; o padrão grava uma a uma
+        default List<Long> salvarEmLote(List<Consulta> consultas) {
+            List<Long> ids = new ArrayList<>(consultas.size());
+            for (Consulta c : consultas) {
+                ids.add(salvar(c));
+            }
+            return ids;
+        }
+
+        // Usados por remarcar/cancelar
+        Consulta buscarPorId(long id);
+
+        /**
+         * Move {@code atual} para {@code nova} (mesmo id e médico) num único comando, só se a consulta ainda
+         * estiver na versão de {@code atual} e o médico estiver livre no novo intervalo, desconsiderando
+         * a própria consulta. Devolve false se alguma das condições falhar.
+         */
+        boolean remarcar(Consulta atual, Consulta nova);
+
+        // Remove a consulta só se ela ainda não tiver começado em 'agora'; devolve false caso contrário
+        boolean cancelar(long consultaId, LocalDateTime agora);
+    }
+
+    // Resultado de cada item de agendarEmLote: id gerado ou motivo da recusa
+    public record ResultadoLote(Consulta consulta, Long id, String motivoRecusa) {
+        static ResultadoLote agendada(Consulta consulta, Long id) {
+            return new ResultadoLote(consulta, id, null);
+        }
+
+        static ResultadoLote recusada(Consulta consulta, String motivo) {
+            return new ResultadoLote(consulta, null, motivo);
+        }
+
+        public boolean aceita() {
+            return motivoRecusa == null;
+        }
+    }
+
+    // Regra de repetição de agendarRecorrente: cada ocorrência é o início somado de n passos
+    public enum Recorrencia {
+        SEMANAL(Period.ofWeeks(1)), QUINZENAL(Period.ofWeeks(2)), MENSAL(Period.ofMonths(1));
+
+        private final Period passo;
+
+        Recorrencia(Period passo) {
+            this.passo = passo;
+        }
+
+        // Calculada sempre a partir do início, para que meses curtos não desloquem as seguintes
+        LocalDateTime ocorrencia(LocalDateTime inicio, int n) {
+            return inicio.plus(passo.multipliedBy(n));
+        }
+    }
+
+    // Limite de ocorrências de uma série (dois anos de consultas semanais)
+    private static final int MAX_OCORRENCIAS = 104;
+
+    // Executa a verificação de conflito + gravação como unidade atômica para o médico,
+    // mesmo com várias instâncias da aplicação usando o mesmo banco
+    public interface TransacaoPorMedico {
+        <T> T executar(long medicoId, Supplier<T> operacao);
+    }
+
+    private static final TransacaoPorMedico SEM_TRANSACAO = new TransacaoPorMedico() {
+        @Override
+        public <T> T executar(long medicoId, Supplier<T> operacao) {
+            return operacao.get();
+        }
+    };
+
+    // Intervalo livre na agenda do médico, com pelo menos a duração pedida
+    public record HorarioLivre(LocalDateTime inicio, LocalDateTime fim) {
+        public long minutos() {
+            return Duration.between(inicio, fim).toMinutes();
+        }
     }
 
+    static final LocalTime ABERTURA = LocalTime.of(8, 0);
+    static final LocalTime FECHAMENTO = LocalTime.of(18, 0);
+
     private final ConsultaRepository repository;
+    private final TransacaoPorMedico transacao;
+    private final TravasPorMedico travas = new TravasPorMedico(256);
+    private final IndiceAgenda indice;
+    private final Executor executor;
+
+    // Latência e erros por operação (Metricas: AgendaService.<metodo>)
+    private static final Medidor AGENDAR = Metricas.medidor("AgendaService.agendar");
+    private static final Medidor AGENDAR_EM_LOTE = Metricas.medidor("AgendaService.agendarEmLote");
+    private static final Medidor AGENDAR_RECORRENTE = Metricas.medidor("AgendaService.agendarRecorrente");
+    private static final Medidor REMARCAR = Metricas.medidor("AgendaService.remarcar");
+    private static final Medidor CANCELAR = Metricas.medidor("AgendaService.cancelar");
+    private static final Medidor BUSCAR_HORARIOS_LIVRES = Metricas.medidor("AgendaService.buscarHorariosLivres");
 
     public AgendaService(ConsultaRepository repository) {
+        this(repository, repository instanceof TransacaoPorMedico t ? t : SEM_TRANSACAO);
+    }
+
+    public AgendaService(ConsultaRepository repository, TransacaoPorMedico transacao) {
+        this(repository, transacao, null);
+    }
+
+    // Com índice, choques já conhecidos são recusados em memória, sem ida ao banco; o que passa é
+    // confirmado no repositório dentro da transação do médico. O índice deve receber as gravações
+    // do repositório (ConsultaJdbcRepository.adicionarOuvinte) para se manter atualizado
+    public AgendaService(ConsultaRepository repository, TransacaoPorMedico transacao, IndiceAgenda indice) {
+        this(repository, transacao, indice, ExecutorServicos.padrao());
+    }
+
+    // 'executor' roda as variantes assíncronas (agendarAsync, ...)
+    public AgendaService(ConsultaRepository repository, TransacaoPorMedico transacao, IndiceAgenda indice,
+                         Executor executor) {
         this.repository = repository;
+        this.transacao = transacao != null ? transacao : SEM_TRANSACAO;
+        this.indice = indice;
+        this.executor = executor;
     }
 
     // Caso de uso: agendar consulta com regras
     public Long agendar(Consulta consulta) {
-        // Aplicar todas as validações
-        validarDuracaoMinima(consulta);
-        validarHorarioComercial(consulta);
-        validarAntecedencia(consulta.getInicio());
-        validarChoqueDeHorario(consulta);
+        return Metricas.medir(AGENDAR, () -> {
+            // Aplicar todas as validações
+            validarDuracaoMinima(consulta);
+            validarHorarioComercial(consulta);
+            validarAntecedencia(consulta.getInicio());
+
+            // Verificação de choque e gravação serializadas por médico: a trava local evita disputa
+            // entre threads desta instância; a transação protege contra outras instâncias
+            long medicoId = consulta.getMedicoId();
+            return travas.comTrava(medicoId, () -> transacao.executar(medicoId, () -> {
+                validarChoqueDeHorario(consulta);
+                return repository.salvar(consulta);
+            }));
+        });
+    }
+
+    /**
+     * Caso de uso: agendar várias consultas de uma vez (ex.: importação de agendas de parceiros).
+     *
+     * As consultas são agrupadas por médico. Para cada médico, numa única transação com a trava do
+     * médico, é feita uma consulta de intervalo cobrindo todo o grupo, a checagem de choque contra o
+     * banco e contra as demais consultas do próprio lote, e a gravação com executeBatch.
+     * Uma falha num médico não afeta os outros grupos.
+     *
+     * @return um resultado por consulta, na mesma ordem da lista recebida
+     */
+    public List<ResultadoLote> agendarEmLote(List<Consulta> consultas) {
+        return Metricas.medir(AGENDAR_EM_LOTE, () -> agendarTodas(consultas));
+    }
+
+    /**
+     * Caso de uso: série de consultas (ex.: acompanhamento de paciente crônico), a primeira em
+     * {@code inicio} e as demais a cada passo da {@code regra}, até {@code ocorrencias} (no máximo 104).
+     *
+     * Cada ocorrência passa pelas mesmas regras do agendar. Como no agendarEmLote, a checagem de
+     * choque usa uma única consulta de intervalo cobrindo a série inteira e as ocorrências aceitas são
+     * gravadas com executeBatch numa só transação. As recusadas não impedem as demais.
+     *
+     * @return um resultado por ocorrência, em ordem de data, com o motivo das que foram puladas
+     */
+    public List<ResultadoLote> agendarRecorrente(long pacienteId, long medicoId, LocalDateTime inicio,
+                                                 int duracaoMinutos, Recorrencia regra, int ocorrencias) {
+        return Metricas.medir(AGENDAR_RECORRENTE, () -> {
+            if (regra == null) {
+                throw new IllegalArgumentException("Regra de recorrência é obrigatória");
+            }
+            if (ocorrencias < 1 || ocorrencias > MAX_OCORRENCIAS) {
+                throw new IllegalArgumentException("Ocorrências devem estar entre 1 e " + MAX_OCORRENCIAS);
+            }
+            List<Consulta> serie = new ArrayList<>(ocorrencias);
+            for (int n = 0; n < ocorrencias; n++) {
+                LocalDateTime data = regra.ocorrencia(inicio, n);
+                serie.add(new Consulta(null, pacienteId, medicoId, data, data.plusMinutes(duracaoMinutos)));
+            }
+            return agendarTodas(serie);
+        });
+    }
+
+    /**
+     * Caso de uso: remarcar a consulta para outro horário com o mesmo médico, sem liberar o horário
+     * atual antes de garantir o novo. O novo intervalo passa pelas regras do agendar e a mudança é um
+     * único UPDATE condicional (a versão da consulta é a lida e o médico está livre no novo intervalo, fora a
+     * própria consulta), feito com a trava do médico. Com índice de agenda, o choque é verificado antes
+     * em memória e o índice recebe a mudança após o commit.
+     *
+     * @throws IllegalArgumentException consulta inexistente, já iniciada ou novo horário inválido
+     * @throws IllegalStateException choque de horário ou consulta alterada por outra operação
+     */
+    public Consulta remarcar(long consultaId, LocalDateTime novoInicio, LocalDateTime novoFim) {
+        return Metricas.medir(REMARCAR, () -> {
+            Consulta atual = repository.buscarPorId(consultaId);
+            if (atual == null) {
+                throw new IllegalArgumentException("Consulta não encontrada: " + consultaId);
+            }
+            if (!atual.getInicio().isAfter(LocalDateTime.now())) {
+                throw new IllegalArgumentException("Consulta já iniciada não pode ser remarcada");
+            }
+            Consulta nova = new Consulta(consultaId, atual.getPacienteId(), atual.getMedicoId(), novoInicio, novoFim,
+                    atual.getVersao() + 1);
+            validarDuracaoMinima(nova);
+            validarHorarioComercial(nova);
+            validarAntecedencia(novoInicio);
 
-        return repository.salvar(consulta);
+            long medicoId = atual.getMedicoId();
+            travas.comTrava(medicoId, () -> transacao.executar(medicoId, () -> {
+                if (indice != null && indice.conflita(nova)) {
+                    throw new IllegalStateException("Médico já possui consulta no horário");
+                }
+                if (!repository.remarcar(atual, nova)) {
+                    Consulta agora = repository.buscarPorId(consultaId);
+                    boolean inalterada = agora != null && agora.getVersao() == atual.getVersao();
+                    if (inalterada && indice != null) indice.invalidar(medicoId);
+                    throw new IllegalStateException(inalterada
+                            ? "Médico já possui consulta no horário"
+                            : "Consulta foi alterada ou cancelada por outra operação");
+                }
+                return null;
+            }));
+            return nova;
+        });
+    }
+
+    /**
+     * Caso de uso: cancelar uma consulta que ainda não começou. Um único DELETE condicional; o
+     * horário fica livre para novos agendamentos assim que a transação confirma.
+     *
+     * @throws IllegalArgumentException consulta inexistente ou já iniciada
+     */
+    public void cancelar(long consultaId) {
+        Metricas.medir(CANCELAR, () -> {
+            if (!repository.cancelar(consultaId, LocalDateTime.now())) {
+                throw new IllegalArgumentException(repository.buscarPorId(consultaId) == null
+                        ? "Consulta não encontrada: " + consultaId
+                        : "Consulta já iniciada não pode ser cancelada");
+            }
+        });
+    }
+
+    private List<ResultadoLote> agendarTodas(List<Consulta> consultas) {
+        ResultadoLote[] resultados = new ResultadoLote[consultas.size()];
+        Map<Long, List<Integer>> porMedico = new TreeMap<>();
+
+        for (int i = 0; i < consultas.size(); i++) {
+            Consulta c = consultas.get(i);
+            try {
+                validarDuracaoMinima(c);
+                validarHorarioComercial(c);
+                validarAntecedencia(c.getInicio());
+                porMedico.computeIfAbsent(c.getMedicoId(), k -> new ArrayList<>()).add(i);
+            } catch (IllegalArgumentException e) {
+                resultados[i] = ResultadoLote.recusada(c, e.getMessage());
+            }
+        }
+
+        for (Map.Entry<Long, List<Integer>> grupo : porMedico.entrySet()) {
+            long medicoId = grupo.getKey();
+            List<Integer> indices = grupo.getValue();
+            try {
+                Map<Integer, ResultadoLote> doGrupo = travas.comTrava(medicoId, () ->
+                        transacao.executar(medicoId, () -> agendarGrupo(medicoId, consultas, indices)));
+                doGrupo.forEach((i, r) -> resultados[i] = r);
+            } catch (RuntimeException e) {
+                for (int i : indices) {
+                    resultados[i] = ResultadoLote.recusada(consultas.get(i), e.getMessage());
+                }
+            }
+        }
+        return Arrays.asList(resultados);
+    }
+
+    private Map<Integer, ResultadoLote> agendarGrupo(long medicoId, List<Consulta> consultas, List<Integer> indices) {
+        // Em ordem de início: uma consulta aceita ocupa o horário para as seguintes do lote
+        indices.sort(Comparator.comparing(i -> consultas.get(i).getInicio()));
+
+        // O índice pode não ter visto gravações de outras instâncias: o grupo sempre confere no repositório
+        LinhaDoTempo existentes = new LinhaDoTempo();
+        LocalDateTime inicio = consultas.get(indices.get(0)).getInicio();
+        LocalDateTime fim = indices.stream().map(i -> consultas.get(i).getFim())
+                .max(Comparator.naturalOrder()).orElseThrow();
+        repository.listarPorMedicoNoIntervalo(medicoId, inicio, fim).forEach(existentes::adicionar);
+
+        Map<Integer, ResultadoLote> resultados = new HashMap<>();
+        LinhaDoTempo doLote = new LinhaDoTempo();
+        List<Integer> aceitos = new ArrayList<>();
+        List<Consulta> aGravar = new ArrayList<>();
+        for (int i : indices) {
+            Consulta c = consultas.get(i);
+            if (existentes.conflita(c.getInicio(), c.getFim(), null)) {
+                if (indice != null && !indice.conflita(c)) {
+                    indice.invalidar(medicoId);
+                }
+                resultados.put(i, ResultadoLote.recusada(c, "Médico já possui consulta no horário"));
+            } else if (doLote.conflita(c.getInicio(), c.getFim(), null)) {
+                resultados.put(i, ResultadoLote.recusada(c, "Conflita com outra consulta do mesmo lote"));
+            } else {
+                doLote.adicionar(c);
+                aceitos.add(i);
+                aGravar.add(c);
+            }
+        }
+
+        if (!aGravar.isEmpty()) {
+            List<Long> ids = repository.salvarEmLote(aGravar);
+            for (int k = 0; k < aceitos.size(); k++) {
+                int i = aceitos.get(k);
+                resultados.put(i, ResultadoLote.agendada(consultas.get(i), ids.get(k)));
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Caso de uso: horários livres de um médico entre as datas {@code de} e {@code ate} (inclusive)
+     * onde cabe uma consulta de {@code duracaoMinutos}, respeitando as mesmas regras do agendar:
+     * duração mínima, horário comercial e antecedência mínima.
+     *
+     * Faz uma única consulta de intervalo e uma varredura das consultas ordenadas; cada intervalo
+     * devolvido pode receber uma consulta iniciando em qualquer ponto até {@code fim - duracao}.
+     */
+    public List<HorarioLivre> buscarHorariosLivres(long medicoId, LocalDate de, LocalDate ate, int duracaoMinutos) {
+        return Metricas.medir(BUSCAR_HORARIOS_LIVRES, () -> {
+            if (duracaoMinutos < 15) {
+                throw new IllegalArgumentException("Consulta deve ter no mínimo 15 minutos");
+            }
+            if (ate.isBefore(de)) {
+                throw new IllegalArgumentException("Data final deve ser igual ou posterior à inicial");
+            }
+
+            // Primeiro início aceito por validarAntecedencia, arredondado para o minuto seguinte
+            LocalDateTime limiteAntecedencia = LocalDateTime.now().plusMinutes(60).truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+
+            List<Consulta> ocupadas = new ArrayList<>(repository.listarPorMedicoNoIntervalo(
+                    medicoId, de.atTime(ABERTURA), ate.atTime(FECHAMENTO)));
+            ocupadas.sort(Comparator.comparing(Consulta::getInicio));
+
+            List<HorarioLivre> livres = new ArrayList<>();
+            int primeira = 0;
+            for (LocalDate dia = de; !dia.isAfter(ate); dia = dia.plusDays(1)) {
+                LocalDateTime abertura = dia.atTime(ABERTURA);
+                LocalDateTime fechamento = dia.atTime(FECHAMENTO);
+                LocalDateTime cursor = abertura.isBefore(limiteAntecedencia) ? limiteAntecedencia : abertura;
+                if (!cursor.isBefore(fechamento)) continue;
+
+                while (primeira < ocupadas.size() && !ocupadas.get(primeira).getFim().isAfter(abertura)) {
+                    primeira++;
+                }
+                for (int i = primeira; i < ocupadas.size() && ocupadas.get(i).getInicio().isBefore(fechamento); i++) {
+                    Consulta c = ocupadas.get(i);
+                    if (c.getInicio().isAfter(cursor)) {
+                        adicionarSeCouber(livres, cursor, c.getInicio(), duracaoMinutos);
+                    }
+                    if (c.getFim().isAfter(cursor)) {
+                        cursor = c.getFim();
+                    }
+                }
+                if (cursor.isBefore(fechamento)) {
+                    adicionarSeCouber(livres, cursor, fechamento, duracaoMinutos);
+                }
+            }
+            return livres;
+        });
+    }
+
+    // Variantes assíncronas: rodam no executor do serviço (ver ExecutorServicos)
+
+    public CompletableFuture<Long> agendarAsync(Consulta consulta) {
+        return ExecutorServicos.executar(executor, () -> agendar(consulta));
+    }
+
+    public CompletableFuture<List<ResultadoLote>> agendarEmLoteAsync(List<Consulta> consultas) {
+        return ExecutorServicos.executar(executor, () -> agendarEmLote(consultas));
+    }
+
+    public CompletableFuture<List<ResultadoLote>> agendarRecorrenteAsync(long pacienteId, long medicoId,
+                                                                         LocalDateTime inicio, int duracaoMinutos,
+                                                                         Recorrencia regra, int ocorrencias) {
+        return ExecutorServicos.executar(executor,
+                () -> agendarRecorrente(pacienteId, medicoId, inicio, duracaoMinutos, regra, ocorrencias));
+    }
+
+    public CompletableFuture<Consulta> remarcarAsync(long consultaId, LocalDateTime novoInicio, LocalDateTime novoFim) {
+        return ExecutorServicos.executar(executor, () -> remarcar(consultaId, novoInicio, novoFim));
+    }
+
+    public CompletableFuture<Void> cancelarAsync(long consultaId) {
+        return ExecutorServicos.executar(executor, () -> {
+            cancelar(consultaId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<HorarioLivre>> buscarHorariosLivresAsync(long medicoId, LocalDate de, LocalDate ate,
+                                                                            int duracaoMinutos) {
+        return ExecutorServicos.executar(executor, () -> buscarHorariosLivres(medicoId, de, ate, duracaoMinutos));
+    }
+
+    private static void adicionarSeCouber(List<HorarioLivre> livres, LocalDateTime inicio, LocalDateTime fim, int duracaoMinutos) {
+        if (Duration.between(inicio, fim).toMinutes() >= duracaoMinutos) {
+            livres.add(new HorarioLivre(inicio, fim));
+        }
     }
 
     // Regra de negócio: duração mínima de 15 minutos (movida de Consulta)
@@ -61,12 +460,24 @@ public class AgendaService {
         }
     }
 
+    // Chamado com a trava do médico: o índice só adianta a recusa; a aceitação é sempre confirmada no
+    // repositório, que enxerga também as gravações de outras instâncias
     private void validarChoqueDeHorario(Consulta nova) {
+        if (indice != null && indice.conflita(nova)) {
+            throw new IllegalStateException("Médico já possui consulta no horário");
+        }
         List<Consulta> existentes = repository.listarPorMedicoNoIntervalo(
                 nova.getMedicoId(), nova.getInicio(), nova.getFim());
-        boolean conflita = existentes.stream().anyMatch(c ->
+        if (haChoque(existentes, nova)) {
+            // O índice não conhecia a consulta (gravada por outra instância): recarrega na próxima verificação
+            if (indice != null) indice.invalidar(nova.getMedicoId());
+            throw new IllegalStateException("Médico já possui consulta no horário");
+        }
+    }
+
+    static boolean haChoque(List<Consulta> existentes, Consulta nova) {
+        return existentes.stream().anyMatch(c ->
                 c.getInicio().isBefore(nova.getFim()) && nova.getInicio().isBefore(c.getFim())
         );
-        if (conflita) throw new IllegalStateException("Médico já possui consulta no horário");
     }
 }
@@ -0,0 +1,115 @@
+package com.example.clinic.service;
+
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.metricas.Medidor;
+import com.example.clinic.metricas.Metricas;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Arquivamento das consultas antigas: move para consultas_historico as que terminaram há mais de
+ * CLINICA_ARQUIVAMENTO_DIAS dias (padrão 365), para que a tabela consultas e o índice
+ * idx_consultas_medico_tempo fiquem só com o que a agenda usa.
+ *
+ * Trabalha em blocos de CLINICA_ARQUIVAMENTO_LOTE consultas (padrão 500), cada um com seu commit,
+ * e pausa CLINICA_ARQUIVAMENTO_PAUSA_MS (padrão 100) entre eles: as travas duram só um bloco e os
+ * agendamentos continuam sendo atendidos. Não guarda estado: se for interrompido, a próxima execução
+ * continua de onde parou. Com CLINICA_ARQUIVAMENTO_INTERVALO_MIN > 0 roda periodicamente em segundo plano.
+ */
+public class ArquivadorConsultas {
+
+    public interface Repositorio {
+        // Move até 'limite' consultas terminadas antes de 'antesDe'; devolve quantas moveu (0 quando acabou)
+        int arquivarBloco(LocalDateTime antesDe, int limite);
+    }
+
+    private static final Logger LOG = Logger.getLogger(ArquivadorConsultas.class.getName());
+    private static final Medidor ARQUIVAR_BLOCO = Metricas.medidor("ArquivadorConsultas.arquivarBloco");
+
+    private final Repositorio repositorio;
+    private final Duration horizonte;
+    private final int lote;
+    private final long pausaMs;
+    private ScheduledExecutorService agendador;
+
+    public ArquivadorConsultas(Repositorio repositorio) {
+        this(repositorio,
+                Duration.ofDays(Configuracao.longo("CLINICA_ARQUIVAMENTO_DIAS", 365)),
+                Configuracao.inteiro("CLINICA_ARQUIVAMENTO_LOTE", 500),
+                Configuracao.longo("CLINICA_ARQUIVAMENTO_PAUSA_MS", 100));
+    }
+
+    public ArquivadorConsultas(Repositorio repositorio, Duration horizonte, int lote, long pausaMs) {
+        if (lote <= 0) {
+            throw new IllegalArgumentException("Lote de arquivamento deve ser positivo");
+        }
+        this.repositorio = repositorio;
+        this.horizonte = horizonte;
+        this.lote = lote;
+        this.pausaMs = pausaMs;
+    }
+
+    /** Inicia a execução periódica se CLINICA_ARQUIVAMENTO_INTERVALO_MIN > 0; devolve null caso contrário. */
+    public static ArquivadorConsultas iniciarConfigurado(Repositorio repositorio) {
+        long minutos = Configuracao.longo("CLINICA_ARQUIVAMENTO_INTERVALO_MIN", 0);
+        if (minutos <= 0) return null;
+        ArquivadorConsultas arquivador = new ArquivadorConsultas(repositorio);
+        arquivador.iniciar(Duration.ofMinutes(minutos));
+        return arquivador;
+    }
+
+    /** Arquiva as consultas que terminaram antes de agora menos o horizonte; devolve o total movido. */
+    public long arquivar() {
+        return arquivarAntesDe(LocalDateTime.now().minus(horizonte));
+    }
+
+    public long arquivarAntesDe(LocalDateTime limite) {
+        long total = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            int movidas = Metricas.medir(ARQUIVAR_BLOCO, () -> repositorio.arquivarBloco(limite, lote));
+            if (movidas == 0) break;
+            total += movidas;
+            try {
+                Thread.sleep(pausaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return total;
+    }
+
+    public synchronized void iniciar(Duration intervalo) {
+        if (agendador != null) return;
+        agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "arquivamento-consultas");
+            t.setDaemon(true);
+            return t;
+        });
+        long ms = intervalo.toMillis();
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                long movidas = arquivar();
+                if (movidas > 0) {
+                    LOG.info(() -> "Consultas arquivadas: " + movidas);
+                }
+            } catch (RuntimeException e) {
+                // Falha num bloco não perde nada; a próxima rodada tenta de novo
+                LOG.log(Level.WARNING, "Erro no arquivamento de consultas", e);
+            }
+        }, ms, ms, TimeUnit.MILLISECONDS);
+    }
+
+    /** Interrompe a rodada em andamento entre dois blocos; o que já foi confirmado fica arquivado. */
+    public synchronized void parar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+            agendador = null;
+        }
+    }
+}
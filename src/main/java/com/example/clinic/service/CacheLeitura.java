@@ -0,0 +1,133 @@
+package com.example.clinic.service;
+
+import com.example.clinic.config.Configuracao;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Cache de leitura (read-through) limitado por tamanho, com despejo do menos usado (LRU) e validade.
+ *
+ * Buscas sem resultado também são guardadas, com validade menor, para não repetir a ida ao banco
+ * em cada tentativa com um id/email/CRM inexistente. As operações são sincronizadas no próprio
+ * cache; o carregamento a partir do banco acontece fora da trava.
+ *
+ * Configuração (vale para todos os caches de entidades):
+ *   CLINICA_CACHE                 liga/desliga (padrão true)
+ *   CLINICA_CACHE_TAMANHO         entradas por cache (padrão 10000)
+ *   CLINICA_CACHE_TTL_MS          validade de uma entrada encontrada (padrão 60000)
+ *   CLINICA_CACHE_NEGATIVO_TTL_MS validade de uma busca sem resultado (padrão 5000)
+ */
+public class CacheLeitura<K, V> {
+
+    public record Estatisticas(String nome, long acertos, long falhas, long despejos, int tamanho) {
+        public double taxaDeAcerto() {
+            long total = acertos + falhas;
+            return total == 0 ? 0.0 : (double) acertos / total;
+        }
+    }
+
+    private record Entrada<V>(V valor, long expiraEm) {}
+
+    private final String nome;
+    private final int capacidade;
+    private final long ttlNanos;
+    private final long ttlNegativoNanos;
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder despejos = new LongAdder();
+    // Muda a cada invalidação: um carregamento iniciado antes dela não é guardado
+    private long geracao;
+
+    /** @param capacidade 0 desliga o cache: toda leitura vai ao carregador */
+    public CacheLeitura(String nome, int capacidade, Duration ttl, Duration ttlNegativo) {
+        this.nome = nome;
+        this.capacidade = Math.max(0, capacidade);
+        this.ttlNanos = ttl.toNanos();
+        this.ttlNegativoNanos = ttlNegativo.toNanos();
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> maisAntiga) {
+                if (size() > CacheLeitura.this.capacidade) {
+                    despejos.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Cache com os parâmetros das variáveis CLINICA_CACHE_*. */
+    public static <K, V> CacheLeitura<K, V> configurado(String nome) {
+        boolean ligado = Configuracao.booleano("CLINICA_CACHE", true);
+        return new CacheLeitura<>(nome,
+                ligado ? Configuracao.inteiro("CLINICA_CACHE_TAMANHO", 10_000) : 0,
+                Duration.ofMillis(Configuracao.longo("CLINICA_CACHE_TTL_MS", 60_000)),
+                Duration.ofMillis(Configuracao.longo("CLINICA_CACHE_NEGATIVO_TTL_MS", 5_000)));
+    }
+
+    /** Devolve o valor em cache ou o carrega (null = não encontrado, também guardado por pouco tempo). */
+    public V obter(K chave, Function<K, V> carregador) {
+        if (capacidade == 0) {
+            falhas.increment();
+            return carregador.apply(chave);
+        }
+        long agora = System.nanoTime();
+        long geracaoNaLeitura;
+        synchronized (this) {
+            Entrada<V> e = entradas.get(chave);
+            if (e != null && agora - e.expiraEm < 0) {
+                acertos.increment();
+                return e.valor;
+            }
+            geracaoNaLeitura = geracao;
+        }
+        falhas.increment();
+        V valor = carregador.apply(chave);
+        long validade = valor == null ? ttlNegativoNanos : ttlNanos;
+        if (validade > 0) {
+            synchronized (this) {
+                if (geracao == geracaoNaLeitura) {
+                    entradas.put(chave, new Entrada<>(valor, System.nanoTime() + validade));
+                }
+            }
+        }
+        return valor;
+    }
+
+    public synchronized void invalidar(K chave) {
+        geracao++;
+        entradas.remove(chave);
+    }
+
+    /** Remove as entradas cujo valor satisfaz o filtro (ex.: todas as chaves que apontam para um id). */
+    public synchronized void invalidarSe(Predicate<V> filtro) {
+        geracao++;
+        Iterator<Entrada<V>> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            V valor = it.next().valor;
+            if (valor != null && filtro.test(valor)) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void limpar() {
+        geracao++;
+        entradas.clear();
+    }
+
+    public Estatisticas estatisticas() {
+        int tamanho;
+        synchronized (this) {
+            tamanho = entradas.size();
+        }
+        return new Estatisticas(nome, acertos.sum(), falhas.sum(), despejos.sum(), tamanho);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.clinic.service;
+
+import com.example.clinic.config.Configuracao;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executor das variantes assíncronas dos serviços ({@code agendarAsync}, {@code buscarPorIdAsync}, ...).
+ *
+ * Cada chamada ocupa uma conexão enquanto roda, então o executor padrão é um pool fixo que limita
+ * as chamadas simultâneas ao banco: CLINICA_ASYNC_THREADS (padrão: ORACLE_POOL_MAX, ou 10).
+ * As demais ficam na fila.
+ *
+ * As tarefas rodam em outra thread e, portanto, fora da transação de quem chamou
+ * ({@link com.example.clinic.config.Transacoes}). Não espere (join/get) por outra chamada assíncrona
+ * de dentro de uma tarefa: com o pool cheio, ela nunca seria executada.
+ */
+public final class ExecutorServicos {
+
+    private ExecutorServicos() {}
+
+    /** Executor compartilhado, criado no primeiro uso; threads daemon "servicos-N". */
+    public static Executor padrao() {
+        return Padrao.EXECUTOR;
+    }
+
+    static <T> CompletableFuture<T> executar(Executor executor, Supplier<T> chamada) {
+        return CompletableFuture.supplyAsync(chamada, executor);
+    }
+
+    private static final class Padrao {
+        static final ExecutorService EXECUTOR = criar();
+
+        private static ExecutorService criar() {
+            int limite = Configuracao.inteiro("CLINICA_ASYNC_THREADS", Configuracao.inteiro("ORACLE_POOL_MAX", 10));
+            AtomicInteger contador = new AtomicInteger();
+            return Executors.newFixedThreadPool(limite, r -> {
+                Thread t = new Thread(r, "servicos-" + contador.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
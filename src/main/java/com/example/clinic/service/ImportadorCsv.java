@@ -0,0 +1,212 @@
+package com.example.clinic.service;
+
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.config.Transacoes;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Importação de CSV em memória constante: lê linha a linha, converte (aplicando as validações do
+ * serviço) e grava em lotes JDBC, com commit a cada {@code lotesPorCommit} lotes.
+ *
+ * Linhas inválidas vão para o arquivo de rejeitadas com o motivo na última coluna. Se um commit
+ * violar uma restrição do banco (ex.: email ou CRM já cadastrado), só aquele trecho é refeito linha
+ * a linha para separar as linhas problemáticas; o restante do arquivo segue em lote. Outras falhas
+ * (conexão perdida, pool esgotado) interrompem a importação com exceção.
+ */
+class ImportadorCsv<T> {
+
+    private final String cabecalho;
+    private final Function<String[], T> conversor;
+    private final Consumer<List<T>> gravarLote;
+    private final Consumer<T> gravarUm;
+    private final int tamanhoLote;
+    private final int lotesPorCommit;
+
+    /**
+     * @param cabecalho  primeiro campo da linha de cabeçalho (ignorada se presente), ex.: "nome"
+     * @param conversor  transforma os campos em entidade; lança IllegalArgumentException se inválidos
+     */
+    ImportadorCsv(String cabecalho, Function<String[], T> conversor, Consumer<List<T>> gravarLote,
+                  Consumer<T> gravarUm, int tamanhoLote, int lotesPorCommit) {
+        if (tamanhoLote < 1 || lotesPorCommit < 1) {
+            throw new IllegalArgumentException("Tamanho do lote e lotes por commit devem ser positivos");
+        }
+        this.cabecalho = cabecalho;
+        this.conversor = conversor;
+        this.gravarLote = gravarLote;
+        this.gravarUm = gravarUm;
+        this.tamanhoLote = tamanhoLote;
+        this.lotesPorCommit = lotesPorCommit;
+    }
+
+    /**
+     * Importador de CSV {@code nome,<chave>} (cabeçalho "nome" opcional), com tamanho do lote e lotes por
+     * commit de CLINICA_IMPORTACAO_LOTE (1000) e CLINICA_IMPORTACAO_LOTES_POR_COMMIT (10).
+     *
+     * @param novo cria a entidade a partir do nome e da chave (null se a coluna faltar), validando-os
+     */
+    static <T> ImportadorCsv<T> configurado(BiFunction<String, String, T> novo, Consumer<List<T>> gravarLote,
+                                            Consumer<T> gravarUm) {
+        return new ImportadorCsv<>("nome",
+                campos -> novo.apply(campos[0], campos.length > 1 ? campos[1] : null),
+                gravarLote, gravarUm,
+                Configuracao.inteiro("CLINICA_IMPORTACAO_LOTE", 1000),
+                Configuracao.inteiro("CLINICA_IMPORTACAO_LOTES_POR_COMMIT", 10));
+    }
+
+    /** Importa {@code arquivo} (UTF-8), gravando as linhas recusadas em {@code rejeitadas}. */
+    ResultadoImportacao importar(Path arquivo, Path rejeitadas) {
+        try (BufferedReader entrada = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8);
+             BufferedWriter saida = Files.newBufferedWriter(rejeitadas, StandardCharsets.UTF_8)) {
+            return importar(entrada, saida);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao importar " + arquivo, e);
+        }
+    }
+
+    ResultadoImportacao importar(BufferedReader entrada, Writer rejeitadas) throws IOException {
+        long lidas = 0;
+        long importadas = 0;
+        long recusadas = 0;
+
+        List<T> janela = new ArrayList<>(tamanhoLote * lotesPorCommit);
+        List<String> linhasDaJanela = new ArrayList<>(tamanhoLote * lotesPorCommit);
+        boolean primeira = true;
+        String linha;
+        while ((linha = entrada.readLine()) != null) {
+            if (linha.isBlank()) continue;
+            String[] campos = dividir(linha);
+            if (primeira) {
+                primeira = false;
+                if (campos.length > 0 && campos[0].trim().equalsIgnoreCase(cabecalho)) continue;
+            }
+            lidas++;
+            try {
+                janela.add(conversor.apply(campos));
+                linhasDaJanela.add(linha);
+            } catch (IllegalArgumentException e) {
+                rejeitar(rejeitadas, linha, e.getMessage());
+                recusadas++;
+            }
+            if (janela.size() == tamanhoLote * lotesPorCommit) {
+                long gravadas = gravarJanela(janela, linhasDaJanela, rejeitadas);
+                importadas += gravadas;
+                recusadas += janela.size() - gravadas;
+                janela.clear();
+                linhasDaJanela.clear();
+            }
+        }
+        if (!janela.isEmpty()) {
+            long gravadas = gravarJanela(janela, linhasDaJanela, rejeitadas);
+            importadas += gravadas;
+            recusadas += janela.size() - gravadas;
+        }
+        rejeitadas.flush();
+        return new ResultadoImportacao(lidas, importadas, recusadas);
+    }
+
+    private long gravarJanela(List<T> janela, List<String> linhas, Writer rejeitadas) {
+        try {
+            Transacoes.executar(con -> {
+                for (int i = 0; i < janela.size(); i += tamanhoLote) {
+                    gravarLote.accept(janela.subList(i, Math.min(i + tamanhoLote, janela.size())));
+                }
+                return null;
+            });
+            return janela.size();
+        } catch (RuntimeException falhaDoLote) {
+            if (!violacaoDeRestricao(falhaDoLote)) throw falhaDoLote;
+            // Refaz o trecho linha a linha para isolar as que o banco recusa
+            long gravadas = 0;
+            for (int i = 0; i < janela.size(); i++) {
+                try {
+                    gravarUm.accept(janela.get(i));
+                    gravadas++;
+                } catch (RuntimeException e) {
+                    if (!violacaoDeRestricao(e)) throw e;
+                    rejeitar(rejeitadas, linhas.get(i), mensagem(e));
+                }
+            }
+            return gravadas;
+        }
+    }
+
+    // Restrição violada pela linha (chave única, NOT NULL, CHECK): SQLState da classe 23, também
+    // procurado nas exceções encadeadas pelo lote (BatchUpdateException.getNextException)
+    static boolean violacaoDeRestricao(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql) {
+                for (SQLException s = sql; s != null; s = s.getNextException()) {
+                    if (s instanceof SQLIntegrityConstraintViolationException
+                            || (s.getSQLState() != null && s.getSQLState().startsWith("23"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void rejeitar(Writer rejeitadas, String linha, String motivo) {
+        try {
+            rejeitadas.write(linha);
+            rejeitadas.write(",\"");
+            rejeitadas.write(motivo == null ? "inválido" : motivo.replace("\"", "\"\"").replace('\n', ' '));
+            rejeitadas.write("\"\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar arquivo de rejeitadas", e);
+        }
+    }
+
+    private static String mensagem(Throwable e) {
+        Throwable raiz = e;
+        while (raiz.getCause() != null) raiz = raiz.getCause();
+        return raiz.getMessage();
+    }
+
+    // Separa uma linha CSV por vírgula, aceitando campos entre aspas com "" como escape
+    static String[] dividir(String linha) {
+        List<String> campos = new ArrayList<>(4);
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char ch = linha.charAt(i);
+            if (entreAspas) {
+                if (ch == '"') {
+                    if (i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                        atual.append('"');
+                        i++;
+                    } else {
+                        entreAspas = false;
+                    }
+                } else {
+                    atual.append(ch);
+                }
+            } else if (ch == '"') {
+                entreAspas = true;
+            } else if (ch == ',') {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(ch);
+            }
+        }
+        campos.add(atual.toString());
+        return campos.toArray(new String[0]);
+    }
+}
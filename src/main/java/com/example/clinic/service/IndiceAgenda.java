@@ -0,0 +1,198 @@
+package com.example.clinic.service;
+
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.dao.jdbc.ConsultaJdbcRepository;
+import com.example.clinic.domain.Consulta;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice em memória das consultas atuais e futuras, por médico, para recusar choques de horário
+ * já conhecidos sem ida ao banco.
+ *
+ * Cada médico tem uma {@link LinhaDoTempo} ordenada pelo início da consulta, então a busca de
+ * sobreposição custa O(log n) mais as poucas consultas vizinhas.
+ *
+ * O banco continua sendo a fonte da verdade: o índice pode não conhecer gravações de outras
+ * instâncias, então o {@link AgendaService} só o usa como verificação prévia e confirma no banco
+ * antes de gravar. A agenda de cada médico é recarregada do repositório quando passa do tempo de
+ * validade (ttl) ou é invalidada. As gravações feitas por este processo chegam pelas notificações
+ * do {@link ConsultaJdbcRepository} após o commit.
+ *
+ * A recarga e as notificações de um médico passam pelo monitor da sua agenda, então uma remoção
+ * confirmada durante a recarga é aplicada depois dela. Remoções de consultas que o índice ainda não
+ * conhecia mudam a geração: a recarga iniciada antes disso não é guardada, como no {@link CacheLeitura}.
+ */
+public class IndiceAgenda implements ConsultaJdbcRepository.OuvinteConsultas {
+
+    // Horizonte usado ao recarregar a agenda de um médico a partir do banco
+    private static final int HORIZONTE_ANOS = 5;
+    // Intervalo entre as remoções das consultas já terminadas de uma agenda carregada
+    private static final long LIMPEZA_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final AgendaService.ConsultaRepository repository;
+    private final long ttlNanos;
+    private final Map<Long, AgendaMedico> agendas = new ConcurrentHashMap<>();
+    // Médico de cada consulta presente numa agenda carregada (aoDeletar só recebe o id)
+    private final Map<Long, Long> medicoPorConsulta = new ConcurrentHashMap<>();
+    private final AtomicLong geracao = new AtomicLong();
+
+    /**
+     * @param repository usado para (re)carregar a agenda de um médico
+     * @param ttl validade de uma agenda carregada; {@link Duration#ZERO} desliga a expiração
+     */
+    public IndiceAgenda(AgendaService.ConsultaRepository repository, Duration ttl) {
+        this.repository = repository;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Cria o índice, carrega as consultas atuais e futuras e passa a ouvir as gravações do repositório.
+     * Validade configurável por CLINICA_INDICE_AGENDA_TTL_MS (padrão 60000; 0 desliga a expiração).
+     */
+    public static IndiceAgenda criarAquecido(ConsultaJdbcRepository repository) {
+        Duration ttl = Duration.ofMillis(Configuracao.longo("CLINICA_INDICE_AGENDA_TTL_MS", 60_000));
+        IndiceAgenda indice = new IndiceAgenda(repository, ttl);
+        repository.adicionarOuvinte(indice);
+        indice.aquecer(repository.listarAPartirDe(LocalDateTime.now()));
+        return indice;
+    }
+
+    /** Carga inicial a partir de uma varredura das consultas atuais e futuras. */
+    public void aquecer(Iterable<Consulta> consultas) {
+        Map<Long, List<Consulta>> porMedico = new HashMap<>();
+        for (Consulta c : consultas) {
+            porMedico.computeIfAbsent(c.getMedicoId(), id -> new ArrayList<>()).add(c);
+        }
+        porMedico.forEach((medicoId, doMedico) -> {
+            AgendaMedico agenda = agendas.computeIfAbsent(medicoId, AgendaMedico::new);
+            synchronized (agenda) {
+                trocar(agenda, doMedico, true);
+            }
+        });
+    }
+
+    public boolean conflita(Consulta nova) {
+        return conflita(nova.getMedicoId(), nova.getInicio(), nova.getFim(), nova.getId());
+    }
+
+    /** Verifica sobreposição com outra consulta do médico, ignorando a consulta {@code ignorarId} (pode ser null). */
+    public boolean conflita(long medicoId, LocalDateTime inicio, LocalDateTime fim, Long ignorarId) {
+        AgendaMedico agenda = agendas.computeIfAbsent(medicoId, AgendaMedico::new);
+        synchronized (agenda) {
+            if (agenda.linha == null || agenda.expirada(ttlNanos)) {
+                recarregar(agenda);
+            } else if (System.nanoTime() - agenda.limpaEm > LIMPEZA_NANOS) {
+                limpar(agenda);
+            }
+            return agenda.linha.conflita(inicio, fim, ignorarId);
+        }
+    }
+
+    /** Descarta a agenda do médico; a próxima verificação recarrega do banco. */
+    public void invalidar(long medicoId) {
+        AgendaMedico agenda = agendas.get(medicoId);
+        if (agenda == null) return;
+        synchronized (agenda) {
+            descartar(agenda);
+        }
+    }
+
+    public void invalidarTudo() {
+        agendas.keySet().forEach(this::invalidar);
+    }
+
+    @Override
+    public void aoSalvar(Consulta consulta) {
+        // Sem agenda carregada não há o que atualizar: a próxima carga começa depois do commit e já a inclui
+        AgendaMedico agenda = agendas.get(consulta.getMedicoId());
+        if (agenda == null) return;
+        synchronized (agenda) {
+            if (agenda.linha == null) return;
+            agenda.linha.adicionar(consulta);
+            medicoPorConsulta.put(consulta.getId(), consulta.getMedicoId());
+        }
+    }
+
+    @Override
+    public void aoAtualizar(Consulta consulta) {
+        aoDeletar(consulta.getId());
+        aoSalvar(consulta);
+    }
+
+    @Override
+    public void aoDeletar(long consultaId) {
+        // Muda a geração antes de procurar o médico: uma recarga que já leu a consulta mas ainda não a
+        // registrou em medicoPorConsulta percebe a mudança e não é guardada
+        geracao.incrementAndGet();
+        Long medicoId = medicoPorConsulta.get(consultaId);
+        if (medicoId == null) return;
+        AgendaMedico agenda = agendas.get(medicoId);
+        synchronized (agenda) {
+            if (agenda.linha != null) agenda.linha.remover(consultaId);
+            medicoPorConsulta.remove(consultaId, medicoId);
+        }
+    }
+
+    // Chamados com o monitor da agenda
+
+    private void recarregar(AgendaMedico agenda) {
+        long geracaoNaCarga = geracao.get();
+        LocalDateTime agora = LocalDateTime.now();
+        List<Consulta> consultas = repository.listarPorMedicoNoIntervalo(
+                agenda.medicoId, agora, agora.plusYears(HORIZONTE_ANOS));
+        trocar(agenda, consultas, geracao.get() == geracaoNaCarga);
+    }
+
+    // Usa a nova agenda na verificação atual; se não for válida, a próxima verificação recarrega de novo
+    private void trocar(AgendaMedico agenda, List<Consulta> consultas, boolean valida) {
+        descartar(agenda);
+        LinhaDoTempo linha = new LinhaDoTempo();
+        for (Consulta c : consultas) {
+            linha.adicionar(c);
+            medicoPorConsulta.put(c.getId(), agenda.medicoId);
+        }
+        agenda.linha = linha;
+        agenda.carregadaEm = agenda.limpaEm = System.nanoTime();
+        agenda.valida = valida;
+    }
+
+    private void descartar(AgendaMedico agenda) {
+        if (agenda.linha == null) return;
+        agenda.linha.ids().forEach(id -> medicoPorConsulta.remove(id, agenda.medicoId));
+        agenda.linha = null;
+    }
+
+    // Consultas terminadas não causam choque com novos agendamentos: saem da agenda e do mapa de ids
+    private void limpar(AgendaMedico agenda) {
+        for (long id : agenda.linha.removerTerminadasAte(LocalDateTime.now())) {
+            medicoPorConsulta.remove(id, agenda.medicoId);
+        }
+        agenda.limpaEm = System.nanoTime();
+    }
+
+    // Guardada enquanto o índice existir; só a linha do tempo é trocada ou descartada
+    private static final class AgendaMedico {
+        private final long medicoId;
+        private LinhaDoTempo linha;
+        private long carregadaEm;
+        private long limpaEm;
+        private boolean valida;
+
+        AgendaMedico(long medicoId) {
+            this.medicoId = medicoId;
+        }
+
+        boolean expirada(long ttlNanos) {
+            return !valida || (ttlNanos > 0 && System.nanoTime() - carregadaEm > ttlNanos);
+        }
+    }
+}
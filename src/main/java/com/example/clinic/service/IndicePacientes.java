@@ -0,0 +1,438 @@
+package com.example.clinic.service;
+
+import com.example.clinic.domain.Paciente;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Índice em memória para a busca de pacientes por nome/email enquanto se digita.
+ *
+ * Nome e email são normalizados (minúsculas, sem acentos, só letras e dígitos) e quebrados em
+ * palavras. O vocabulário fica num mapa ordenado, então os pacientes cujas palavras começam com o
+ * termo digitado saem de uma faixa contígua do mapa, sem varrer a base. Quando o prefixo não basta
+ * (erro de digitação), as palavras parecidas são achadas por trigramas (3 letras consecutivas).
+ *
+ * Carregado uma vez a partir de uma varredura em streaming e mantido pelas gravações do
+ * {@link PacienteService}. Depois de gravações em massa, {@link #invalidar()} reconstrói o índice em
+ * segundo plano e troca o conteúdo de uma vez: as buscas seguem respondidas pelo anterior enquanto isso.
+ * Leituras concorrentes; gravações e a troca são exclusivas.
+ */
+public class IndicePacientes {
+
+    private static final Logger LOG = Logger.getLogger(IndicePacientes.class.getName());
+
+    private static final int GRAMA = 3;
+    // Coeficiente de Dice mínimo entre os trigramas do termo e os da palavra
+    private static final double SEMELHANCA_MINIMA = 0.5;
+
+    // Uma reconstrução por vez, para todos os índices; a thread só é criada na primeira
+    private static final ExecutorService RECONSTRUCAO = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "indice-pacientes");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private volatile Conteudo conteudo; // null enquanto não carregado
+    private volatile Supplier<Stream<Paciente>> fonte;
+    // Gravações feitas durante uma reconstrução, reaplicadas no conteúdo novo antes da troca
+    private List<Consumer<Conteudo>> pendentes;
+    private CompletableFuture<Void> agendada;
+
+    public boolean carregado() {
+        return conteudo != null;
+    }
+
+    /**
+     * Carrega o índice se ainda não estiver carregado. A trava de escrita fica com a carga até o fim:
+     * gravações concorrentes esperam e são aplicadas depois, por cima do que a varredura leu.
+     */
+    public void carregarSeNecessario(Supplier<Stream<Paciente>> fonte) {
+        if (conteudo != null) return;
+        trava.writeLock().lock();
+        try {
+            if (conteudo != null) return;
+            this.fonte = fonte;
+            conteudo = construir(fonte);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reconstrói o índice em segundo plano a partir da mesma fonte da carga; usado após gravações em
+     * massa. Pedidos feitos antes de a reconstrução começar são atendidos juntos. Devolve quando o
+     * conteúdo novo entrou no lugar (já concluído se o índice nunca foi carregado).
+     */
+    public synchronized CompletableFuture<Void> invalidar() {
+        if (fonte == null) return CompletableFuture.completedFuture(null);
+        if (agendada == null) {
+            agendada = new CompletableFuture<>();
+            RECONSTRUCAO.execute(this::reconstruir);
+        }
+        return agendada;
+    }
+
+    /** Inclui ou substitui o paciente (pelo id). Ignorado enquanto o índice não está carregado. */
+    public void salvar(Paciente paciente) {
+        gravar(c -> c.salvar(paciente));
+    }
+
+    public void remover(long id) {
+        gravar(c -> c.excluir(id));
+    }
+
+    /**
+     * Até {@code limite} pacientes em que cada termo do texto é início de alguma palavra do nome ou do
+     * email. Primeiro quem tem a palavra exata, depois as demais em ordem alfabética; se faltar
+     * resultado, completa com palavras parecidas com o termo mais longo.
+     */
+    public List<Paciente> buscar(String texto, int limite) {
+        String[] termos = palavras(texto);
+        if (termos.length == 0 || limite <= 0) return List.of();
+        // O termo mais longo costuma ser o mais seletivo: é ele que percorre o vocabulário
+        String guia = termos[0];
+        for (String t : termos) {
+            if (t.length() > guia.length()) guia = t;
+        }
+
+        trava.readLock().lock();
+        try {
+            Conteudo c = conteudo;
+            if (c == null) return List.of();
+            Map<Long, Paciente> achados = new LinkedHashMap<>();
+            for (Palavra p : c.vocabulario.subMap(guia, true, guia + Character.MAX_VALUE, false).values()) {
+                if (c.coletar(p, termos, guia, achados, limite)) return new ArrayList<>(achados.values());
+            }
+            if (guia.length() >= GRAMA) {
+                for (Palavra p : c.semelhantes(guia)) {
+                    if (c.coletar(p, termos, guia, achados, limite)) break;
+                }
+            }
+            return new ArrayList<>(achados.values());
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        trava.readLock().lock();
+        try {
+            Conteudo c = conteudo;
+            return c == null ? 0 : c.porId.size();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    private void gravar(Consumer<Conteudo> gravacao) {
+        trava.writeLock().lock();
+        try {
+            if (conteudo == null) return;
+            gravacao.accept(conteudo);
+            if (pendentes != null) pendentes.add(gravacao);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // A varredura roda sem trava; só o registro das gravações pendentes e a troca são exclusivos
+    private void reconstruir() {
+        CompletableFuture<Void> pronta;
+        synchronized (this) {
+            pronta = agendada;
+            agendada = null;
+        }
+        trava.writeLock().lock();
+        try {
+            pendentes = new ArrayList<>();
+        } finally {
+            trava.writeLock().unlock();
+        }
+        Conteudo novo;
+        try {
+            novo = construir(fonte);
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Erro ao reconstruir o índice de pacientes; mantido o anterior", e);
+            trocar(null);
+            pronta.completeExceptionally(e);
+            return;
+        }
+        trocar(novo);
+        pronta.complete(null);
+    }
+
+    private void trocar(Conteudo novo) {
+        trava.writeLock().lock();
+        try {
+            if (novo != null) {
+                for (Consumer<Conteudo> g : pendentes) g.accept(novo);
+                conteudo = novo;
+            }
+            pendentes = null;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private static Conteudo construir(Supplier<Stream<Paciente>> fonte) {
+        Conteudo c = new Conteudo();
+        try (Stream<Paciente> pacientes = fonte.get()) {
+            pacientes.forEach(c::salvar);
+        }
+        return c;
+    }
+
+    // Um paciente, suas palavras e a posição dele na lista de ids de cada uma (remoção sem busca)
+    private static final class Entrada {
+        final Paciente paciente;
+        final Palavra[] palavras;
+        final int[] posicoes;
+
+        Entrada(Paciente paciente, int palavras) {
+            this.paciente = paciente;
+            this.palavras = new Palavra[palavras];
+            this.posicoes = new int[palavras];
+        }
+
+        void mover(Palavra p, int posicao) {
+            for (int i = 0; i < palavras.length; i++) {
+                if (palavras[i] == p) {
+                    posicoes[i] = posicao;
+                    return;
+                }
+            }
+        }
+    }
+
+    // Uma palavra do vocabulário, os ids dos pacientes que a contêm e seus trigramas, com a posição da
+    // palavra na lista de cada trigrama
+    private static final class Palavra {
+        final String texto;
+        final String[] gramas;
+        final int[] posicoesGramas;
+        long[] ids = new long[2];
+        int tamanho;
+
+        Palavra(String texto) {
+            this.texto = texto;
+            this.gramas = trigramas(texto);
+            this.posicoesGramas = new int[gramas.length];
+        }
+
+        int adicionar(long id) {
+            if (tamanho == ids.length) ids = Arrays.copyOf(ids, tamanho * 2);
+            ids[tamanho] = id;
+            return tamanho++;
+        }
+
+        int indiceGrama(String grama) {
+            for (int i = 0; i < gramas.length; i++) {
+                if (gramas[i].equals(grama)) return i;
+            }
+            return -1;
+        }
+    }
+
+    // Estruturas do índice; trocadas inteiras na reconstrução
+    private static final class Conteudo {
+        final Map<Long, Entrada> porId = new HashMap<>();
+        final NavigableMap<String, Palavra> vocabulario = new TreeMap<>();
+        final Map<String, List<Palavra>> porTrigrama = new HashMap<>();
+
+        // Palavras mantidas numa atualização não mudam de posição
+        void salvar(Paciente paciente) {
+            long id = paciente.getId();
+            String[] textos = palavras(paciente.getNome() + " " + paciente.getEmail());
+            Entrada antiga = porId.get(id);
+            Entrada nova = new Entrada(paciente, textos.length);
+            if (antiga != null) {
+                for (int i = 0; i < textos.length; i++) {
+                    for (int j = 0; j < antiga.palavras.length; j++) {
+                        Palavra p = antiga.palavras[j];
+                        if (p != null && p.texto.equals(textos[i])) {
+                            nova.palavras[i] = p;
+                            nova.posicoes[i] = antiga.posicoes[j];
+                            antiga.palavras[j] = null;
+                            break;
+                        }
+                    }
+                }
+            }
+            porId.put(id, nova);
+            if (antiga != null) {
+                for (int j = 0; j < antiga.palavras.length; j++) {
+                    if (antiga.palavras[j] != null) retirar(antiga.palavras[j], antiga.posicoes[j]);
+                }
+            }
+            for (int i = 0; i < textos.length; i++) {
+                if (nova.palavras[i] != null) continue;
+                Palavra p = vocabulario.get(textos[i]);
+                if (p == null) p = novaPalavra(textos[i]);
+                nova.palavras[i] = p;
+                nova.posicoes[i] = p.adicionar(id);
+            }
+        }
+
+        void excluir(long id) {
+            Entrada e = porId.remove(id);
+            if (e == null) return;
+            for (int i = 0; i < e.palavras.length; i++) {
+                retirar(e.palavras[i], e.posicoes[i]);
+            }
+        }
+
+        // O último id da palavra ocupa o lugar do que saiu
+        private void retirar(Palavra p, int posicao) {
+            long ultimo = p.ids[--p.tamanho];
+            if (posicao != p.tamanho) {
+                p.ids[posicao] = ultimo;
+                porId.get(ultimo).mover(p, posicao);
+            }
+            if (p.tamanho == 0) removerPalavra(p);
+        }
+
+        private Palavra novaPalavra(String texto) {
+            Palavra p = new Palavra(texto);
+            vocabulario.put(texto, p);
+            for (int i = 0; i < p.gramas.length; i++) {
+                List<Palavra> lista = porTrigrama.computeIfAbsent(p.gramas[i], k -> new ArrayList<>(4));
+                p.posicoesGramas[i] = lista.size();
+                lista.add(p);
+            }
+            return p;
+        }
+
+        private void removerPalavra(Palavra p) {
+            vocabulario.remove(p.texto);
+            for (int i = 0; i < p.gramas.length; i++) {
+                String g = p.gramas[i];
+                List<Palavra> lista = porTrigrama.get(g);
+                Palavra ultima = lista.remove(lista.size() - 1);
+                if (ultima != p) {
+                    lista.set(p.posicoesGramas[i], ultima);
+                    ultima.posicoesGramas[ultima.indiceGrama(g)] = p.posicoesGramas[i];
+                }
+                if (lista.isEmpty()) porTrigrama.remove(g);
+            }
+        }
+
+        // Devolve true quando já atingiu o limite
+        boolean coletar(Palavra p, String[] termos, String guia, Map<Long, Paciente> achados, int limite) {
+            for (int i = 0; i < p.tamanho; i++) {
+                long id = p.ids[i];
+                if (achados.containsKey(id)) continue;
+                Entrada e = porId.get(id);
+                if (contemTodos(e.palavras, termos, guia)) {
+                    achados.put(id, e.paciente);
+                    if (achados.size() >= limite) return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Palavras com semelhança mínima com o termo, da mais parecida para a menos parecida. Com k
+         * trigramas no termo, a semelhança mínima exige ao menos m trigramas em comum; quem não está em
+         * nenhuma das k - m + 1 listas mais curtas tem no máximo m - 1, então só elas geram candidatos e
+         * as listas dos trigramas comuns ("^ma", "ria") não são percorridas.
+         */
+        List<Palavra> semelhantes(String termo) {
+            String[] gramas = trigramas(termo);
+            if (gramas.length == 0) return List.of();
+            Set<String> doTermo = new HashSet<>(Arrays.asList(gramas));
+            // Dice = 2c / (k + n) com n >= 1 trigramas na palavra
+            int minimo = (int) Math.ceil(SEMELHANCA_MINIMA * (gramas.length + 1) / 2);
+            List<List<Palavra>> listas = new ArrayList<>(gramas.length);
+            for (String g : gramas) {
+                listas.add(porTrigrama.getOrDefault(g, List.of()));
+            }
+            listas.sort(Comparator.comparingInt(List::size));
+
+            Map<Palavra, Double> notas = new HashMap<>();
+            Set<Palavra> vistas = new HashSet<>();
+            for (List<Palavra> lista : listas.subList(0, gramas.length - minimo + 1)) {
+                for (Palavra p : lista) {
+                    if (!vistas.add(p) || p.texto.startsWith(termo)) continue; // prefixo já veio antes
+                    int comuns = 0;
+                    for (String g : p.gramas) {
+                        if (doTermo.contains(g)) comuns++;
+                    }
+                    double nota = 2.0 * comuns / (gramas.length + p.gramas.length);
+                    if (nota >= SEMELHANCA_MINIMA) notas.put(p, nota);
+                }
+            }
+            List<Palavra> resultado = new ArrayList<>(notas.keySet());
+            resultado.sort(Comparator.comparing((Palavra p) -> -notas.get(p)).thenComparing(p -> p.texto));
+            return resultado;
+        }
+    }
+
+    private static boolean contemTodos(Palavra[] palavras, String[] termos, String guia) {
+        for (String termo : termos) {
+            if (termo == guia) continue;
+            boolean achou = false;
+            for (Palavra palavra : palavras) {
+                if (palavra.texto.startsWith(termo)) {
+                    achou = true;
+                    break;
+                }
+            }
+            if (!achou) return false;
+        }
+        return true;
+    }
+
+    // Trigramas da palavra com marcas de início e fim ("^jo", "jos", "ose", "se$"), que dão peso às pontas.
+    // Só palavras formadas por letras: as com dígitos (comuns no email) ficam fora da busca aproximada
+    private static String[] trigramas(String palavra) {
+        if (!palavra.chars().allMatch(Character::isLetter)) return new String[0];
+        Set<String> gramas = new LinkedHashSet<>();
+        String marcada = "^" + palavra + "$";
+        for (int i = 0; i + GRAMA <= marcada.length(); i++) {
+            gramas.add(marcada.substring(i, i + GRAMA));
+        }
+        return gramas.toArray(new String[0]);
+    }
+
+    /** Palavras distintas do texto em minúsculas, sem acentos; qualquer outro caractere separa palavras. */
+    static String[] palavras(String texto) {
+        if (texto == null) return new String[0];
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        Set<String> palavras = new LinkedHashSet<>();
+        StringBuilder atual = new StringBuilder();
+        for (int i = 0; i < decomposto.length(); i++) {
+            char c = decomposto.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c)) {
+                atual.append(Character.toLowerCase(c));
+            } else if (atual.length() > 0) {
+                palavras.add(atual.toString());
+                atual.setLength(0);
+            }
+        }
+        if (atual.length() > 0) palavras.add(atual.toString());
+        return palavras.toArray(new String[0]);
+    }
+}
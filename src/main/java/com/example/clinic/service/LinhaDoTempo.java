@@ -0,0 +1,96 @@
+package com.example.clinic.service;
+
+import com.example.clinic.domain.Consulta;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Consultas de um médico ordenadas pelo início, com busca de sobreposição em O(log n).
+ *
+ * A busca parte do último início anterior ao fim pedido e volta no máximo a maior duração já
+ * registrada, o que continua correto mesmo se o banco tiver consultas sobrepostas antigas.
+ * Não é thread-safe. Usada pelo {@link IndiceAgenda} e pelo armazenamento local de consultas.
+ */
+public class LinhaDoTempo {
+
+    private final TreeMap<LocalDateTime, List<Consulta>> porInicio = new TreeMap<>();
+    private final Map<Long, Consulta> porId = new HashMap<>();
+    // Só cresce: mantém a busca para trás correta mesmo depois de remoções. Exata (não em minutos
+    // inteiros): uma consulta de 30min30s truncada para 30min sairia da busca
+    private Duration maiorDuracao = Duration.ZERO;
+
+    public void adicionar(Consulta c) {
+        if (c.getId() != null && porId.containsKey(c.getId())) {
+            remover(c.getId());
+        }
+        porInicio.computeIfAbsent(c.getInicio(), k -> new ArrayList<>(1)).add(c);
+        if (c.getId() != null) {
+            porId.put(c.getId(), c);
+        }
+        Duration duracao = Duration.between(c.getInicio(), c.getFim());
+        if (duracao.compareTo(maiorDuracao) > 0) {
+            maiorDuracao = duracao;
+        }
+    }
+
+    public void remover(long id) {
+        Consulta c = porId.remove(id);
+        if (c == null) return;
+        List<Consulta> mesmoInicio = porInicio.get(c.getInicio());
+        mesmoInicio.removeIf(x -> x.getId() != null && x.getId() == id);
+        if (mesmoInicio.isEmpty()) {
+            porInicio.remove(c.getInicio());
+        }
+    }
+
+    /** Ids das consultas presentes. */
+    public Set<Long> ids() {
+        return Collections.unmodifiableSet(porId.keySet());
+    }
+
+    /** Remove as consultas terminadas até {@code limite}; devolve os ids removidos. */
+    public List<Long> removerTerminadasAte(LocalDateTime limite) {
+        List<Long> removidas = new ArrayList<>();
+        for (List<Consulta> mesmoInicio : porInicio.headMap(limite, false).values()) {
+            for (Consulta c : mesmoInicio) {
+                if (c.getId() != null && !c.getFim().isAfter(limite)) removidas.add(c.getId());
+            }
+        }
+        removidas.forEach(this::remover);
+        return removidas;
+    }
+
+    public boolean conflita(LocalDateTime inicio, LocalDateTime fim, Long ignorarId) {
+        LocalDateTime limite = inicio.minus(maiorDuracao);
+        for (Map.Entry<LocalDateTime, List<Consulta>> e : porInicio.headMap(fim, false).descendingMap().entrySet()) {
+            if (!e.getKey().isAfter(limite)) break;
+            for (Consulta c : e.getValue()) {
+                if (ignorarId != null && ignorarId.equals(c.getId())) continue;
+                if (c.getFim().isAfter(inicio)) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Consultas que se sobrepõem a [inicio, fim), ordenadas pelo início. */
+    public List<Consulta> listar(LocalDateTime inicio, LocalDateTime fim) {
+        List<Consulta> encontradas = new ArrayList<>();
+        LocalDateTime limite = inicio.minus(maiorDuracao);
+        for (Map.Entry<LocalDateTime, List<Consulta>> e : porInicio.headMap(fim, false).descendingMap().entrySet()) {
+            if (!e.getKey().isAfter(limite)) break;
+            for (Consulta c : e.getValue()) {
+                if (c.getFim().isAfter(inicio)) encontradas.add(c);
+            }
+        }
+        Collections.reverse(encontradas);
+        return encontradas;
+    }
+}
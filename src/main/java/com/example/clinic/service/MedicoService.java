@@ -2,41 +2,183 @@ package com.example.clinic.service;
 
 import com.example.clinic.domain.Medico;
 import com.example.clinic.dao.jdbc.MedicoDao;
+import com.example.clinic.metricas.Medidor;
+import com.example.clinic.metricas.Metricas;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 public class MedicoService {
 
     private final MedicoDao medicoDao;
+    private final Executor executor;
+
+    // Latência e erros por operação (Metricas: MedicoService.<metodo>)
+    private static final Medidor CADASTRAR = Metricas.medidor("MedicoService.cadastrar");
+    private static final Medidor IMPORTAR_CSV = Metricas.medidor("MedicoService.importarCsv");
+    private static final Medidor CADASTRAR_OU_ATUALIZAR_EM_LOTE = Metricas.medidor("MedicoService.cadastrarOuAtualizarEmLote");
+    private static final Medidor LISTAR_TODOS = Metricas.medidor("MedicoService.listarTodos");
+    private static final Medidor LISTAR_PAGINA = Metricas.medidor("MedicoService.listarPagina");
+    private static final Medidor BUSCAR_POR_ID = Metricas.medidor("MedicoService.buscarPorId");
+    private static final Medidor BUSCAR_POR_CRM = Metricas.medidor("MedicoService.buscarPorCrm");
+    private static final Medidor ATUALIZAR = Metricas.medidor("MedicoService.atualizar");
+    private static final Medidor DELETAR = Metricas.medidor("MedicoService.deletar");
+
+    // Leituras por id e por crm passam pelo cache; atualizar/deletar invalidam as entradas
+    private final CacheLeitura<Long, Medico> cachePorId = CacheLeitura.configurado("medicos-por-id");
+    private final CacheLeitura<String, Medico> cachePorCrm = CacheLeitura.configurado("medicos-por-crm");
 
     public MedicoService(MedicoDao medicoDao) {
+        this(medicoDao, ExecutorServicos.padrao());
+    }
+
+    public MedicoService(MedicoDao medicoDao, Executor executor) {
         this.medicoDao = medicoDao;
+        this.executor = executor;
     }
 
     public Long cadastrar(String nome, String crm) {
-        // Validações de negócio
-        validarNome(nome);
-        validarCrm(crm);
+        return Metricas.medir(CADASTRAR, () -> {
+            Medico novo = novoMedico(nome, crm);
+            Long id = medicoDao.salvar(novo);
+            // Remove buscas negativas guardadas antes do cadastro
+            cachePorCrm.invalidar(novo.getCrm());
+            if (id != null) cachePorId.invalidar(id);
+            return id;
+        });
+    }
+
+    /**
+     * Importa um CSV ({@code nome,crm}, cabeçalho opcional) aplicando as mesmas validações do cadastro.
+     * Lê em memória constante e grava em lotes; linhas recusadas vão para {@code rejeitadas} com o motivo.
+     * Tamanho do lote e lotes por commit: CLINICA_IMPORTACAO_LOTE (1000) e CLINICA_IMPORTACAO_LOTES_POR_COMMIT (10).
+     */
+    public ResultadoImportacao importarCsv(Path arquivo, Path rejeitadas) {
+        return Metricas.medir(IMPORTAR_CSV, () -> {
+            try {
+                return ImportadorCsv.configurado(this::novoMedico, medicoDao::salvarEmLote, medicoDao::salvar)
+                        .importar(arquivo, rejeitadas);
+            } finally {
+                // Remove buscas negativas guardadas antes da importação
+                cachePorCrm.limpar();
+                cachePorId.limpar();
+            }
+        });
+    }
 
-        Medico medico = new Medico(null, nome.trim(), crm.trim().toUpperCase());
-        return medicoDao.salvar(medico);
+    /**
+     * Sincronização em massa: insere os registros novos e atualiza o nome dos existentes, usando o
+     * CRM como chave (MERGE em lote). Itens inválidos são recusados com o motivo, sem exceção.
+     * Transações de CLINICA_SINCRONIZACAO_LOTE itens (padrão 5000).
+     */
+    public ResultadoSincronizacao cadastrarOuAtualizarEmLote(List<Medico> lista) {
+        return Metricas.medir(CADASTRAR_OU_ATUALIZAR_EM_LOTE, () -> {
+            List<Medico> validos = new ArrayList<>(lista.size());
+            ResultadoSincronizacao resultado = Sincronizador.sincronizar(lista,
+                    m -> novoMedico(m.getNome(), m.getCrm()), medicoDao::mesclarEmLote, validos);
+            Set<String> chaves = new HashSet<>();
+            for (Medico m : validos) {
+                chaves.add(m.getCrm());
+                cachePorCrm.invalidar(m.getCrm());
+            }
+            cachePorId.invalidarSe(x -> chaves.contains(x.getCrm()));
+            return resultado;
+        });
     }
 
     public List<Medico> listarTodos() {
-        return medicoDao.listarTodos();
+        return Metricas.medir(LISTAR_TODOS, () -> medicoDao.listarTodos());
+    }
+
+    /**
+     * Página de até {@code limite} registros com id maior que {@code aposId} (0 para a primeira).
+     * Para a próxima página, passe o id do último registro recebido.
+     */
+    public List<Medico> listarPagina(long aposId, int limite) {
+        return Metricas.medir(LISTAR_PAGINA, () -> {
+            if (limite < 1 || limite > 1000) {
+                throw new IllegalArgumentException("Limite da página deve estar entre 1 e 1000");
+            }
+            return medicoDao.listarPagina(aposId, limite);
+        });
+    }
+
+    // Percorre todos os registros sem carregá-los na memória; use em try-with-resources
+    public Stream<Medico> percorrerTodos() {
+        return medicoDao.percorrerTodos();
     }
 
     public Medico buscarPorId(long id) {
-        return medicoDao.buscarPorId(id);
+        return Metricas.medir(BUSCAR_POR_ID, () -> cachePorId.obter(id, medicoDao::buscarPorId));
+    }
+
+    public Medico buscarPorCrm(String crm) {
+        return Metricas.medir(BUSCAR_POR_CRM, () -> {
+            if (crm == null || crm.isBlank()) return null;
+            return cachePorCrm.obter(crm.trim().toUpperCase(), medicoDao::buscarPorCrm);
+        });
+    }
+
+    public List<CacheLeitura.Estatisticas> estatisticasCache() {
+        return List.of(cachePorId.estatisticas(), cachePorCrm.estatisticas());
     }
 
     public void atualizar(Medico medico) {
-        validarNome(medico.getNome());
-        validarCrm(medico.getCrm());
-        medicoDao.atualizar(medico);
+        Metricas.medir(ATUALIZAR, () -> {
+            validarNome(medico.getNome());
+            validarCrm(medico.getCrm());
+            medicoDao.atualizar(medico);
+            invalidarCache(medico.getId());
+            cachePorCrm.invalidar(medico.getCrm().trim().toUpperCase());
+        });
     }
 
     public void deletar(long id) {
-        medicoDao.deletar(id);
+        Metricas.medir(DELETAR, () -> {
+            medicoDao.deletar(id);
+            invalidarCache(id);
+        });
+    }
+
+    // Variantes assíncronas: rodam no executor do serviço (ver ExecutorServicos)
+
+    public CompletableFuture<Long> cadastrarAsync(String nome, String crm) {
+        return ExecutorServicos.executar(executor, () -> cadastrar(nome, crm));
+    }
+
+    public CompletableFuture<Medico> buscarPorIdAsync(long id) {
+        return ExecutorServicos.executar(executor, () -> buscarPorId(id));
+    }
+
+    public CompletableFuture<Medico> buscarPorCrmAsync(String crm) {
+        return ExecutorServicos.executar(executor, () -> buscarPorCrm(crm));
+    }
+
+    public CompletableFuture<List<Medico>> listarTodosAsync() {
+        return ExecutorServicos.executar(executor, this::listarTodos);
+    }
+
+    public CompletableFuture<List<Medico>> listarPaginaAsync(long aposId, int limite) {
+        return ExecutorServicos.executar(executor, () -> listarPagina(aposId, limite));
+    }
+
+    private void invalidarCache(long id) {
+        cachePorId.invalidar(id);
+        // O crm antigo não é conhecido aqui: remove qualquer entrada que aponte para o id
+        cachePorCrm.invalidarSe(x -> x.getId() != null && x.getId() == id);
+    }
+
+    // Validações de negócio + normalização usadas no cadastro e na importação
+    private Medico novoMedico(String nome, String crm) {
+        validarNome(nome);
+        validarCrm(crm);
+        return new Medico(null, nome.trim(), crm.trim().toUpperCase());
     }
 
     private void validarNome(String nome) {
@@ -51,7 +193,7 @@ public class MedicoService {
         }
     }
 
-    private void validarCrm(String crm) {
+    void validarCrm(String crm) {
         if (crm == null || crm.trim().isEmpty()) {
             throw new IllegalArgumentException("CRM é obrigatório");
         }
@@ -2,12 +2,42 @@ package com.example.clinic.service;
 
 import com.example.clinic.domain.Paciente;
 import com.example.clinic.dao.jdbc.PacienteDao;
+import com.example.clinic.metricas.Medidor;
+import com.example.clinic.metricas.Metricas;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 import java.util.regex.Pattern;
 
 public class PacienteService {
 
     private final PacienteDao pacienteDao;
+    private final Executor executor;
+
+    // Latência e erros por operação (Metricas: PacienteService.<metodo>)
+    private static final Medidor CADASTRAR = Metricas.medidor("PacienteService.cadastrar");
+    private static final Medidor IMPORTAR_CSV = Metricas.medidor("PacienteService.importarCsv");
+    private static final Medidor CADASTRAR_OU_ATUALIZAR_EM_LOTE = Metricas.medidor("PacienteService.cadastrarOuAtualizarEmLote");
+    private static final Medidor LISTAR_TODOS = Metricas.medidor("PacienteService.listarTodos");
+    private static final Medidor LISTAR_PAGINA = Metricas.medidor("PacienteService.listarPagina");
+    private static final Medidor BUSCAR_POR_ID = Metricas.medidor("PacienteService.buscarPorId");
+    private static final Medidor BUSCAR_POR_EMAIL = Metricas.medidor("PacienteService.buscarPorEmail");
+    private static final Medidor BUSCAR_POR_NOME = Metricas.medidor("PacienteService.buscarPorNome");
+    private static final Medidor ATUALIZAR = Metricas.medidor("PacienteService.atualizar");
+    private static final Medidor DELETAR = Metricas.medidor("PacienteService.deletar");
+
+    // Leituras por id e por email passam pelo cache; atualizar/deletar invalidam as entradas
+    private final CacheLeitura<Long, Paciente> cachePorId = CacheLeitura.configurado("pacientes-por-id");
+    private final CacheLeitura<String, Paciente> cachePorEmail = CacheLeitura.configurado("pacientes-por-email");
+
+    // Busca por nome/email; carregado na primeira busca (ou em aquecerBuscaPorNome) e mantido pelas gravações
+    private final IndicePacientes indiceNomes = new IndicePacientes();
 
     // Pattern para validação de email
     private static final Pattern EMAIL_PATTERN = Pattern.compile(
@@ -15,34 +45,183 @@ public class PacienteService {
     );
 
     public PacienteService(PacienteDao pacienteDao) {
+        this(pacienteDao, ExecutorServicos.padrao());
+    }
+
+    public PacienteService(PacienteDao pacienteDao, Executor executor) {
         this.pacienteDao = pacienteDao;
+        this.executor = executor;
     }
 
     public Long cadastrar(String nome, String email) {
-        // Validações de negócio
-        validarNome(nome);
-        validarEmail(email);
+        return Metricas.medir(CADASTRAR, () -> {
+            Paciente novo = novoPaciente(nome, email);
+            Long id = pacienteDao.salvar(novo);
+            // Remove buscas negativas guardadas antes do cadastro
+            cachePorEmail.invalidar(novo.getEmail());
+            if (id != null) {
+                cachePorId.invalidar(id);
+                indiceNomes.salvar(new Paciente(id, novo.getNome(), novo.getEmail()));
+            }
+            return id;
+        });
+    }
+
+    /**
+     * Importa um CSV ({@code nome,email}, cabeçalho opcional) aplicando as mesmas validações do cadastro.
+     * Lê em memória constante e grava em lotes; linhas recusadas vão para {@code rejeitadas} com o motivo.
+     * Tamanho do lote e lotes por commit: CLINICA_IMPORTACAO_LOTE (1000) e CLINICA_IMPORTACAO_LOTES_POR_COMMIT (10).
+     */
+    public ResultadoImportacao importarCsv(Path arquivo, Path rejeitadas) {
+        return Metricas.medir(IMPORTAR_CSV, () -> {
+            try {
+                return ImportadorCsv.configurado(this::novoPaciente, pacienteDao::salvarEmLote, pacienteDao::salvar)
+                        .importar(arquivo, rejeitadas);
+            } finally {
+                // Gravações em massa não devolvem os ids: o índice de nomes é reconstruído em segundo plano
+                indiceNomes.invalidar();
+                // Remove buscas negativas guardadas antes da importação
+                cachePorEmail.limpar();
+                cachePorId.limpar();
+            }
+        });
+    }
 
-        Paciente paciente = new Paciente(null, nome.trim(), email.trim().toLowerCase());
-        return pacienteDao.salvar(paciente);
+    /**
+     * Sincronização em massa: insere os registros novos e atualiza o nome dos existentes, usando o
+     * email como chave (MERGE em lote). Itens inválidos são recusados com o motivo, sem exceção.
+     * Transações de CLINICA_SINCRONIZACAO_LOTE itens (padrão 5000).
+     */
+    public ResultadoSincronizacao cadastrarOuAtualizarEmLote(List<Paciente> lista) {
+        return Metricas.medir(CADASTRAR_OU_ATUALIZAR_EM_LOTE, () -> {
+            List<Paciente> validos = new ArrayList<>(lista.size());
+            ResultadoSincronizacao resultado = Sincronizador.sincronizar(lista,
+                    p -> novoPaciente(p.getNome(), p.getEmail()), pacienteDao::mesclarEmLote, validos);
+            Set<String> chaves = new HashSet<>();
+            for (Paciente p : validos) {
+                chaves.add(p.getEmail());
+                cachePorEmail.invalidar(p.getEmail());
+            }
+            cachePorId.invalidarSe(x -> chaves.contains(x.getEmail()));
+            if (resultado.inseridos() + resultado.atualizados() > 0) indiceNomes.invalidar();
+            return resultado;
+        });
     }
 
     public List<Paciente> listarTodos() {
-        return pacienteDao.listarTodos();
+        return Metricas.medir(LISTAR_TODOS, () -> pacienteDao.listarTodos());
+    }
+
+    /**
+     * Página de até {@code limite} registros com id maior que {@code aposId} (0 para a primeira).
+     * Para a próxima página, passe o id do último registro recebido.
+     */
+    public List<Paciente> listarPagina(long aposId, int limite) {
+        return Metricas.medir(LISTAR_PAGINA, () -> {
+            if (limite < 1 || limite > 1000) {
+                throw new IllegalArgumentException("Limite da página deve estar entre 1 e 1000");
+            }
+            return pacienteDao.listarPagina(aposId, limite);
+        });
+    }
+
+    // Percorre todos os registros sem carregá-los na memória; use em try-with-resources
+    public Stream<Paciente> percorrerTodos() {
+        return pacienteDao.percorrerTodos();
     }
 
     public Paciente buscarPorId(long id) {
-        return pacienteDao.buscarPorId(id);
+        return Metricas.medir(BUSCAR_POR_ID, () -> cachePorId.obter(id, pacienteDao::buscarPorId));
+    }
+
+    public Paciente buscarPorEmail(String email) {
+        return Metricas.medir(BUSCAR_POR_EMAIL, () -> {
+            if (email == null || email.isBlank()) return null;
+            return cachePorEmail.obter(email.trim().toLowerCase(), pacienteDao::buscarPorEmail);
+        });
+    }
+
+    /**
+     * Busca enquanto se digita: até {@code limite} pacientes (1 a 100) cujo nome ou email tem palavras
+     * começando com cada termo do texto, sem diferenciar acentos e maiúsculas ("jose sil" acha
+     * "José da Silva"); completa com nomes parecidos se faltar resultado. Atendida pelo
+     * {@link IndicePacientes}, que na primeira chamada é carregado com uma varredura dos pacientes.
+     */
+    public List<Paciente> buscarPorNome(String texto, int limite) {
+        return Metricas.medir(BUSCAR_POR_NOME, () -> {
+            if (limite < 1 || limite > 100) {
+                throw new IllegalArgumentException("Limite da busca deve estar entre 1 e 100");
+            }
+            indiceNomes.carregarSeNecessario(pacienteDao::percorrerTodos);
+            return indiceNomes.buscar(texto, limite);
+        });
+    }
+
+    // Carrega o índice da busca por nome já na inicialização, em vez de na primeira busca
+    public void aquecerBuscaPorNome() {
+        indiceNomes.carregarSeNecessario(pacienteDao::percorrerTodos);
+    }
+
+    public List<CacheLeitura.Estatisticas> estatisticasCache() {
+        return List.of(cachePorId.estatisticas(), cachePorEmail.estatisticas());
     }
 
     public void atualizar(Paciente paciente) {
-        validarNome(paciente.getNome());
-        validarEmail(paciente.getEmail());
-        pacienteDao.atualizar(paciente);
+        Metricas.medir(ATUALIZAR, () -> {
+            validarNome(paciente.getNome());
+            validarEmail(paciente.getEmail());
+            pacienteDao.atualizar(paciente);
+            invalidarCache(paciente.getId());
+            indiceNomes.salvar(paciente);
+            cachePorEmail.invalidar(paciente.getEmail().trim().toLowerCase());
+        });
     }
 
     public void deletar(long id) {
-        pacienteDao.deletar(id);
+        Metricas.medir(DELETAR, () -> {
+            pacienteDao.deletar(id);
+            invalidarCache(id);
+            indiceNomes.remover(id);
+        });
+    }
+
+    // Variantes assíncronas: rodam no executor do serviço (ver ExecutorServicos)
+
+    public CompletableFuture<Long> cadastrarAsync(String nome, String email) {
+        return ExecutorServicos.executar(executor, () -> cadastrar(nome, email));
+    }
+
+    public CompletableFuture<Paciente> buscarPorIdAsync(long id) {
+        return ExecutorServicos.executar(executor, () -> buscarPorId(id));
+    }
+
+    public CompletableFuture<Paciente> buscarPorEmailAsync(String email) {
+        return ExecutorServicos.executar(executor, () -> buscarPorEmail(email));
+    }
+
+    public CompletableFuture<List<Paciente>> buscarPorNomeAsync(String texto, int limite) {
+        return ExecutorServicos.executar(executor, () -> buscarPorNome(texto, limite));
+    }
+
+    public CompletableFuture<List<Paciente>> listarTodosAsync() {
+        return ExecutorServicos.executar(executor, this::listarTodos);
+    }
+
+    public CompletableFuture<List<Paciente>> listarPaginaAsync(long aposId, int limite) {
+        return ExecutorServicos.executar(executor, () -> listarPagina(aposId, limite));
+    }
+
+    private void invalidarCache(long id) {
+        cachePorId.invalidar(id);
+        // O email antigo não é conhecido aqui: remove qualquer entrada que aponte para o id
+        cachePorEmail.invalidarSe(x -> x.getId() != null && x.getId() == id);
+    }
+
+    // Validações de negócio + normalização usadas no cadastro e na importação
+    Paciente novoPaciente(String nome, String email) {
+        validarNome(nome);
+        validarEmail(email);
+        return new Paciente(null, nome.trim(), email.trim().toLowerCase());
     }
 
     private void validarNome(String nome) {
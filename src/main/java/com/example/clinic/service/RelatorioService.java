@@ -0,0 +1,117 @@
+package com.example.clinic.service;
+
+import com.example.clinic.dao.jdbc.OcupacaoPorHora;
+import com.example.clinic.dao.jdbc.RelatorioDao;
+import com.example.clinic.dao.jdbc.UtilizacaoMedico;
+import com.example.clinic.metricas.Medidor;
+import com.example.clinic.metricas.Metricas;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Relatórios gerenciais de ocupação dos médicos. A agregação é feita no banco pelo {@link RelatorioDao};
+ * aqui entra a capacidade de cada período, que vem do horário comercial do {@link AgendaService}.
+ */
+public class RelatorioService {
+
+    public enum Periodo { DIA, SEMANA }
+
+    // Minutos agendáveis por médico em um dia (08:00 - 18:00)
+    static final long MINUTOS_POR_DIA = Duration.between(AgendaService.ABERTURA, AgendaService.FECHAMENTO).toMinutes();
+
+    private static final Medidor UTILIZACAO = Metricas.medidor("RelatorioService.utilizacao");
+    private static final Medidor OCUPACAO_POR_HORA = Metricas.medidor("RelatorioService.ocupacaoPorHora");
+
+    private final RelatorioDao relatorioDao;
+
+    // Linha do relatório: o agregado do banco e a capacidade do médico no período (dias dentro do intervalo pedido)
+    public record Utilizacao(UtilizacaoMedico dados, long capacidadeMinutos) {
+        public double percentual() {
+            return capacidadeMinutos == 0 ? 0 : 100.0 * dados.minutosAgendados() / capacidadeMinutos;
+        }
+    }
+
+    public RelatorioService(RelatorioDao relatorioDao) {
+        this.relatorioDao = relatorioDao;
+    }
+
+    /**
+     * Utilização por médico e dia (ou semana, de segunda a domingo) entre {@code de} e {@code ate},
+     * inclusive. Médicos sem consultas no período não aparecem. O banco devolve uma linha por médico e
+     * dia, lida sob demanda; as semanas somam essas linhas à medida que chegam. Use em try-with-resources.
+     */
+    public Stream<Utilizacao> utilizacao(Periodo periodo, LocalDate de, LocalDate ate) {
+        validarIntervalo(de, ate);
+        Stream<UtilizacaoMedico> dias = Metricas.medir(UTILIZACAO, () -> relatorioDao.utilizacaoPorDia(de, ate));
+        Stream<UtilizacaoMedico> linhas = periodo == Periodo.DIA ? dias : porSemana(dias);
+        return linhas.map(l -> new Utilizacao(l, capacidade(periodo, l.periodo(), de, ate)));
+    }
+
+    public List<OcupacaoPorHora> ocupacaoPorHora(LocalDate de, LocalDate ate) {
+        validarIntervalo(de, ate);
+        return Metricas.medir(OCUPACAO_POR_HORA, () -> relatorioDao.ocupacaoPorHora(de, ate));
+    }
+
+    // A semana pode começar antes de 'de' ou terminar depois de 'ate': só contam os dias pedidos
+    static long capacidade(Periodo periodo, LocalDate inicio, LocalDate de, LocalDate ate) {
+        if (periodo == Periodo.DIA) return MINUTOS_POR_DIA;
+        LocalDate primeiro = inicio.isBefore(de) ? de : inicio;
+        LocalDate ultimo = inicio.plusDays(6).isAfter(ate) ? ate : inicio.plusDays(6);
+        return (ChronoUnit.DAYS.between(primeiro, ultimo) + 1) * MINUTOS_POR_DIA;
+    }
+
+    // Junta as linhas diárias consecutivas do mesmo médico e semana (chegam ordenadas por médico e dia)
+    private static Stream<UtilizacaoMedico> porSemana(Stream<UtilizacaoMedico> dias) {
+        Iterator<UtilizacaoMedico> it = dias.iterator();
+        Spliterator<UtilizacaoMedico> semanas = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private UtilizacaoMedico pendente;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super UtilizacaoMedico> acao) {
+                UtilizacaoMedico atual = pendente;
+                pendente = null;
+                while (it.hasNext()) {
+                    UtilizacaoMedico dia = it.next();
+                    LocalDate semana = dia.periodo().with(DayOfWeek.MONDAY);
+                    if (atual == null) {
+                        atual = inicioDaSemana(dia, semana);
+                    } else if (atual.medicoId() == dia.medicoId() && atual.periodo().equals(semana)) {
+                        atual = atual.somar(dia);
+                    } else {
+                        pendente = inicioDaSemana(dia, semana);
+                        break;
+                    }
+                }
+                if (atual == null) return false;
+                acao.accept(atual);
+                return true;
+            }
+        };
+        return StreamSupport.stream(semanas, false).onClose(dias::close);
+    }
+
+    private static UtilizacaoMedico inicioDaSemana(UtilizacaoMedico dia, LocalDate semana) {
+        return new UtilizacaoMedico(dia.medicoId(), dia.medicoNome(), semana, dia.consultas(),
+                dia.minutosAgendados(), dia.minutosEntreConsultas(), dia.consultasEmSequencia());
+    }
+
+    private static void validarIntervalo(LocalDate de, LocalDate ate) {
+        if (de == null || ate == null) {
+            throw new IllegalArgumentException("Informe o início e o fim do período");
+        }
+        if (ate.isBefore(de)) {
+            throw new IllegalArgumentException("Data final anterior à inicial");
+        }
+    }
+}
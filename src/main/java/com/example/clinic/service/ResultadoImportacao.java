@@ -0,0 +1,9 @@
+package com.example.clinic.service;
+
+// Totais de uma importação CSV: linhas de dados lidas, gravadas e enviadas ao arquivo de rejeitadas
+public record ResultadoImportacao(long lidas, long importadas, long rejeitadas) {
+    @Override
+    public String toString() {
+        return "lidas=" + lidas + ", importadas=" + importadas + ", rejeitadas=" + rejeitadas;
+    }
+}
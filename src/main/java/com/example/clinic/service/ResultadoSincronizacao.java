@@ -0,0 +1,18 @@
+package com.example.clinic.service;
+
+import java.util.List;
+
+// Totais de um cadastrarOuAtualizarEmLote; 'rejeicoes' traz "item <posição>: <motivo>" dos itens inválidos
+public record ResultadoSincronizacao(long recebidos, long inseridos, long atualizados, long inalterados,
+                                     List<String> rejeicoes) {
+
+    public long rejeitados() {
+        return rejeicoes.size();
+    }
+
+    @Override
+    public String toString() {
+        return "recebidos=" + recebidos + ", inseridos=" + inseridos + ", atualizados=" + atualizados
+                + ", inalterados=" + inalterados + ", rejeitados=" + rejeitados();
+    }
+}
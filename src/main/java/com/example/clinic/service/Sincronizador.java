@@ -0,0 +1,44 @@
+package com.example.clinic.service;
+
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.config.Transacoes;
+import com.example.clinic.dao.jdbc.ContagemMescla;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Parte comum do cadastrarOuAtualizarEmLote de pacientes e médicos: valida e normaliza cada item
+ * com as regras do cadastro, recusa os inválidos sem interromper os demais e grava os válidos com o
+ * MERGE do DAO, uma transação a cada CLINICA_SINCRONIZACAO_LOTE itens (padrão 5000).
+ */
+final class Sincronizador {
+
+    private Sincronizador() {}
+
+    /** Devolve os itens válidos já normalizados em {@code validos} e o resultado consolidado. */
+    static <T> ResultadoSincronizacao sincronizar(List<T> entrada, UnaryOperator<T> normalizar,
+                                                   Function<List<T>, ContagemMescla> mesclar, List<T> validos) {
+        List<String> rejeicoes = new ArrayList<>();
+        for (int i = 0; i < entrada.size(); i++) {
+            T item = entrada.get(i);
+            try {
+                if (item == null) throw new IllegalArgumentException("item nulo");
+                validos.add(normalizar.apply(item));
+            } catch (IllegalArgumentException e) {
+                rejeicoes.add("item " + i + ": " + e.getMessage());
+            }
+        }
+
+        int janela = Math.max(1, Configuracao.inteiro("CLINICA_SINCRONIZACAO_LOTE", 5000));
+        ContagemMescla total = new ContagemMescla(0, 0, 0);
+        for (int de = 0; de < validos.size(); de += janela) {
+            List<T> parte = validos.subList(de, Math.min(de + janela, validos.size()));
+            total = total.somar(Transacoes.executar(con -> mesclar.apply(parte)));
+        }
+        return new ResultadoSincronizacao(entrada.size(), total.inseridos(), total.atualizados(),
+                total.inalterados(), rejeicoes);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.clinic.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Travas em faixas (lock striping) indexadas pelo id do médico.
+ *
+ * Os ids vêm de uma coluna IDENTITY sequencial, então usar os bits baixos do id como índice
+ * garante que até {@code faixas} médicos consecutivos nunca disputam a mesma trava;
+ * acima disso a colisão só atrasa, não compromete a corretude.
+ */
+class TravasPorMedico {
+
+    private final ReentrantLock[] travas;
+    private final int mascara;
+
+    TravasPorMedico(int faixas) {
+        if (Integer.bitCount(faixas) != 1) {
+            throw new IllegalArgumentException("Quantidade de faixas deve ser potência de 2");
+        }
+        this.travas = new ReentrantLock[faixas];
+        for (int i = 0; i < faixas; i++) {
+            travas[i] = new ReentrantLock();
+        }
+        this.mascara = faixas - 1;
+    }
+
+    <T> T comTrava(long medicoId, Supplier<T> operacao) {
+        ReentrantLock trava = travas[(int) (medicoId & mascara)];
+        trava.lock();
+        try {
+            return operacao.get();
+        } finally {
+            trava.unlock();
+        }
+    }
+}
@@ -1,30 +1,44 @@
 package com.example.clinic.ui.console;
 
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.config.OracleConnectionFactory;
 import com.example.clinic.dao.jdbc.*;
+import com.example.clinic.diario.CapturaAlteracoes;
 import com.example.clinic.domain.*;
+import com.example.clinic.metricas.Metricas;
 import com.example.clinic.service.*;
 
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.stream.Stream;
 
 public class ConsoleMain {
 
     private static final DateTimeFormatter PADRAO =
             DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm", new Locale("pt", "BR"));
+    private static final DateTimeFormatter DATA =
+            DateTimeFormatter.ofPattern("dd/MM/yyyy", new Locale("pt", "BR"));
 
     public static void main(String[] args) {
         runConsole();
     }
 
     private static void runConsole() {
+        Metricas.iniciarRelatorioConfigurado();
         var consultaRepo = new ConsultaJdbcRepository();
         var medicoDao = new MedicoDao();
         var pacienteDao = new PacienteDao();
 
-        var agendaService = new AgendaService(consultaRepo);
+        var agendaService = Configuracao.booleano("CLINICA_INDICE_AGENDA", false)
+                ? new AgendaService(consultaRepo, consultaRepo, IndiceAgenda.criarAquecido(consultaRepo))
+                : new AgendaService(consultaRepo);
         var medicoService = new MedicoService(medicoDao);
         var pacienteService = new PacienteService(pacienteDao);
+        var arquivador = ArquivadorConsultas.iniciarConfigurado(consultaRepo);
+        CapturaAlteracoes.iniciarConfigurada();
 
         try (Scanner in = new Scanner(System.in)) {
             while (true) {
@@ -40,8 +54,15 @@ public class ConsoleMain {
                         case 3 -> cadastrarMedicoConsole(in, medicoService);
                         case 4 -> listarPacientesConsole(pacienteService);
                         case 5 -> listarMedicosConsole(medicoService);
+                        case 6 -> importarCsvConsole(in, pacienteService, medicoService);
+                        case 7 -> horariosLivresConsole(in, agendaService);
+                        case 8 -> agendaDoDiaConsole(in, consultaRepo);
                         case 0 -> {
                             System.out.println("Saindo...");
+                            Metricas.pararRelatorio();
+                            if (arquivador != null) arquivador.parar();
+                            CapturaAlteracoes.parar();
+                            OracleConnectionFactory.fechar();
                             return;
                         }
                         default -> System.out.println("Opção inválida!");
@@ -67,6 +88,9 @@ public class ConsoleMain {
         System.out.println("3 - Cadastrar Médico");
         System.out.println("4 - Listar Pacientes");
         System.out.println("5 - Listar Médicos");
+        System.out.println("6 - Importar Pacientes/Médicos (CSV)");
+        System.out.println("7 - Horários Livres de um Médico");
+        System.out.println("8 - Agenda do Dia");
         System.out.println("0 - Sair");
         System.out.println("=".repeat(40));
     }
@@ -91,6 +115,55 @@ public class ConsoleMain {
         System.out.println("Consulta agendada com sucesso! ID = " + id);
     }
 
+    private static void horariosLivresConsole(Scanner in, AgendaService service) {
+        System.out.println("\n--- HORÁRIOS LIVRES ---");
+        System.out.print("ID do médico: ");
+        long medicoId = Long.parseLong(in.nextLine().trim());
+
+        System.out.print("De (dd/MM/yyyy): ");
+        LocalDate de = LocalDate.parse(in.nextLine().trim(), DATA);
+
+        System.out.print("Até (dd/MM/yyyy): ");
+        LocalDate ate = LocalDate.parse(in.nextLine().trim(), DATA);
+
+        System.out.print("Duração em minutos: ");
+        int duracaoMin = Integer.parseInt(in.nextLine().trim());
+
+        List<AgendaService.HorarioLivre> livres = service.buscarHorariosLivres(medicoId, de, ate, duracaoMin);
+        if (livres.isEmpty()) {
+            System.out.println("Nenhum horário livre no período.");
+        }
+        for (AgendaService.HorarioLivre h : livres) {
+            System.out.println(h.inicio().format(PADRAO) + " - " + h.fim().toLocalTime());
+        }
+    }
+
+    private static void agendaDoDiaConsole(Scanner in, ConsultaJdbcRepository repo) {
+        System.out.println("\n--- AGENDA DO DIA ---");
+        System.out.print("ID do médico (vazio para todos): ");
+        String medico = in.nextLine().trim();
+
+        System.out.print("Data (dd/MM/yyyy): ");
+        LocalDate dia = LocalDate.parse(in.nextLine().trim(), DATA);
+
+        LocalDateTime inicio = dia.atStartOfDay();
+        LocalDateTime fim = inicio.plusDays(1);
+        List<LinhaAgenda> agenda = medico.isEmpty()
+                ? repo.listarAgenda(inicio, fim)
+                : repo.listarAgenda(Long.parseLong(medico), inicio, fim);
+        if (agenda.isEmpty()) {
+            System.out.println("Nenhuma consulta no dia.");
+            return;
+        }
+        System.out.printf("%-13s %-25s %-25s %-30s%n", "Horário", "Médico", "Paciente", "Email");
+        System.out.println("-".repeat(96));
+        for (LinhaAgenda l : agenda) {
+            System.out.printf("%-13s %-25s %-25s %-30s%n",
+                    l.inicio().toLocalTime() + " - " + l.fim().toLocalTime(),
+                    l.medicoNome(), l.pacienteNome(), l.pacienteEmail());
+        }
+    }
+
     private static void cadastrarPacienteConsole(Scanner in, PacienteService service) {
         System.out.println("\n--- CADASTRAR PACIENTE ---");
         System.out.print("Nome do paciente: ");
@@ -115,31 +188,57 @@ public class ConsoleMain {
         System.out.println("Médico cadastrado com sucesso! ID = " + id);
     }
 
+    private static void importarCsvConsole(Scanner in, PacienteService pacienteService, MedicoService medicoService) {
+        System.out.println("\n--- IMPORTAR CSV ---");
+        System.out.print("Tipo (1 - Pacientes [nome,email], 2 - Médicos [nome,crm]): ");
+        int tipo = Integer.parseInt(in.nextLine().trim());
+
+        System.out.print("Caminho do arquivo CSV: ");
+        Path arquivo = Path.of(in.nextLine().trim());
+        Path rejeitadas = arquivo.resolveSibling(arquivo.getFileName() + ".rejeitadas.csv");
+
+        ResultadoImportacao resultado = switch (tipo) {
+            case 1 -> pacienteService.importarCsv(arquivo, rejeitadas);
+            case 2 -> medicoService.importarCsv(arquivo, rejeitadas);
+            default -> throw new IllegalArgumentException("Tipo inválido");
+        };
+        System.out.println("Importação concluída: " + resultado);
+        if (resultado.rejeitadas() > 0) {
+            System.out.println("Linhas rejeitadas em: " + rejeitadas);
+        }
+    }
+
     private static void listarPacientesConsole(PacienteService service) {
         System.out.println("\n--- LISTA DE PACIENTES ---");
-        List<Paciente> pacientes = service.listarTodos();
-        if (pacientes.isEmpty()) {
-            System.out.println("Nenhum paciente cadastrado.");
-        } else {
-            System.out.printf("%-5s %-30s %-30s%n", "ID", "Nome", "Email");
-            System.out.println("-".repeat(70));
-            for (Paciente p : pacientes) {
+        int total = 0;
+        try (Stream<Paciente> pacientes = service.percorrerTodos()) {
+            for (Paciente p : (Iterable<Paciente>) pacientes::iterator) {
+                if (total++ == 0) {
+                    System.out.printf("%-5s %-30s %-30s%n", "ID", "Nome", "Email");
+                    System.out.println("-".repeat(70));
+                }
                 System.out.printf("%-5d %-30s %-30s%n", p.getId(), p.getNome(), p.getEmail());
             }
         }
+        if (total == 0) {
+            System.out.println("Nenhum paciente cadastrado.");
+        }
     }
 
     private static void listarMedicosConsole(MedicoService service) {
         System.out.println("\n--- LISTA DE MÉDICOS ---");
-        List<Medico> medicos = service.listarTodos();
-        if (medicos.isEmpty()) {
-            System.out.println("Nenhum médico cadastrado.");
-        } else {
-            System.out.printf("%-5s %-30s %-15s%n", "ID", "Nome", "CRM");
-            System.out.println("-".repeat(55));
-            for (Medico m : medicos) {
+        int total = 0;
+        try (Stream<Medico> medicos = service.percorrerTodos()) {
+            for (Medico m : (Iterable<Medico>) medicos::iterator) {
+                if (total++ == 0) {
+                    System.out.printf("%-5s %-30s %-15s%n", "ID", "Nome", "CRM");
+                    System.out.println("-".repeat(55));
+                }
                 System.out.printf("%-5d %-30s %-15s%n", m.getId(), m.getNome(), m.getCrm());
             }
         }
+        if (total == 0) {
+            System.out.println("Nenhum médico cadastrado.");
+        }
     }
 }
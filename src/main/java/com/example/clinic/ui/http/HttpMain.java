@@ -0,0 +1,45 @@
+package com.example.clinic.ui.http;
+
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.dao.jdbc.*;
+import com.example.clinic.diario.CapturaAlteracoes;
+import com.example.clinic.metricas.Metricas;
+import com.example.clinic.service.*;
+
+/**
+ * Modo servidor: API HTTP/JSON na porta CLINICA_HTTP_PORTA (padrão 8080).
+ * Veja as rotas em {@link ServidorHttp}.
+ */
+public class HttpMain {
+
+    public static void main(String[] args) throws Exception {
+        Metricas.iniciarRelatorioConfigurado();
+
+        var consultaRepo = new ConsultaJdbcRepository();
+        var medicoDao = new MedicoDao();
+        var pacienteDao = new PacienteDao();
+
+        var agendaService = Configuracao.booleano("CLINICA_INDICE_AGENDA", false)
+                ? new AgendaService(consultaRepo, consultaRepo, IndiceAgenda.criarAquecido(consultaRepo))
+                : new AgendaService(consultaRepo);
+        var medicoService = new MedicoService(medicoDao);
+        var pacienteService = new PacienteService(pacienteDao);
+        var arquivador = ArquivadorConsultas.iniciarConfigurado(consultaRepo);
+        CapturaAlteracoes.iniciarConfigurada();
+
+        pacienteService.aquecerBuscaPorNome();
+
+        var servidor = new ServidorHttp(agendaService, pacienteService, medicoService, consultaRepo);
+        servidor.iniciar(Configuracao.inteiro("CLINICA_HTTP_PORTA", 8080));
+        System.out.println("API HTTP ouvindo na porta " + servidor.porta());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            servidor.parar(5);
+            Metricas.pararRelatorio();
+            if (arquivador != null) arquivador.parar();
+            CapturaAlteracoes.parar();
+            OracleConnectionFactory.fechar();
+        }, "http-encerramento"));
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.clinic.ui.http;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON mínimo para a API HTTP, sem dependências externas.
+ *
+ * Escrita: null, String, Number, Boolean, datas (ISO-8601), Map e Iterable.
+ * Leitura: objetos viram {@code Map<String, Object>} (LinkedHashMap), arrays viram {@code List<Object>},
+ * números inteiros viram Long e os demais Double. Aninhamento limitado a {@value #PROFUNDIDADE_MAXIMA}
+ * níveis, para que um corpo como {@code [[[[...} seja recusado em vez de estourar a pilha.
+ */
+final class Json {
+
+    static final int PROFUNDIDADE_MAXIMA = 64;
+
+    private Json() {}
+
+    static String escrever(Object valor) {
+        StringBuilder sb = new StringBuilder(128);
+        escrever(sb, valor);
+        return sb.toString();
+    }
+
+    static Object ler(String texto) {
+        Leitor leitor = new Leitor(texto);
+        Object valor = leitor.valor();
+        leitor.espacos();
+        if (leitor.pos != texto.length()) {
+            throw leitor.erro("conteúdo após o fim do JSON");
+        }
+        return valor;
+    }
+
+    private static void escrever(StringBuilder sb, Object valor) {
+        if (valor == null) {
+            sb.append("null");
+        } else if (valor instanceof Number || valor instanceof Boolean) {
+            sb.append(valor);
+        } else if (valor instanceof String || valor instanceof TemporalAccessor) {
+            texto(sb, valor.toString());
+        } else if (valor instanceof Map<?, ?> mapa) {
+            sb.append('{');
+            boolean primeiro = true;
+            for (Map.Entry<?, ?> e : mapa.entrySet()) {
+                if (!primeiro) sb.append(',');
+                primeiro = false;
+                texto(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                escrever(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (valor instanceof Iterable<?> itens) {
+            sb.append('[');
+            boolean primeiro = true;
+            for (Object item : itens) {
+                if (!primeiro) sb.append(',');
+                primeiro = false;
+                escrever(sb, item);
+            }
+            sb.append(']');
+        } else {
+            throw new IllegalArgumentException("Tipo sem representação JSON: " + valor.getClass().getName());
+        }
+    }
+
+    private static void texto(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static final class Leitor {
+        private final String s;
+        private int pos;
+        private int profundidade;
+
+        Leitor(String s) {
+            this.s = s;
+        }
+
+        Object valor() {
+            espacos();
+            if (pos >= s.length()) throw erro("fim inesperado");
+            char c = s.charAt(pos);
+            if (c == '{' || c == '[') {
+                if (++profundidade > PROFUNDIDADE_MAXIMA) {
+                    throw erro("mais de " + PROFUNDIDADE_MAXIMA + " níveis de aninhamento");
+                }
+                Object valor = c == '{' ? objeto() : lista();
+                profundidade--;
+                return valor;
+            }
+            return switch (c) {
+                case '"' -> texto();
+                case 't' -> literal("true", Boolean.TRUE);
+                case 'f' -> literal("false", Boolean.FALSE);
+                case 'n' -> literal("null", null);
+                default -> numero();
+            };
+        }
+
+        private Map<String, Object> objeto() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            pos++;
+            espacos();
+            if (consumir('}')) return mapa;
+            do {
+                espacos();
+                if (pos >= s.length() || s.charAt(pos) != '"') throw erro("nome de campo esperado");
+                String chave = texto();
+                espacos();
+                if (!consumir(':')) throw erro("':' esperado");
+                mapa.put(chave, valor());
+                espacos();
+            } while (consumir(','));
+            if (!consumir('}')) throw erro("'}' esperado");
+            return mapa;
+        }
+
+        private List<Object> lista() {
+            List<Object> lista = new ArrayList<>();
+            pos++;
+            espacos();
+            if (consumir(']')) return lista;
+            do {
+                lista.add(valor());
+                espacos();
+            } while (consumir(','));
+            if (!consumir(']')) throw erro("']' esperado");
+            return lista;
+        }
+
+        private String texto() {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (pos < s.length()) {
+                char c = s.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= s.length()) break;
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > s.length()) throw erro("escape \\u incompleto");
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> sb.append(e);
+                }
+            }
+            throw erro("texto não terminado");
+        }
+
+        private Object numero() {
+            int inicio = pos;
+            while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0) pos++;
+            String n = s.substring(inicio, pos);
+            if (n.isEmpty()) throw erro("valor inválido");
+            try {
+                if (n.indexOf('.') < 0 && n.indexOf('e') < 0 && n.indexOf('E') < 0) {
+                    return Long.parseLong(n);
+                }
+                return Double.parseDouble(n);
+            } catch (NumberFormatException e) {
+                throw erro("número inválido: " + n);
+            }
+        }
+
+        private Object literal(String palavra, Object valor) {
+            if (!s.startsWith(palavra, pos)) throw erro("valor inválido");
+            pos += palavra.length();
+            return valor;
+        }
+
+        private boolean consumir(char c) {
+            if (pos < s.length() && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void espacos() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        IllegalArgumentException erro(String motivo) {
+            return new IllegalArgumentException("JSON inválido (posição " + pos + "): " + motivo);
+        }
+    }
+}
@@ -0,0 +1,580 @@
+package com.example.clinic.ui.http;
+
+import com.example.clinic.config.Configuracao;
+import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.dao.jdbc.ConsultaJdbcRepository;
+import com.example.clinic.dao.jdbc.OcupacaoPorHora;
+import com.example.clinic.dao.jdbc.RelatorioDao;
+import com.example.clinic.dao.jdbc.UtilizacaoMedico;
+import com.example.clinic.domain.Consulta;
+import com.example.clinic.domain.Medico;
+import com.example.clinic.domain.Paciente;
+import com.example.clinic.metricas.Medidor;
+import com.example.clinic.metricas.Metricas;
+import com.example.clinic.service.AgendaService;
+import com.example.clinic.service.CacheLeitura;
+import com.example.clinic.service.MedicoService;
+import com.example.clinic.service.PacienteService;
+import com.example.clinic.service.RelatorioService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * API HTTP/JSON sobre os serviços, usando o HttpServer do JDK. Todos os clientes compartilham o
+ * mesmo processo, pool de conexões, caches e índice de agenda.
+ *
+ * Rotas:
+ * <pre>
+ *   GET    /pacientes?aposId=0&amp;limite=100   página (ou ?email=... para busca por email)
+ *   GET    /pacientes?nome=jose+sil&amp;limite=10  busca enquanto se digita (nome ou email)
+ *   GET    /pacientes/{id}
+ *   POST   /pacientes                        {"nome", "email"}
+ *   PUT    /pacientes/{id}                   {"nome", "email", "versao"}
+ *   DELETE /pacientes/{id}
+ *   GET    /medicos?aposId=0&amp;limite=100     página (ou ?crm=... para busca por CRM)
+ *   GET    /medicos/{id}
+ *   GET    /medicos/{id}/horarios-livres?de=2025-01-10&amp;ate=2025-01-12&amp;duracao=30
+ *   POST   /medicos                          {"nome", "crm"}
+ *   PUT    /medicos/{id}                     {"nome", "crm", "versao"}
+ *   DELETE /medicos/{id}
+ *   GET    /consultas?aposId=0&amp;limite=100
+ *   GET    /consultas/{id}
+ *   PUT    /consultas/{id}                   {"inicio", "fim" ou "duracaoMinutos"}   remarcar
+ *   DELETE /consultas/{id}                   cancelar
+ *   POST   /consultas                        {"pacienteId", "medicoId", "inicio", "fim" ou "duracaoMinutos"}
+ *   POST   /consultas/lote                   [ {...}, ... ]
+ *   POST   /consultas/recorrente             {"pacienteId", "medicoId", "inicio", "duracaoMinutos",
+ *                                             "regra" (semanal|quinzenal|mensal), "ocorrencias"}
+ *   GET    /relatorios/utilizacao?de=2025-01-01&amp;ate=2025-12-31&amp;por=semana   (por=dia|semana)
+ *   GET    /relatorios/ocupacao-por-hora?de=2025-01-01&amp;ate=2025-12-31
+ *   GET    /metricas
+ * </pre>
+ * Datas em ISO-8601 (2025-01-10T14:30). Erros de validação respondem 400, choque de horário 409,
+ * registro inexistente 404. Os registros trazem "versao"; o PUT deve enviar a versão lida e responde
+ * 409 se outra operação alterou o registro nesse meio tempo.
+ *
+ * Requisições são atendidas por um pool fixo (CLINICA_HTTP_THREADS, padrão 64); as excedentes
+ * aguardam na fila do pool e as conexões ainda não aceitas no backlog do socket (CLINICA_HTTP_BACKLOG).
+ * Corpos acima de CLINICA_HTTP_CORPO_MAX_KB (padrão 1024) são recusados com 413 sem serem lidos inteiros.
+ */
+public class ServidorHttp {
+
+    private static final Logger LOG = Logger.getLogger(ServidorHttp.class.getName());
+    private static final int LIMITE_PADRAO = 100;
+
+    private final AgendaService agendaService;
+    private final PacienteService pacienteService;
+    private final MedicoService medicoService;
+    private final ConsultaJdbcRepository consultas;
+    private final RelatorioService relatorioService;
+
+    private HttpServer servidor;
+    private ExecutorService executor;
+    private volatile int corpoMaxBytes;
+
+    public ServidorHttp(AgendaService agendaService, PacienteService pacienteService,
+                        MedicoService medicoService, ConsultaJdbcRepository consultas) {
+        this(agendaService, pacienteService, medicoService, consultas, new RelatorioService(new RelatorioDao()));
+    }
+
+    public ServidorHttp(AgendaService agendaService, PacienteService pacienteService, MedicoService medicoService,
+                        ConsultaJdbcRepository consultas, RelatorioService relatorioService) {
+        this.agendaService = agendaService;
+        this.pacienteService = pacienteService;
+        this.medicoService = medicoService;
+        this.consultas = consultas;
+        this.relatorioService = relatorioService;
+    }
+
+    /** Sobe o servidor na porta informada (0 = porta livre qualquer). */
+    public synchronized void iniciar(int porta) throws IOException {
+        if (servidor != null) throw new IllegalStateException("Servidor já iniciado");
+        corpoMaxBytes = Configuracao.inteiro("CLINICA_HTTP_CORPO_MAX_KB", 1024) * 1024;
+        servidor = HttpServer.create(new InetSocketAddress(porta), Configuracao.inteiro("CLINICA_HTTP_BACKLOG", 1024));
+        servidor.createContext("/pacientes", ex -> atender(ex, this::pacientes));
+        servidor.createContext("/medicos", ex -> atender(ex, this::medicos));
+        servidor.createContext("/consultas", ex -> atender(ex, this::consultas));
+        servidor.createContext("/relatorios", ex -> atender(ex, this::relatorios));
+        servidor.createContext("/metricas", ex -> atender(ex, this::metricas));
+
+        AtomicInteger contador = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Configuracao.inteiro("CLINICA_HTTP_THREADS", 64), r -> {
+            Thread t = new Thread(r, "http-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        servidor.setExecutor(executor);
+        servidor.start();
+    }
+
+    public synchronized int porta() {
+        return servidor.getAddress().getPort();
+    }
+
+    /** Para de aceitar conexões e aguarda até {@code segundos} pelas requisições em andamento. */
+    public synchronized void parar(int segundos) {
+        if (servidor == null) return;
+        servidor.stop(segundos);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(segundos, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        servidor = null;
+        executor = null;
+    }
+
+    // ---- Rotas ----
+
+    private Resposta pacientes(Requisicao r) {
+        if (r.segmentos.isEmpty()) {
+            switch (r.metodo) {
+                case "GET" -> {
+                    String email = r.parametro("email");
+                    if (email != null) return Resposta.ok(paciente(existente(pacienteService.buscarPorEmail(email))));
+                    String nome = r.parametro("nome");
+                    if (nome != null) {
+                        return Resposta.ok(pacienteService.buscarPorNome(nome, r.inteiro("limite", 10)).stream()
+                                .map(ServidorHttp::paciente).toList());
+                    }
+                    List<Paciente> pagina = pacienteService.listarPagina(r.longo("aposId", 0), r.inteiro("limite", LIMITE_PADRAO));
+                    return Resposta.ok(pagina(pagina.stream().map(ServidorHttp::paciente).toList(),
+                            pagina.isEmpty() ? null : pagina.get(pagina.size() - 1).getId()));
+                }
+                case "POST" -> {
+                    Map<String, Object> corpo = r.objeto();
+                    Long id = pacienteService.cadastrar(texto(corpo, "nome"), texto(corpo, "email"));
+                    return Resposta.criado(mapa("id", id));
+                }
+                default -> throw new ErroHttp(405, "Método não suportado");
+            }
+        }
+        long id = r.id(0);
+        if (r.segmentos.size() > 1) throw new ErroHttp(404, "Rota não encontrada");
+        switch (r.metodo) {
+            case "GET" -> {
+                return Resposta.ok(paciente(existente(pacienteService.buscarPorId(id))));
+            }
+            case "PUT" -> {
+                Map<String, Object> corpo = r.objeto();
+                pacienteService.atualizar(new Paciente(id, texto(corpo, "nome"), texto(corpo, "email"), numero(corpo, "versao")));
+                return Resposta.semConteudo();
+            }
+            case "DELETE" -> {
+                pacienteService.deletar(id);
+                return Resposta.semConteudo();
+            }
+            default -> throw new ErroHttp(405, "Método não suportado");
+        }
+    }
+
+    private Resposta medicos(Requisicao r) {
+        if (r.segmentos.isEmpty()) {
+            switch (r.metodo) {
+                case "GET" -> {
+                    String crm = r.parametro("crm");
+                    if (crm != null) return Resposta.ok(medico(existente(medicoService.buscarPorCrm(crm))));
+                    List<Medico> pagina = medicoService.listarPagina(r.longo("aposId", 0), r.inteiro("limite", LIMITE_PADRAO));
+                    return Resposta.ok(pagina(pagina.stream().map(ServidorHttp::medico).toList(),
+                            pagina.isEmpty() ? null : pagina.get(pagina.size() - 1).getId()));
+                }
+                case "POST" -> {
+                    Map<String, Object> corpo = r.objeto();
+                    Long id = medicoService.cadastrar(texto(corpo, "nome"), texto(corpo, "crm"));
+                    return Resposta.criado(mapa("id", id));
+                }
+                default -> throw new ErroHttp(405, "Método não suportado");
+            }
+        }
+        long id = r.id(0);
+        if (r.segmentos.size() == 2 && r.segmentos.get(1).equals("horarios-livres") && r.metodo.equals("GET")) {
+            LocalDate de = LocalDate.parse(r.obrigatorio("de"));
+            LocalDate ate = r.parametro("ate") != null ? LocalDate.parse(r.parametro("ate")) : de;
+            List<Map<String, Object>> livres = new ArrayList<>();
+            for (AgendaService.HorarioLivre h : agendaService.buscarHorariosLivres(id, de, ate, r.inteiro("duracao", 30))) {
+                livres.add(mapa("inicio", h.inicio(), "fim", h.fim(), "minutos", h.minutos()));
+            }
+            return Resposta.ok(livres);
+        }
+        if (r.segmentos.size() > 1) throw new ErroHttp(404, "Rota não encontrada");
+        switch (r.metodo) {
+            case "GET" -> {
+                return Resposta.ok(medico(existente(medicoService.buscarPorId(id))));
+            }
+            case "PUT" -> {
+                Map<String, Object> corpo = r.objeto();
+                medicoService.atualizar(new Medico(id, texto(corpo, "nome"), texto(corpo, "crm"), numero(corpo, "versao")));
+                return Resposta.semConteudo();
+            }
+            case "DELETE" -> {
+                medicoService.deletar(id);
+                return Resposta.semConteudo();
+            }
+            default -> throw new ErroHttp(405, "Método não suportado");
+        }
+    }
+
+    private Resposta consultas(Requisicao r) {
+        if (r.segmentos.isEmpty()) {
+            switch (r.metodo) {
+                case "GET" -> {
+                    int limite = r.inteiro("limite", LIMITE_PADRAO);
+                    if (limite < 1 || limite > 1000) {
+                        throw new IllegalArgumentException("Limite da página deve estar entre 1 e 1000");
+                    }
+                    List<Consulta> pagina = consultas.listarPagina(r.longo("aposId", 0), limite);
+                    return Resposta.ok(pagina(pagina.stream().map(ServidorHttp::consulta).toList(),
+                            pagina.isEmpty() ? null : pagina.get(pagina.size() - 1).getId()));
+                }
+                case "POST" -> {
+                    Long id = agendaService.agendar(consulta(r.objeto()));
+                    return Resposta.criado(mapa("id", id));
+                }
+                default -> throw new ErroHttp(405, "Método não suportado");
+            }
+        }
+        if (r.segmentos.size() == 1 && r.segmentos.get(0).equals("lote") && r.metodo.equals("POST")) {
+            if (!(r.corpo() instanceof List<?> itens)) {
+                throw new IllegalArgumentException("Corpo deve ser uma lista de consultas");
+            }
+            List<Consulta> lote = new ArrayList<>(itens.size());
+            for (Object item : itens) {
+                if (!(item instanceof Map<?, ?> m)) throw new IllegalArgumentException("Item do lote deve ser um objeto");
+                @SuppressWarnings("unchecked")
+                Map<String, Object> campos = (Map<String, Object>) m;
+                lote.add(consulta(campos));
+            }
+            List<Map<String, Object>> resultados = new ArrayList<>(lote.size());
+            for (AgendaService.ResultadoLote res : agendaService.agendarEmLote(lote)) {
+                resultados.add(mapa("id", res.id(), "motivoRecusa", res.motivoRecusa()));
+            }
+            return Resposta.ok(resultados);
+        }
+        if (r.segmentos.size() == 1 && r.segmentos.get(0).equals("recorrente") && r.metodo.equals("POST")) {
+            Map<String, Object> corpo = r.objeto();
+            AgendaService.Recorrencia regra;
+            try {
+                regra = AgendaService.Recorrencia.valueOf(String.valueOf(corpo.get("regra")).toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Regra deve ser semanal, quinzenal ou mensal");
+            }
+            List<Map<String, Object>> resultados = new ArrayList<>();
+            for (AgendaService.ResultadoLote res : agendaService.agendarRecorrente(numero(corpo, "pacienteId"),
+                    numero(corpo, "medicoId"), LocalDateTime.parse(texto(corpo, "inicio")),
+                    (int) numero(corpo, "duracaoMinutos"), regra, (int) numero(corpo, "ocorrencias"))) {
+                resultados.add(mapa("inicio", res.consulta().getInicio(), "id", res.id(), "motivoRecusa", res.motivoRecusa()));
+            }
+            return Resposta.ok(resultados);
+        }
+        if (r.segmentos.size() > 1) throw new ErroHttp(404, "Rota não encontrada");
+        long id = r.id(0);
+        switch (r.metodo) {
+            case "GET" -> {
+                return Resposta.ok(consulta(existente(consultas.buscarPorId(id))));
+            }
+            case "PUT" -> {
+                Map<String, Object> corpo = r.objeto();
+                LocalDateTime inicio = LocalDateTime.parse(texto(corpo, "inicio"));
+                LocalDateTime fim = corpo.get("fim") != null
+                        ? LocalDateTime.parse(texto(corpo, "fim"))
+                        : inicio.plusMinutes(numero(corpo, "duracaoMinutos"));
+                return Resposta.ok(consulta(agendaService.remarcar(id, inicio, fim)));
+            }
+            case "DELETE" -> {
+                agendaService.cancelar(id);
+                return Resposta.semConteudo();
+            }
+            default -> throw new ErroHttp(405, "Método não suportado");
+        }
+    }
+
+    private Resposta relatorios(Requisicao r) {
+        if (r.segmentos.size() != 1) throw new ErroHttp(404, "Rota não encontrada");
+        if (!r.metodo.equals("GET")) throw new ErroHttp(405, "Método não suportado");
+        LocalDate de = LocalDate.parse(r.obrigatorio("de"));
+        LocalDate ate = r.parametro("ate") != null ? LocalDate.parse(r.parametro("ate")) : de;
+        switch (r.segmentos.get(0)) {
+            case "utilizacao" -> {
+                String por = r.parametro("por") != null ? r.parametro("por") : "dia";
+                RelatorioService.Periodo periodo;
+                try {
+                    periodo = RelatorioService.Periodo.valueOf(por.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Parâmetro 'por' deve ser dia ou semana");
+                }
+                List<Map<String, Object>> linhas = new ArrayList<>();
+                try (var utilizacao = relatorioService.utilizacao(periodo, de, ate)) {
+                    utilizacao.forEach(u -> {
+                        UtilizacaoMedico d = u.dados();
+                        linhas.add(mapa("medicoId", d.medicoId(), "medicoNome", d.medicoNome(),
+                                "periodo", d.periodo(), "consultas", d.consultas(),
+                                "minutosAgendados", d.minutosAgendados(), "capacidadeMinutos", u.capacidadeMinutos(),
+                                "percentual", Math.round(u.percentual() * 10) / 10.0,
+                                "minutosEntreConsultas", d.minutosEntreConsultas(),
+                                "consultasEmSequencia", d.consultasEmSequencia()));
+                    });
+                }
+                return Resposta.ok(linhas);
+            }
+            case "ocupacao-por-hora" -> {
+                List<Map<String, Object>> linhas = new ArrayList<>();
+                for (OcupacaoPorHora h : relatorioService.ocupacaoPorHora(de, ate)) {
+                    linhas.add(mapa("hora", h.hora(), "consultas", h.consultas(), "minutosAgendados", h.minutosAgendados()));
+                }
+                return Resposta.ok(linhas);
+            }
+            default -> throw new ErroHttp(404, "Rota não encontrada");
+        }
+    }
+
+    private Resposta metricas(Requisicao r) {
+        if (!r.metodo.equals("GET")) throw new ErroHttp(405, "Método não suportado");
+        List<Map<String, Object>> medidores = new ArrayList<>();
+        for (Medidor m : Metricas.todos()) {
+            if (m.getChamadas() == 0) continue;
+            medidores.add(mapa("nome", m.getNome(), "chamadas", m.getChamadas(), "erros", m.getErros(),
+                    "mediaMicros", m.getMediaMicros(), "p50Micros", m.getP50Micros(),
+                    "p99Micros", m.getP99Micros(), "maxMicros", m.getMaxMicros()));
+        }
+        List<Map<String, Object>> caches = new ArrayList<>();
+        List<CacheLeitura.Estatisticas> estatisticas = new ArrayList<>(pacienteService.estatisticasCache());
+        estatisticas.addAll(medicoService.estatisticasCache());
+        for (CacheLeitura.Estatisticas e : estatisticas) {
+            caches.add(mapa("nome", e.nome(), "acertos", e.acertos(), "falhas", e.falhas(),
+                    "despejos", e.despejos(), "tamanho", e.tamanho()));
+        }
+        OracleConnectionFactory.EstatisticasPool pool = OracleConnectionFactory.estatisticas();
+        return Resposta.ok(mapa("medidores", medidores, "caches", caches,
+                "pool", mapa("ativas", pool.ativas(), "ociosas", pool.ociosas(),
+                        "total", pool.total(), "aguardando", pool.aguardando())));
+    }
+
+    // ---- Conversões ----
+
+    private static Map<String, Object> paciente(Paciente p) {
+        return mapa("id", p.getId(), "nome", p.getNome(), "email", p.getEmail(), "versao", p.getVersao());
+    }
+
+    private static Map<String, Object> medico(Medico m) {
+        return mapa("id", m.getId(), "nome", m.getNome(), "crm", m.getCrm(), "versao", m.getVersao());
+    }
+
+    private static Map<String, Object> consulta(Consulta c) {
+        return mapa("id", c.getId(), "pacienteId", c.getPacienteId(), "medicoId", c.getMedicoId(),
+                "inicio", c.getInicio(), "fim", c.getFim(), "versao", c.getVersao());
+    }
+
+    private static Consulta consulta(Map<String, Object> campos) {
+        LocalDateTime inicio = LocalDateTime.parse(texto(campos, "inicio"));
+        LocalDateTime fim;
+        if (campos.get("fim") != null) {
+            fim = LocalDateTime.parse(texto(campos, "fim"));
+        } else {
+            fim = inicio.plusMinutes(numero(campos, "duracaoMinutos"));
+        }
+        return new Consulta(null, numero(campos, "pacienteId"), numero(campos, "medicoId"), inicio, fim);
+    }
+
+    private static Map<String, Object> pagina(List<?> itens, Long ultimoId) {
+        return mapa("itens", itens, "proximoAposId", ultimoId);
+    }
+
+    private static Map<String, Object> mapa(Object... chavesEValores) {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        for (int i = 0; i < chavesEValores.length; i += 2) {
+            mapa.put((String) chavesEValores[i], chavesEValores[i + 1]);
+        }
+        return mapa;
+    }
+
+    private static <T> T existente(T valor) {
+        if (valor == null) throw new ErroHttp(404, "Registro não encontrado");
+        return valor;
+    }
+
+    private static String texto(Map<String, Object> campos, String nome) {
+        Object valor = campos.get(nome);
+        if (valor == null) throw new IllegalArgumentException("Campo obrigatório: " + nome);
+        return valor.toString();
+    }
+
+    private static long numero(Map<String, Object> campos, String nome) {
+        Object valor = campos.get(nome);
+        if (valor instanceof Long l) return l;
+        if (valor == null) throw new IllegalArgumentException("Campo obrigatório: " + nome);
+        try {
+            return Long.parseLong(valor.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Campo " + nome + " deve ser um número inteiro");
+        }
+    }
+
+    // ---- Infraestrutura ----
+
+    private interface Rota {
+        Resposta tratar(Requisicao r);
+    }
+
+    private void atender(HttpExchange ex, Rota rota) throws IOException {
+        Resposta resposta;
+        try {
+            resposta = rota.tratar(new Requisicao(ex, corpoMaxBytes));
+        } catch (ErroHttp e) {
+            resposta = Resposta.erro(e.status, e.getMessage());
+        } catch (IllegalArgumentException | DateTimeException e) {
+            resposta = Resposta.erro(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            resposta = Resposta.erro(409, e.getMessage());
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Erro em " + ex.getRequestMethod() + " " + ex.getRequestURI(), e);
+            resposta = Resposta.erro(500, "Erro interno");
+        }
+        try {
+            if (resposta.corpo == null) {
+                ex.sendResponseHeaders(resposta.status, -1);
+                return;
+            }
+            byte[] bytes = Json.escrever(resposta.corpo).getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            ex.sendResponseHeaders(resposta.status, bytes.length);
+            try (OutputStream saida = ex.getResponseBody()) {
+                saida.write(bytes);
+            }
+        } finally {
+            ex.close();
+        }
+    }
+
+    private record Resposta(int status, Object corpo) {
+        static Resposta ok(Object corpo) {
+            return new Resposta(200, corpo);
+        }
+
+        static Resposta criado(Object corpo) {
+            return new Resposta(201, corpo);
+        }
+
+        static Resposta semConteudo() {
+            return new Resposta(204, null);
+        }
+
+        static Resposta erro(int status, String mensagem) {
+            return new Resposta(status, mapa("erro", mensagem));
+        }
+    }
+
+    private static final class ErroHttp extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        ErroHttp(int status, String mensagem) {
+            super(mensagem);
+            this.status = status;
+        }
+    }
+
+    private static final class Requisicao {
+        private final HttpExchange ex;
+        private final String metodo;
+        private final List<String> segmentos;
+        private final Map<String, String> parametros;
+        private final int corpoMaxBytes;
+
+        Requisicao(HttpExchange ex, int corpoMaxBytes) {
+            this.ex = ex;
+            this.corpoMaxBytes = corpoMaxBytes;
+            this.metodo = ex.getRequestMethod();
+            // Caminho após o contexto: /pacientes/10 -> ["10"]
+            String caminho = ex.getRequestURI().getPath().substring(ex.getHttpContext().getPath().length());
+            List<String> partes = new ArrayList<>();
+            for (String parte : caminho.split("/")) {
+                if (!parte.isEmpty()) partes.add(parte);
+            }
+            this.segmentos = partes;
+            this.parametros = parametros(ex.getRequestURI().getRawQuery());
+        }
+
+        String parametro(String nome) {
+            return parametros.get(nome);
+        }
+
+        String obrigatorio(String nome) {
+            String valor = parametros.get(nome);
+            if (valor == null || valor.isBlank()) throw new IllegalArgumentException("Parâmetro obrigatório: " + nome);
+            return valor;
+        }
+
+        long longo(String nome, long padrao) {
+            String valor = parametros.get(nome);
+            return valor == null ? padrao : Long.parseLong(valor);
+        }
+
+        int inteiro(String nome, int padrao) {
+            String valor = parametros.get(nome);
+            return valor == null ? padrao : Integer.parseInt(valor);
+        }
+
+        long id(int indice) {
+            try {
+                return Long.parseLong(segmentos.get(indice));
+            } catch (NumberFormatException e) {
+                throw new ErroHttp(404, "Rota não encontrada");
+            }
+        }
+
+        Object corpo() {
+            try (InputStream entrada = ex.getRequestBody()) {
+                // Lê no máximo um byte além do limite: o suficiente para saber que passou
+                byte[] bytes = entrada.readNBytes(corpoMaxBytes + 1);
+                if (bytes.length > corpoMaxBytes) {
+                    throw new ErroHttp(413, "Corpo da requisição acima de " + corpoMaxBytes / 1024 + " KB");
+                }
+                return Json.ler(new String(bytes, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Não foi possível ler o corpo da requisição", e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> objeto() {
+            if (!(corpo() instanceof Map<?, ?> mapa)) throw new IllegalArgumentException("Corpo deve ser um objeto JSON");
+            return (Map<String, Object>) mapa;
+        }
+
+        private static Map<String, String> parametros(String query) {
+            Map<String, String> mapa = new HashMap<>();
+            if (query == null) return mapa;
+            for (String par : query.split("&")) {
+                int igual = par.indexOf('=');
+                if (igual <= 0) continue;
+                mapa.put(URLDecoder.decode(par.substring(0, igual), StandardCharsets.UTF_8),
+                        URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+            }
+            return mapa;
+        }
+    }
+}
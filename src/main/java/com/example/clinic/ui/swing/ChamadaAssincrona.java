@@ -0,0 +1,74 @@
+package com.example.clinic.ui.swing;
+
+import com.example.clinic.config.Configuracao;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Executa as chamadas aos serviços fora da Event Dispatch Thread.
+ *
+ * Enquanto a chamada está em andamento os controles da tela ficam desabilitados e a barra de
+ * progresso aparece; o resultado (ou a mensagem de erro) volta para a EDT. Assim a janela continua
+ * respondendo mesmo com o banco lento.
+ *
+ * As chamadas rodam num pool fixo de threads daemon (CLINICA_SWING_THREADS, padrão 4).
+ */
+final class ChamadaAssincrona {
+
+    private static final ExecutorService EXECUTOR = criarExecutor();
+
+    private final JComponent tela;
+    private final JProgressBar progresso;
+    private final JComponent[] controles;
+
+    ChamadaAssincrona(JComponent tela, JProgressBar progresso, JComponent... controles) {
+        this.tela = tela;
+        this.progresso = progresso;
+        this.controles = controles;
+        progresso.setIndeterminate(true);
+        progresso.setVisible(false);
+    }
+
+    /** Deve ser chamado na EDT; {@code aoConcluir} também roda na EDT. */
+    <T> void executar(Supplier<T> chamada, Consumer<T> aoConcluir) {
+        emAndamento(true);
+        CompletableFuture.supplyAsync(chamada, EXECUTOR)
+                .whenComplete((resultado, erro) -> SwingUtilities.invokeLater(() -> {
+                    emAndamento(false);
+                    if (erro != null) {
+                        Throwable causa = erro instanceof CompletionException && erro.getCause() != null
+                                ? erro.getCause() : erro;
+                        JOptionPane.showMessageDialog(tela, "Erro: " + causa.getMessage(),
+                                "Erro", JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        aoConcluir.accept(resultado);
+                    }
+                }));
+    }
+
+    private void emAndamento(boolean ativo) {
+        for (JComponent controle : controles) {
+            controle.setEnabled(!ativo);
+        }
+        progresso.setVisible(ativo);
+        tela.setCursor(ativo ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+        tela.revalidate();
+    }
+
+    private static ExecutorService criarExecutor() {
+        AtomicInteger contador = new AtomicInteger();
+        return Executors.newFixedThreadPool(Configuracao.inteiro("CLINICA_SWING_THREADS", 4), r -> {
+            Thread t = new Thread(r, "swing-servicos-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -1,25 +1,35 @@
 package com.example.clinic.ui.swing;
 
+import com.example.clinic.config.Configuracao;
 import com.example.clinic.dao.jdbc.*;
+import com.example.clinic.diario.CapturaAlteracoes;
 import com.example.clinic.domain.Consulta;
+import com.example.clinic.metricas.Metricas;
 import com.example.clinic.service.*;
 
 import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Locale;
 
 public class SwingMain {
 
     private static final DateTimeFormatter PADRAO =
             DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm", new Locale("pt", "BR"));
+    private static final DateTimeFormatter DATA =
+            DateTimeFormatter.ofPattern("dd/MM/yyyy", new Locale("pt", "BR"));
 
     public static void main(String[] args) {
         runSwing();
     }
 
     private static void runSwing() {
+        Metricas.iniciarRelatorioConfigurado();
+
         // Look & Feel Nimbus (opcional)
         try {
             for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
@@ -30,15 +40,20 @@ public class SwingMain {
             }
         } catch (Exception ignored) {}
 
-        SwingUtilities.invokeLater(() -> {
-            var consultaRepo = new ConsultaJdbcRepository();
-            var medicoDao = new MedicoDao();
-            var pacienteDao = new PacienteDao();
+        // Serviços criados fora da EDT: o aquecimento do índice de agenda consulta o banco
+        var consultaRepo = new ConsultaJdbcRepository();
+        var medicoDao = new MedicoDao();
+        var pacienteDao = new PacienteDao();
 
-            var agendaService = new AgendaService(consultaRepo);
-            var medicoService = new MedicoService(medicoDao);
-            var pacienteService = new PacienteService(pacienteDao);
+        var agendaService = Configuracao.booleano("CLINICA_INDICE_AGENDA", false)
+                ? new AgendaService(consultaRepo, consultaRepo, IndiceAgenda.criarAquecido(consultaRepo))
+                : new AgendaService(consultaRepo);
+        var medicoService = new MedicoService(medicoDao);
+        var pacienteService = new PacienteService(pacienteDao);
+        var arquivador = ArquivadorConsultas.iniciarConfigurado(consultaRepo);
+        CapturaAlteracoes.iniciarConfigurada();
 
+        SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("Sistema de Clínica");
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
             frame.setSize(500, 400);
@@ -54,6 +69,7 @@ public class SwingMain {
             mainPanel.add(criarTelaAgendarConsulta(mainPanel, agendaService), "AGENDAR");
             mainPanel.add(criarTelaCadastrarPaciente(mainPanel, pacienteService), "PACIENTE");
             mainPanel.add(criarTelaCadastrarMedico(mainPanel, medicoService), "MEDICO");
+            mainPanel.add(criarTelaAgendaDoDia(mainPanel, consultaRepo), "AGENDA");
 
             frame.setContentPane(mainPanel);
             frame.setLocationRelativeTo(null);
@@ -91,6 +107,11 @@ public class SwingMain {
         c.gridy++;
         panel.add(btnMedico, c);
 
+        JButton btnAgenda = new JButton("Agenda do Dia");
+        btnAgenda.addActionListener(e -> ((CardLayout) mainPanel.getLayout()).show(mainPanel, "AGENDA"));
+        c.gridy++;
+        panel.add(btnAgenda, c);
+
         JButton btnSair = new JButton("Sair");
         btnSair.addActionListener(e -> System.exit(0));
         c.gridy++;
@@ -117,6 +138,7 @@ public class SwingMain {
         txtDuracao.setToolTipText("Duração em minutos");
         JButton btnAgendar = new JButton("Agendar");
         JButton btnVoltar = new JButton("Voltar ao Menu");
+        JProgressBar progresso = new JProgressBar();
 
         int row = 0;
 
@@ -151,9 +173,15 @@ public class SwingMain {
         c.gridx = 0; c.gridy = row; c.gridwidth = 2;
         panel.add(btnAgendar, c);
 
+        c.gridy++;
+        panel.add(progresso, c);
+
         c.gridy++;
         panel.add(btnVoltar, c);
 
+        var chamada = new ChamadaAssincrona(panel, progresso,
+                txtPaciente, txtMedico, txtInicio, txtDuracao, btnAgendar, btnVoltar);
+
         btnAgendar.addActionListener(e -> {
             try {
                 long pacienteId = Long.parseLong(txtPaciente.getText().trim());
@@ -163,16 +191,16 @@ public class SwingMain {
                 LocalDateTime fim = inicio.plusMinutes(duracaoMin);
 
                 var consulta = new Consulta(null, pacienteId, medicoId, inicio, fim);
-                Long id = service.agendar(consulta);
-
-                JOptionPane.showMessageDialog(panel, "Consulta agendada com sucesso!\nID = " + id,
-                        "Sucesso", JOptionPane.INFORMATION_MESSAGE);
-
-                // Limpa campos
-                txtPaciente.setText("");
-                txtMedico.setText("");
-                txtInicio.setText("");
-                txtDuracao.setText("");
+                chamada.executar(() -> service.agendar(consulta), id -> {
+                    JOptionPane.showMessageDialog(panel, "Consulta agendada com sucesso!\nID = " + id,
+                            "Sucesso", JOptionPane.INFORMATION_MESSAGE);
+
+                    // Limpa campos
+                    txtPaciente.setText("");
+                    txtMedico.setText("");
+                    txtInicio.setText("");
+                    txtDuracao.setText("");
+                });
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(panel, "Erro: " + ex.getMessage(),
                         "Erro", JOptionPane.ERROR_MESSAGE);
@@ -198,6 +226,7 @@ public class SwingMain {
         txtEmail.setToolTipText("Email válido do paciente");
         JButton btnCadastrar = new JButton("Cadastrar Paciente");
         JButton btnVoltar = new JButton("Voltar ao Menu");
+        JProgressBar progresso = new JProgressBar();
 
         int row = 0;
 
@@ -222,26 +251,26 @@ public class SwingMain {
         c.gridx = 0; c.gridy = row; c.gridwidth = 2;
         panel.add(btnCadastrar, c);
 
+        c.gridy++;
+        panel.add(progresso, c);
+
         c.gridy++;
         panel.add(btnVoltar, c);
 
-        btnCadastrar.addActionListener(e -> {
-            try {
-                String nome = txtNome.getText().trim();
-                String email = txtEmail.getText().trim();
+        var chamada = new ChamadaAssincrona(panel, progresso, txtNome, txtEmail, btnCadastrar, btnVoltar);
 
-                Long id = service.cadastrar(nome, email);
+        btnCadastrar.addActionListener(e -> {
+            String nome = txtNome.getText().trim();
+            String email = txtEmail.getText().trim();
 
+            chamada.executar(() -> service.cadastrar(nome, email), id -> {
                 JOptionPane.showMessageDialog(panel, "Paciente cadastrado com sucesso!\nID = " + id,
                         "Sucesso", JOptionPane.INFORMATION_MESSAGE);
 
                 // Limpa campos
                 txtNome.setText("");
                 txtEmail.setText("");
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(panel, "Erro: " + ex.getMessage(),
-                        "Erro", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         });
 
         btnVoltar.addActionListener(e -> ((CardLayout) mainPanel.getLayout()).show(mainPanel, "MENU"));
@@ -263,6 +292,7 @@ public class SwingMain {
         txtCrm.setToolTipText("CRM no formato CRM12345");
         JButton btnCadastrar = new JButton("Cadastrar Médico");
         JButton btnVoltar = new JButton("Voltar ao Menu");
+        JProgressBar progresso = new JProgressBar();
 
         int row = 0;
 
@@ -287,22 +317,114 @@ public class SwingMain {
         c.gridx = 0; c.gridy = row; c.gridwidth = 2;
         panel.add(btnCadastrar, c);
 
+        c.gridy++;
+        panel.add(progresso, c);
+
         c.gridy++;
         panel.add(btnVoltar, c);
 
-        btnCadastrar.addActionListener(e -> {
-            try {
-                String nome = txtNome.getText().trim();
-                String crm = txtCrm.getText().trim();
+        var chamada = new ChamadaAssincrona(panel, progresso, txtNome, txtCrm, btnCadastrar, btnVoltar);
 
-                Long id = service.cadastrar(nome, crm);
+        btnCadastrar.addActionListener(e -> {
+            String nome = txtNome.getText().trim();
+            String crm = txtCrm.getText().trim();
 
+            chamada.executar(() -> service.cadastrar(nome, crm), id -> {
                 JOptionPane.showMessageDialog(panel, "Médico cadastrado com sucesso!\nID = " + id,
                         "Sucesso", JOptionPane.INFORMATION_MESSAGE);
 
                 // Limpa campos
                 txtNome.setText("");
                 txtCrm.setText("");
+            });
+        });
+
+        btnVoltar.addActionListener(e -> ((CardLayout) mainPanel.getLayout()).show(mainPanel, "MENU"));
+
+        return panel;
+    }
+
+    private static JPanel criarTelaAgendaDoDia(JPanel mainPanel, ConsultaJdbcRepository repo) {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 12, 10, 12));
+
+        GridBagConstraints c = new GridBagConstraints();
+        c.insets = new Insets(6, 6, 6, 6);
+        c.fill = GridBagConstraints.HORIZONTAL;
+
+        JTextField txtMedico = new JTextField(10);
+        txtMedico.setToolTipText("Vazio para todos os médicos");
+        JTextField txtData = new JTextField(LocalDate.now().format(DATA), 10);
+        txtData.setToolTipText("Formato: dd/MM/yyyy");
+        JButton btnConsultar = new JButton("Consultar");
+        JButton btnVoltar = new JButton("Voltar ao Menu");
+        JProgressBar progresso = new JProgressBar();
+
+        DefaultTableModel modelo = new DefaultTableModel(
+                new Object[]{"Horário", "Médico", "Paciente", "Email"}, 0) {
+            @Override
+            public boolean isCellEditable(int linha, int coluna) {
+                return false;
+            }
+        };
+        JTable tabela = new JTable(modelo);
+
+        int row = 0;
+
+        // Título
+        JLabel titulo = new JLabel("Agenda do Dia", SwingConstants.CENTER);
+        titulo.setFont(new Font("Arial", Font.BOLD, 18));
+        c.gridx = 0; c.gridy = row++; c.gridwidth = 2;
+        panel.add(titulo, c);
+
+        c.gridwidth = 1;
+
+        c.gridx = 0; c.gridy = row; c.weightx = 0;
+        panel.add(new JLabel("ID Médico:"), c);
+        c.gridx = 1; c.gridy = row++; c.weightx = 1.0;
+        panel.add(txtMedico, c);
+
+        c.gridx = 0; c.gridy = row; c.weightx = 0;
+        panel.add(new JLabel("Data:"), c);
+        c.gridx = 1; c.gridy = row++; c.weightx = 1.0;
+        panel.add(txtData, c);
+
+        c.gridx = 0; c.gridy = row++; c.gridwidth = 2;
+        panel.add(btnConsultar, c);
+
+        c.gridy = row++;
+        panel.add(progresso, c);
+
+        c.gridy = row++; c.weighty = 1.0; c.fill = GridBagConstraints.BOTH;
+        panel.add(new JScrollPane(tabela), c);
+
+        c.gridy = row; c.weighty = 0; c.fill = GridBagConstraints.HORIZONTAL;
+        panel.add(btnVoltar, c);
+
+        var chamada = new ChamadaAssincrona(panel, progresso, txtMedico, txtData, btnConsultar, btnVoltar);
+
+        btnConsultar.addActionListener(e -> {
+            try {
+                String medico = txtMedico.getText().trim();
+                LocalDateTime inicio = LocalDate.parse(txtData.getText().trim(), DATA).atStartOfDay();
+                LocalDateTime fim = inicio.plusDays(1);
+                Long medicoId = medico.isEmpty() ? null : Long.parseLong(medico);
+
+                // Uma ida ao banco: consultas, médicos e pacientes no mesmo JOIN
+                chamada.executar(() -> medicoId == null
+                        ? repo.listarAgenda(inicio, fim)
+                        : repo.listarAgenda(medicoId, inicio, fim), (List<LinhaAgenda> agenda) -> {
+                    modelo.setRowCount(0);
+                    for (LinhaAgenda l : agenda) {
+                        modelo.addRow(new Object[]{
+                                l.inicio().toLocalTime() + " - " + l.fim().toLocalTime(),
+                                l.medicoNome(), l.pacienteNome(), l.pacienteEmail()});
+                    }
+                    if (agenda.isEmpty()) {
+                        JOptionPane.showMessageDialog(panel, "Nenhuma consulta no dia.",
+                                "Agenda", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                });
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(panel, "Erro: " + ex.getMessage(),
                         "Erro", JOptionPane.ERROR_MESSAGE);
@@ -313,5 +435,4 @@ public class SwingMain {
 
         return panel;
     }
-
 }
@@ -0,0 +1,158 @@
+package com.example.clinic.domain.service;
+
+import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.dao.jdbc.ConsultaJdbcRepository;
+import com.example.clinic.domain.Consulta;
+import com.example.clinic.service.AgendaService;
+import com.example.clinic.service.IndiceAgenda;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AgendaServiceConcorrenciaTest {
+
+    private static final Logger LOG = Logger.getLogger(AgendaServiceConcorrenciaTest.class.getName());
+
+    private static final int MEDICOS = 5;
+    private static final int THREADS = 16;
+    private static final int PEDIDOS = 4000;
+    private static final int DIAS = 20;
+
+    @BeforeAll
+    static void prepararBanco() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:agenda_concorrencia;MODE=Oracle;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        config.setMaximumPoolSize(THREADS);
+        OracleConnectionFactory.usarDataSource(new HikariDataSource(config));
+
+        try (Connection con = OracleConnectionFactory.getConnection();
+             Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE pacientes (id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "nome VARCHAR2(120) NOT NULL, email VARCHAR2(120) NOT NULL UNIQUE, versao NUMBER DEFAULT 0 NOT NULL)");
+            st.execute("CREATE TABLE medicos (id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "nome VARCHAR2(120) NOT NULL, crm VARCHAR2(20) NOT NULL UNIQUE, versao NUMBER DEFAULT 0 NOT NULL)");
+            st.execute("CREATE SEQUENCE consultas_seq");
+            st.execute("CREATE TABLE consultas (id NUMBER DEFAULT consultas_seq.NEXTVAL PRIMARY KEY, " +
+                    "paciente_id NUMBER NOT NULL REFERENCES pacientes(id), medico_id NUMBER NOT NULL REFERENCES medicos(id), " +
+                    "inicio TIMESTAMP NOT NULL, fim TIMESTAMP NOT NULL, versao NUMBER DEFAULT 0 NOT NULL, CONSTRAINT chk_intervalo CHECK (fim > inicio))");
+            st.execute("INSERT INTO pacientes (nome, email) VALUES ('Paciente Teste', 'teste@email.com')");
+            for (int i = 1; i <= MEDICOS; i++) {
+                st.execute("INSERT INTO medicos (nome, crm) VALUES ('Medico " + i + "', 'CRM1000" + i + "')");
+            }
+        }
+    }
+
+    @AfterAll
+    static void fecharBanco() {
+        OracleConnectionFactory.fechar();
+    }
+
+    @BeforeEach
+    void limparConsultas() throws Exception {
+        try (Connection con = OracleConnectionFactory.getConnection();
+             Statement st = con.createStatement()) {
+            st.execute("DELETE FROM consultas");
+        }
+    }
+
+    @Test
+    void naoDevePermitirChoqueDeHorarioComAgendamentosConcorrentes() throws Exception {
+        ConsultaJdbcRepository repo = new ConsultaJdbcRepository();
+        // Duas instâncias simulam dois servidores: a trava local de uma não protege a outra,
+        // então a garantia precisa vir do banco
+        AgendaService servidorA = new AgendaService(repo);
+        AgendaService servidorB = new AgendaService(new ConsultaJdbcRepository());
+        agendarConcorrentesSemChoque(repo, servidorA, servidorB);
+    }
+
+    @Test
+    void naoDevePermitirChoqueDeHorarioEntreInstanciasComIndiceDeAgenda() throws Exception {
+        // Cada instância tem seu índice, sem expiração, e só ouve as próprias gravações: as da outra
+        // instância só aparecem na confirmação feita no banco
+        ConsultaJdbcRepository repoA = new ConsultaJdbcRepository();
+        ConsultaJdbcRepository repoB = new ConsultaJdbcRepository();
+        IndiceAgenda indiceA = new IndiceAgenda(repoA, Duration.ZERO);
+        IndiceAgenda indiceB = new IndiceAgenda(repoB, Duration.ZERO);
+        repoA.adicionarOuvinte(indiceA);
+        repoB.adicionarOuvinte(indiceB);
+        agendarConcorrentesSemChoque(repoA,
+                new AgendaService(repoA, repoA, indiceA), new AgendaService(repoB, repoB, indiceB));
+    }
+
+    private void agendarConcorrentesSemChoque(ConsultaJdbcRepository repo, AgendaService servidorA,
+                                              AgendaService servidorB) throws Exception {
+        LocalDate primeiroDia = LocalDate.now().plusDays(2);
+        AtomicInteger aceitas = new AtomicInteger();
+        AtomicInteger recusadas = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> tarefas = new ArrayList<>();
+        long inicioTeste = System.nanoTime();
+        for (int i = 0; i < PEDIDOS; i++) {
+            AgendaService servico = (i % 2 == 0) ? servidorA : servidorB;
+            tarefas.add(pool.submit(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                long medicoId = 1 + rnd.nextInt(MEDICOS);
+                LocalDate dia = primeiroDia.plusDays(rnd.nextInt(DIAS));
+                // janelas de 15 min entre 08:00 e 17:00, duração de 15 a 60 min: muitos pedidos se sobrepõem
+                LocalDateTime inicio = LocalDateTime.of(dia, LocalTime.of(8, 0)).plusMinutes(15L * rnd.nextInt(37));
+                LocalDateTime fim = inicio.plusMinutes(15L * (1 + rnd.nextInt(4)));
+                try {
+                    servico.agendar(new Consulta(null, 1L, medicoId, inicio, fim));
+                    aceitas.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    recusadas.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> t : tarefas) {
+            t.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        double segundos = (System.nanoTime() - inicioTeste) / 1e9;
+        LOG.info(String.format("Agendamentos concorrentes: %d pedidos em %.2fs (%.0f/s), %d aceitos, %d recusados",
+                PEDIDOS, segundos, PEDIDOS / segundos, aceitas.get(), recusadas.get()));
+
+        List<Consulta> gravadas = repo.listarTodas();
+        assertEquals(PEDIDOS, aceitas.get() + recusadas.get());
+        assertEquals(aceitas.get(), gravadas.size());
+        assertTrue(recusadas.get() > 0, "o cenário deveria gerar conflitos");
+
+        Map<Long, List<Consulta>> porMedico = gravadas.stream()
+                .collect(Collectors.groupingBy(Consulta::getMedicoId));
+        for (List<Consulta> agenda : porMedico.values()) {
+            agenda.sort(Comparator.comparing(Consulta::getInicio));
+            for (int i = 1; i < agenda.size(); i++) {
+                Consulta anterior = agenda.get(i - 1);
+                Consulta atual = agenda.get(i);
+                assertFalse(atual.getInicio().isBefore(anterior.getFim()),
+                        "consultas " + anterior.getId() + " e " + atual.getId() + " se sobrepõem");
+            }
+        }
+    }
+}
@@ -5,11 +5,20 @@ import com.example.clinic.service.AgendaService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class AgendaServiceTest {
@@ -56,4 +65,114 @@ public class AgendaServiceTest {
 
         assertThrows(IllegalArgumentException.class, () -> service.agendar(c));
     }
+
+    @Test
+    void deveAgendarEmLoteInformandoResultadoPorItem() {
+        AgendaService.ConsultaRepository repo = Mockito.mock(AgendaService.ConsultaRepository.class);
+        AgendaService service = new AgendaService(repo);
+
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        Consulta valida = new Consulta(null, 1L, 10L, base, base.plusMinutes(30));
+        Consulta curta = new Consulta(null, 2L, 10L, base.plusHours(1), base.plusHours(1).plusMinutes(5));
+        Consulta choqueNoLote = new Consulta(null, 3L, 10L, base.plusMinutes(15), base.plusMinutes(45));
+        Consulta choqueNoBanco = new Consulta(null, 4L, 20L, base, base.plusMinutes(30));
+        Consulta outroMedico = new Consulta(null, 5L, 20L, base.plusHours(2), base.plusHours(2).plusMinutes(30));
+
+        Consulta existente = new Consulta(99L, 9L, 20L, base.minusMinutes(15), base.plusMinutes(15));
+        when(repo.listarPorMedicoNoIntervalo(eq(10L), any(), any())).thenReturn(Collections.emptyList());
+        when(repo.listarPorMedicoNoIntervalo(eq(20L), any(), any())).thenReturn(List.of(existente));
+        when(repo.salvarEmLote(List.of(valida))).thenReturn(List.of(100L));
+        when(repo.salvarEmLote(List.of(outroMedico))).thenReturn(List.of(101L));
+
+        List<AgendaService.ResultadoLote> r = service.agendarEmLote(
+                List.of(valida, curta, choqueNoLote, choqueNoBanco, outroMedico));
+
+        assertEquals(100L, r.get(0).id());
+        assertFalse(r.get(1).aceita());
+        assertEquals("Conflita com outra consulta do mesmo lote", r.get(2).motivoRecusa());
+        assertEquals("Médico já possui consulta no horário", r.get(3).motivoRecusa());
+        assertEquals(101L, r.get(4).id());
+        // Uma única consulta de intervalo por médico
+        verify(repo, times(1)).listarPorMedicoNoIntervalo(eq(10L), any(), any());
+        verify(repo, times(1)).listarPorMedicoNoIntervalo(eq(20L), any(), any());
+    }
+
+    @Test
+    void deveAgendarSerieRecorrenteComUmaConsultaDeIntervaloEGravacaoEmLote() {
+        AgendaService.ConsultaRepository repo = Mockito.mock(AgendaService.ConsultaRepository.class);
+        AgendaService service = new AgendaService(repo);
+
+        LocalDateTime inicio = LocalDateTime.now().plusDays(1).withHour(17).withMinute(30).withSecond(0).withNano(0);
+        LocalDateTime terceira = inicio.plusWeeks(4);
+        Consulta ocupada = new Consulta(77L, 9L, 10L, terceira, terceira.plusMinutes(30));
+        when(repo.listarPorMedicoNoIntervalo(eq(10L), any(), any())).thenReturn(List.of(ocupada));
+        when(repo.salvarEmLote(any())).thenReturn(List.of(1L, 2L, 3L));
+
+        List<AgendaService.ResultadoLote> resultados =
+                service.agendarRecorrente(1L, 10L, inicio, 30, AgendaService.Recorrencia.QUINZENAL, 4);
+
+        assertEquals(4, resultados.size());
+        assertEquals(List.of(inicio, inicio.plusWeeks(2), terceira, inicio.plusWeeks(6)),
+                resultados.stream().map(r -> r.consulta().getInicio()).toList());
+        assertEquals(List.of(true, true, false, true), resultados.stream().map(AgendaService.ResultadoLote::aceita).toList());
+        assertEquals("Médico já possui consulta no horário", resultados.get(2).motivoRecusa());
+        verify(repo, times(1)).listarPorMedicoNoIntervalo(10L, inicio, inicio.plusWeeks(6).plusMinutes(30));
+        verify(repo, times(1)).salvarEmLote(any());
+
+        // Fora do horário comercial: recusada pela validação, sem ir ao banco
+        List<AgendaService.ResultadoLote> longas =
+                service.agendarRecorrente(1L, 10L, inicio, 45, AgendaService.Recorrencia.SEMANAL, 2);
+        assertTrue(longas.stream().noneMatch(AgendaService.ResultadoLote::aceita));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.agendarRecorrente(1L, 10L, inicio, 30, AgendaService.Recorrencia.MENSAL, 0));
+    }
+
+    @Test
+    void deveListarHorariosLivresComUmaUnicaConsultaAoBanco() {
+        AgendaService.ConsultaRepository repo = Mockito.mock(AgendaService.ConsultaRepository.class);
+        AgendaService service = new AgendaService(repo);
+
+        LocalDate dia = LocalDate.now().plusDays(2);
+        when(repo.listarPorMedicoNoIntervalo(eq(10L), any(), any())).thenReturn(List.of(
+                new Consulta(2L, 1L, 10L, dia.atTime(10, 0), dia.atTime(10, 50)),
+                new Consulta(1L, 1L, 10L, dia.atTime(8, 0), dia.atTime(9, 0)),
+                new Consulta(3L, 1L, 10L, dia.atTime(11, 0), dia.atTime(17, 30))));
+
+        List<AgendaService.HorarioLivre> livres = service.buscarHorariosLivres(10L, dia, dia.plusDays(1), 30);
+
+        assertEquals(List.of(
+                new AgendaService.HorarioLivre(dia.atTime(9, 0), dia.atTime(10, 0)),
+                new AgendaService.HorarioLivre(dia.atTime(17, 30), dia.atTime(18, 0)),
+                new AgendaService.HorarioLivre(dia.plusDays(1).atTime(8, 0), dia.plusDays(1).atTime(18, 0))),
+                livres);
+        verify(repo, times(1)).listarPorMedicoNoIntervalo(eq(10L), any(), any());
+    }
+
+    @Test
+    void deveAgendarDeFormaAssincronaNoExecutorInformado() throws Exception {
+        AgendaService.ConsultaRepository repo = Mockito.mock(AgendaService.ConsultaRepository.class);
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "teste-async"));
+        try {
+            AgendaService service = new AgendaService(repo, null, null, executor);
+
+            LocalDateTime inicio = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+            Consulta c = new Consulta(null, 1L, 10L, inicio, inicio.plusMinutes(30));
+            when(repo.listarPorMedicoNoIntervalo(any(Long.class), any(), any())).thenReturn(Collections.emptyList());
+            when(repo.salvar(c)).thenAnswer(inv -> {
+                assertEquals("teste-async", Thread.currentThread().getName());
+                return 42L;
+            });
+
+            assertEquals(42L, service.agendarAsync(c).get(5, TimeUnit.SECONDS));
+
+            // Erros de validação chegam pelo future
+            Consulta curta = new Consulta(null, 1L, 10L, inicio, inicio.plusMinutes(5));
+            ExecutionException erro = assertThrows(ExecutionException.class,
+                    () -> service.agendarAsync(curta).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, erro.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 }
@@ -0,0 +1,41 @@
+package com.example.clinic.domain.service;
+
+import com.example.clinic.service.CacheLeitura;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheLeituraTest {
+
+    @Test
+    void deveEvitarNovaLeituraAteInvalidarOuDespejar() {
+        CacheLeitura<Long, String> cache = new CacheLeitura<>("teste", 2, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        AtomicInteger leituras = new AtomicInteger();
+
+        assertEquals("v1", cache.obter(1L, id -> { leituras.incrementAndGet(); return "v" + id; }));
+        assertEquals("v1", cache.obter(1L, id -> { leituras.incrementAndGet(); return "v" + id; }));
+        assertEquals(1, leituras.get());
+
+        // Busca sem resultado também fica guardada
+        assertNull(cache.obter(9L, id -> { leituras.incrementAndGet(); return null; }));
+        assertNull(cache.obter(9L, id -> { leituras.incrementAndGet(); return null; }));
+        assertEquals(2, leituras.get());
+
+        // Capacidade 2: a entrada 1 (menos usada recentemente) é despejada
+        cache.obter(3L, id -> "v" + id);
+        cache.obter(1L, id -> { leituras.incrementAndGet(); return "v" + id; });
+        assertEquals(3, leituras.get());
+
+        cache.invalidarSe("v1"::equals);
+        cache.obter(1L, id -> { leituras.incrementAndGet(); return "v" + id; });
+        assertEquals(4, leituras.get());
+
+        CacheLeitura.Estatisticas e = cache.estatisticas();
+        assertEquals(2, e.acertos());
+        assertEquals(5, e.falhas());
+        assertTrue(e.despejos() > 0);
+    }
+}
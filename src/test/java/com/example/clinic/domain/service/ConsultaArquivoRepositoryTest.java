@@ -0,0 +1,100 @@
+package com.example.clinic.domain.service;
+
+import com.example.clinic.dao.arquivo.ConsultaArquivoRepository;
+import com.example.clinic.domain.Consulta;
+import com.example.clinic.service.AgendaService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsultaArquivoRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    private final LocalDate dia = LocalDate.now().plusDays(3);
+
+    @Test
+    void deveAplicarAsRegrasDaAgendaEPersistirEntreAberturas() {
+        Long a, b;
+        try (ConsultaArquivoRepository repo = ConsultaArquivoRepository.abrir(dir, false, 1024)) {
+            AgendaService agenda = new AgendaService(repo);
+            a = agenda.agendar(new Consulta(null, 1L, 7L, dia.atTime(9, 0), dia.atTime(9, 30)));
+            b = agenda.agendar(new Consulta(null, 2L, 7L, dia.atTime(10, 0), dia.atTime(10, 30)));
+            assertThrows(IllegalStateException.class,
+                    () -> agenda.agendar(new Consulta(null, 3L, 7L, dia.atTime(9, 15), dia.atTime(9, 45))));
+            assertNotNull(agenda.agendar(new Consulta(null, 3L, 8L, dia.atTime(9, 15), dia.atTime(9, 45))));
+
+            assertThrows(IllegalStateException.class, () -> agenda.remarcar(a, dia.atTime(10, 15), dia.atTime(10, 45)));
+            agenda.remarcar(a, dia.atTime(11, 0), dia.atTime(11, 30));
+            agenda.cancelar(b);
+            assertThrows(IllegalStateException.class, () -> ConsultaArquivoRepository.abrir(dir, false, 1024));
+        }
+
+        try (ConsultaArquivoRepository repo = ConsultaArquivoRepository.abrir(dir, false, 1024)) {
+            List<Consulta> doDia = repo.listarPorMedicoNoIntervalo(7L, dia.atStartOfDay(), dia.plusDays(1).atStartOfDay());
+            assertEquals(1, doDia.size());
+            assertEquals(dia.atTime(11, 0), doDia.get(0).getInicio());
+            assertEquals(1, doDia.get(0).getVersao());
+            assertNull(repo.buscarPorId(b));
+            assertEquals(4L, repo.salvar(new Consulta(null, 1L, 7L, dia.atTime(14, 0), dia.atTime(14, 30))));
+        }
+    }
+
+    @Test
+    void deveRecuperarPeloLogAsGravacoesQueNaoChegaramAoArquivoDeDados(@TempDir Path copia) throws Exception {
+        try (ConsultaArquivoRepository repo = ConsultaArquivoRepository.abrir(dir, false, 1 << 20)) {
+            repo.salvarEmLote(List.of(
+                    new Consulta(null, 1L, 7L, dia.atTime(9, 0), dia.atTime(9, 30)),
+                    new Consulta(null, 2L, 7L, dia.atTime(10, 0), dia.atTime(10, 30))));
+            repo.cancelar(1L, dia.atStartOfDay());
+
+            // Simula uma queda: o arquivo de dados volta zerado, o log fica com uma entrada pela metade no fim
+            Files.write(copia.resolve("consultas.dat"), new byte[(int) Files.size(dir.resolve("consultas.dat"))]);
+            Files.copy(dir.resolve("consultas.log"), copia.resolve("consultas.log"));
+            Files.write(copia.resolve("consultas.log"), new byte[] {0, 0, 0, 3, 1, 2, 3}, StandardOpenOption.APPEND);
+        }
+
+        try (ConsultaArquivoRepository recuperado = ConsultaArquivoRepository.abrir(copia, false, 1 << 20)) {
+            assertNull(recuperado.buscarPorId(1L));
+            assertEquals(dia.atTime(10, 0), recuperado.buscarPorId(2L).getInicio());
+            assertEquals(1, recuperado.listarPorMedicoNoIntervalo(7L, dia.atStartOfDay(), dia.plusDays(1).atStartOfDay()).size());
+            assertEquals(3L, recuperado.salvar(new Consulta(null, 1L, 7L, dia.atTime(11, 0), dia.atTime(11, 30))));
+        }
+    }
+
+    @Test
+    void deveGuardarHorariosComSegundosEFracoesSemArredondar() {
+        LocalDateTime fimComSegundos = dia.atTime(10, 30, 30);
+        LocalDateTime fimComNanos = dia.atTime(12, 0).plusNanos(500_000_000);
+        Long a, b;
+        try (ConsultaArquivoRepository repo = ConsultaArquivoRepository.abrir(dir, false, 1024)) {
+            AgendaService agenda = new AgendaService(repo);
+            a = agenda.agendar(new Consulta(null, 1L, 7L, dia.atTime(10, 0), fimComSegundos));
+            // Termina 30 segundos depois das 10:30: choca com quem começa às 10:30
+            assertThrows(IllegalStateException.class,
+                    () -> agenda.agendar(new Consulta(null, 2L, 7L, dia.atTime(10, 30), dia.atTime(10, 45))));
+            assertNotNull(agenda.agendar(new Consulta(null, 2L, 7L, fimComSegundos, dia.atTime(10, 50))));
+
+            // Meio segundo depois das 12:00: sem os nanossegundos terminaria às 12:00 em ponto
+            b = agenda.agendar(new Consulta(null, 3L, 7L, dia.atTime(11, 30), fimComNanos));
+            assertThrows(IllegalStateException.class,
+                    () -> agenda.agendar(new Consulta(null, 4L, 7L, dia.atTime(12, 0), dia.atTime(12, 15))));
+        }
+
+        try (ConsultaArquivoRepository repo = ConsultaArquivoRepository.abrir(dir, false, 1024)) {
+            assertEquals(fimComSegundos, repo.buscarPorId(a).getFim());
+            assertEquals(fimComNanos, repo.buscarPorId(b).getFim());
+            assertThrows(IllegalStateException.class, () -> new AgendaService(repo)
+                    .agendar(new Consulta(null, 4L, 7L, dia.atTime(12, 0), dia.atTime(12, 15))));
+        }
+    }
+}
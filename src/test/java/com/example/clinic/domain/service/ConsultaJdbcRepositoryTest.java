@@ -0,0 +1,240 @@
+package com.example.clinic.domain.service;
+
+import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.dao.jdbc.ConsultaJdbcRepository;
+import com.example.clinic.dao.jdbc.LinhaAgenda;
+import com.example.clinic.dao.jdbc.OcupacaoPorHora;
+import com.example.clinic.dao.jdbc.RelatorioDao;
+import com.example.clinic.diario.Alteracao;
+import com.example.clinic.diario.CapturaAlteracoes;
+import com.example.clinic.diario.DiarioAlteracoes;
+import com.example.clinic.domain.Consulta;
+import com.example.clinic.service.AgendaService;
+import com.example.clinic.service.ArquivadorConsultas;
+import com.example.clinic.service.IndiceAgenda;
+import com.example.clinic.service.RelatorioService;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsultaJdbcRepositoryTest {
+
+    private static final LocalDate DIA = LocalDate.of(2030, 3, 4);
+
+    @BeforeAll
+    static void prepararBanco() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:consultas_jdbc;MODE=Oracle;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(2);
+        OracleConnectionFactory.usarDataSource(new HikariDataSource(config));
+
+        try (Connection con = OracleConnectionFactory.getConnection();
+             Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE pacientes (id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "nome VARCHAR2(120) NOT NULL, email VARCHAR2(120) NOT NULL UNIQUE, versao NUMBER DEFAULT 0 NOT NULL)");
+            st.execute("CREATE TABLE medicos (id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "nome VARCHAR2(120) NOT NULL, crm VARCHAR2(20) NOT NULL UNIQUE, versao NUMBER DEFAULT 0 NOT NULL)");
+            st.execute("CREATE SEQUENCE consultas_seq");
+            st.execute("CREATE TABLE consultas (id NUMBER DEFAULT consultas_seq.NEXTVAL PRIMARY KEY, " +
+                    "paciente_id NUMBER NOT NULL REFERENCES pacientes(id), medico_id NUMBER NOT NULL REFERENCES medicos(id), " +
+                    "inicio TIMESTAMP NOT NULL, fim TIMESTAMP NOT NULL, versao NUMBER DEFAULT 0 NOT NULL, CONSTRAINT chk_intervalo CHECK (fim > inicio))");
+            st.execute("CREATE TABLE consultas_historico (id NUMBER PRIMARY KEY, paciente_id NUMBER NOT NULL, " +
+                    "medico_id NUMBER NOT NULL, inicio TIMESTAMP NOT NULL, fim TIMESTAMP NOT NULL, versao NUMBER DEFAULT 0 NOT NULL)");
+            st.execute("INSERT INTO pacientes (nome, email) VALUES ('Ana', 'ana@email.com')");
+            st.execute("INSERT INTO pacientes (nome, email) VALUES ('Bruno', 'bruno@email.com')");
+            st.execute("INSERT INTO medicos (nome, crm) VALUES ('Dr. Carlos', 'CRM10001')");
+            st.execute("INSERT INTO medicos (nome, crm) VALUES ('Dra. Beatriz', 'CRM10002')");
+        }
+
+        ConsultaJdbcRepository repo = new ConsultaJdbcRepository();
+        repo.salvar(new Consulta(null, 2L, 1L, DIA.atTime(10, 0), DIA.atTime(10, 30)));
+        repo.salvar(new Consulta(null, 1L, 1L, DIA.atTime(9, 0), DIA.atTime(9, 30)));
+        repo.salvar(new Consulta(null, 1L, 2L, DIA.atTime(9, 0), DIA.atTime(9, 45)));
+        repo.salvar(new Consulta(null, 2L, 2L, DIA.plusDays(1).atTime(9, 0), DIA.plusDays(1).atTime(9, 30)));
+    }
+
+    @AfterAll
+    static void fecharBanco() {
+        OracleConnectionFactory.fechar();
+    }
+
+    @Test
+    void deveMontarAgendaDoDiaComNomesEmUmaConsulta() {
+        ConsultaJdbcRepository repo = new ConsultaJdbcRepository();
+        LocalDateTime inicio = DIA.atStartOfDay();
+
+        List<LinhaAgenda> doMedico = repo.listarAgenda(1L, inicio, inicio.plusDays(1));
+        assertEquals(List.of("Ana", "Bruno"), doMedico.stream().map(LinhaAgenda::pacienteNome).toList());
+        assertEquals("CRM10001", doMedico.get(0).medicoCrm());
+        assertEquals(DIA.atTime(9, 30), doMedico.get(0).fim());
+
+        // Todos os médicos: ordenado por nome do médico e horário
+        List<LinhaAgenda> geral = repo.listarAgenda(inicio, inicio.plusDays(1));
+        assertEquals(List.of("Dr. Carlos", "Dr. Carlos", "Dra. Beatriz"),
+                geral.stream().map(LinhaAgenda::medicoNome).toList());
+        assertEquals("ana@email.com", geral.get(2).pacienteEmail());
+    }
+
+    @Test
+    void deveGravarLoteComIdsReservadosNaSequencia() {
+        ConsultaJdbcRepository repo = new ConsultaJdbcRepository();
+        LocalDate dia = LocalDate.of(2032, 5, 3);
+        List<Consulta> lote = List.of(
+                new Consulta(null, 1L, 2L, dia.atTime(9, 0), dia.atTime(9, 30)),
+                new Consulta(null, 2L, 2L, dia.atTime(10, 0), dia.atTime(10, 30)),
+                new Consulta(null, 1L, 2L, dia.atTime(11, 0), dia.atTime(11, 30)));
+
+        List<Long> ids = repo.salvarEmLote(lote);
+        assertEquals(3, ids.size());
+        for (int i = 0; i < lote.size(); i++) {
+            assertEquals(lote.get(i).getInicio(), repo.buscarPorId(ids.get(i)).getInicio());
+        }
+        // O INSERT simples usa a mesma sequência como DEFAULT: não colide com os ids do lote
+        Long avulsa = repo.salvar(new Consulta(null, 2L, 2L, dia.atTime(14, 0), dia.atTime(14, 30)));
+        assertFalse(ids.contains(avulsa));
+        assertEquals(4, repo.listarPorMedicoNoIntervalo(2L, dia.atStartOfDay(), dia.plusDays(1).atStartOfDay()).size());
+    }
+
+    @Test
+    void deveArquivarEmBlocosEContinuarLegivelPeloHistorico() {
+        ConsultaJdbcRepository repo = new ConsultaJdbcRepository();
+        LocalDate antigo = LocalDate.of(2020, 1, 6);
+        for (int i = 0; i < 7; i++) {
+            LocalDateTime inicio = antigo.plusDays(i).atTime(9, 0);
+            repo.salvar(new Consulta(null, 1L, 2L, inicio, inicio.plusMinutes(30)));
+        }
+
+        // Blocos de 3: 3 + 3 + 1, cada um com seu commit
+        var arquivador = new ArquivadorConsultas(repo, Duration.ZERO, 3, 0);
+        assertEquals(7, arquivador.arquivarAntesDe(LocalDate.of(2021, 1, 1).atStartOfDay()));
+        assertEquals(0, arquivador.arquivarAntesDe(LocalDate.of(2021, 1, 1).atStartOfDay()));
+
+        LocalDateTime de = antigo.atStartOfDay();
+        LocalDateTime ate = DIA.plusDays(1).atStartOfDay();
+        assertTrue(repo.listarPorMedicoNoIntervalo(2L, de, antigo.plusDays(10).atStartOfDay()).isEmpty());
+        List<Consulta> comHistorico = repo.listarPorMedicoComHistorico(2L, de, ate);
+        assertEquals(8, comHistorico.size());
+        assertEquals(antigo.atTime(9, 0), comHistorico.get(0).getInicio());
+        assertEquals(DIA.atTime(9, 0), comHistorico.get(7).getInicio());
+    }
+
+    @Test
+    void deveAgregarUtilizacaoNoBancoIncluindoHistorico() throws Exception {
+        ConsultaJdbcRepository repo = new ConsultaJdbcRepository();
+        LocalDate segunda = LocalDate.of(2031, 3, 3);
+        repo.salvar(new Consulta(null, 1L, 1L, segunda.atTime(9, 0), segunda.atTime(9, 30)));
+        repo.salvar(new Consulta(null, 2L, 1L, segunda.atTime(9, 30), segunda.atTime(10, 0)));
+        repo.salvar(new Consulta(null, 1L, 1L, segunda.atTime(11, 0), segunda.atTime(12, 0)));
+        repo.salvar(new Consulta(null, 1L, 1L, segunda.plusDays(2).atTime(14, 0), segunda.plusDays(2).atTime(14, 45)));
+        repo.salvar(new Consulta(null, 2L, 2L, segunda.plusDays(1).atTime(8, 0), segunda.plusDays(1).atTime(8, 15)));
+        try (Connection con = OracleConnectionFactory.getConnection();
+             Statement st = con.createStatement()) {
+            st.execute("INSERT INTO consultas_historico (id, paciente_id, medico_id, inicio, fim) " +
+                    "VALUES (900, 1, 2, TIMESTAMP '2031-03-04 10:00:00', TIMESTAMP '2031-03-04 10:30:00')");
+        }
+        RelatorioService relatorios = new RelatorioService(new RelatorioDao());
+
+        List<RelatorioService.Utilizacao> porDia;
+        try (Stream<RelatorioService.Utilizacao> linhas =
+                     relatorios.utilizacao(RelatorioService.Periodo.DIA, segunda, segunda.plusDays(6))) {
+            porDia = linhas.toList();
+        }
+        assertEquals(3, porDia.size());
+        var primeira = porDia.get(0).dados();
+        assertEquals(segunda, primeira.periodo());
+        assertEquals(3, primeira.consultas());
+        assertEquals(120, primeira.minutosAgendados());
+        assertEquals(60, primeira.minutosEntreConsultas());
+        assertEquals(1, primeira.consultasEmSequencia());
+        assertEquals(20.0, porDia.get(0).percentual(), 0.001);
+        var historico = porDia.get(2).dados();
+        assertEquals(2, historico.medicoId());
+        assertEquals(45, historico.minutosAgendados());
+        assertEquals(105, historico.minutosEntreConsultas());
+
+        // Semana começa na segunda; a capacidade só conta os dias pedidos (quarta a domingo)
+        try (Stream<RelatorioService.Utilizacao> linhas =
+                     relatorios.utilizacao(RelatorioService.Periodo.SEMANA, segunda.plusDays(2), segunda.plusDays(6))) {
+            RelatorioService.Utilizacao semana = linhas.toList().get(0);
+            assertEquals(segunda, semana.dados().periodo());
+            assertEquals(45, semana.dados().minutosAgendados());
+            assertEquals(5 * 600, semana.capacidadeMinutos());
+        }
+
+        List<OcupacaoPorHora> porHora = relatorios.ocupacaoPorHora(segunda, segunda.plusDays(6));
+        assertEquals(List.of(8, 9, 10, 11, 14), porHora.stream().map(OcupacaoPorHora::hora).toList());
+        assertEquals(2, porHora.get(1).consultas());
+        assertEquals(60, porHora.get(1).minutosAgendados());
+    }
+
+    @Test
+    void deveRemarcarECancelarMantendoOIndiceDeAgenda() {
+        ConsultaJdbcRepository repo = new ConsultaJdbcRepository();
+        IndiceAgenda indice = new IndiceAgenda(repo, Duration.ZERO);
+        repo.adicionarOuvinte(indice);
+        AgendaService comIndice = new AgendaService(repo, repo, indice);
+        AgendaService semIndice = new AgendaService(repo);
+
+        LocalDate dia = LocalDate.now().plusDays(3);
+        Long a = comIndice.agendar(new Consulta(null, 1L, 1L, dia.atTime(9, 0), dia.atTime(9, 30)));
+        Long b = comIndice.agendar(new Consulta(null, 2L, 1L, dia.atTime(10, 0), dia.atTime(10, 30)));
+
+        assertThrows(IllegalStateException.class, () -> comIndice.remarcar(a, dia.atTime(10, 15), dia.atTime(10, 45)));
+        // Sobrepor o próprio horário é permitido: a consulta não conflita consigo mesma
+        comIndice.remarcar(a, dia.atTime(9, 15), dia.atTime(9, 45));
+        assertEquals(dia.atTime(9, 15), repo.buscarPorId(a).getInicio());
+        assertNotNull(comIndice.agendar(new Consulta(null, 2L, 1L, dia.atTime(8, 45), dia.atTime(9, 15))));
+
+        // Sem índice, o choque é detectado pelo próprio UPDATE condicional
+        IllegalStateException choque = assertThrows(IllegalStateException.class,
+                () -> semIndice.remarcar(b, dia.atTime(9, 30), dia.atTime(10, 0)));
+        assertEquals("Médico já possui consulta no horário", choque.getMessage());
+        assertEquals(dia.atTime(10, 0), repo.buscarPorId(b).getInicio());
+
+        comIndice.cancelar(b);
+        assertNull(repo.buscarPorId(b));
+        assertNotNull(comIndice.agendar(new Consulta(null, 1L, 1L, dia.atTime(10, 0), dia.atTime(10, 30))));
+        assertThrows(IllegalArgumentException.class, () -> comIndice.cancelar(b));
+    }
+
+    @Test
+    void deveAvisarOuvintesEDiarioSoQuandoADelecaoRemoveuALinha(@TempDir Path dir) {
+        ConsultaJdbcRepository repo = new ConsultaJdbcRepository();
+        List<Long> removidas = new ArrayList<>();
+        repo.adicionarOuvinte(new ConsultaJdbcRepository.OuvinteConsultas() {
+            @Override public void aoSalvar(Consulta consulta) {}
+            @Override public void aoAtualizar(Consulta consulta) {}
+            @Override public void aoDeletar(long consultaId) { removidas.add(consultaId); }
+        });
+        Long id = repo.salvar(new Consulta(null, 1L, 2L, DIA.plusDays(1).atTime(11, 0), DIA.plusDays(1).atTime(11, 30)));
+
+        CapturaAlteracoes.usar(DiarioAlteracoes.abrir(dir, 16, false));
+        try {
+            repo.deletar(id);
+            // Já removida: nada a avisar nem a registrar
+            repo.deletar(id);
+            repo.deletar(999_999L);
+
+            assertEquals(List.of(id), removidas);
+            List<Alteracao> lidas = CapturaAlteracoes.atual().leitor(0).ler(10);
+            assertEquals(List.of(Alteracao.Tipo.REMOCAO), lidas.stream().map(Alteracao::tipo).toList());
+        } finally {
+            CapturaAlteracoes.parar();
+        }
+    }
+}
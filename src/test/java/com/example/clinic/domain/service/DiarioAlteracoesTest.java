@@ -0,0 +1,74 @@
+package com.example.clinic.domain.service;
+
+import com.example.clinic.diario.Alteracao;
+import com.example.clinic.diario.DiarioAlteracoes;
+import com.example.clinic.diario.LeitorDiario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiarioAlteracoesTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<Long> ids(List<Alteracao> alteracoes) {
+        return alteracoes.stream().map(Alteracao::id).toList();
+    }
+
+    @Test
+    void deveLerEmOrdemAtravesDosSegmentosERetomarAoReabrir() {
+        try (DiarioAlteracoes diario = DiarioAlteracoes.abrir(dir, 4, false)) {
+            for (long id = 1; id <= 6; id++) {
+                diario.anexar(Alteracao.Entidade.PACIENTE, id, Alteracao.Tipo.INSERCAO);
+            }
+            assertThrows(IllegalStateException.class, () -> DiarioAlteracoes.abrir(dir, 4, false));
+        }
+        try (DiarioAlteracoes diario = DiarioAlteracoes.abrir(dir, 4, false)) {
+            assertEquals(6, diario.proximaPosicao());
+            assertEquals(6, diario.anexar(Alteracao.Entidade.CONSULTA, List.of(7L, 8L, 9L), Alteracao.Tipo.REMOCAO));
+
+            LeitorDiario leitor = diario.leitor(0);
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(leitor.ler(5)));
+            List<Alteracao> resto = leitor.ler(100);
+            assertEquals(List.of(6L, 7L, 8L, 9L), ids(resto));
+            assertEquals(new Alteracao(8, Alteracao.Entidade.CONSULTA, 9L, Alteracao.Tipo.REMOCAO, resto.get(3).instante()),
+                    resto.get(3));
+            assertTrue(leitor.ler(100).isEmpty());
+            assertEquals(9, leitor.posicao());
+
+            // Segmentos [0,4) e [4,8) saem; quem ainda estava antes de 8 precisa recarregar
+            assertEquals(2, diario.descartarAntesDe(8));
+            assertEquals(8, diario.primeiraPosicao());
+            assertThrows(IllegalStateException.class, () -> diario.leitor(3).ler(10));
+            assertEquals(List.of(9L), ids(diario.leitor(8).ler(10)));
+        }
+    }
+
+    @Test
+    void deveEntregarAosAssinantesAsAlteracoesNovas() throws Exception {
+        try (DiarioAlteracoes diario = DiarioAlteracoes.abrir(dir, 8, false)) {
+            diario.anexar(Alteracao.Entidade.MEDICO, 1L, Alteracao.Tipo.INSERCAO);
+            List<Alteracao> recebidas = new CopyOnWriteArrayList<>();
+            try (LeitorDiario.Assinatura assinatura = diario.assinar(diario.proximaPosicao(), recebidas::add)) {
+                for (long id = 2; id <= 20; id++) {
+                    diario.anexar(Alteracao.Entidade.MEDICO, id, Alteracao.Tipo.ATUALIZACAO);
+                }
+                long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (assinatura.posicao() < 20 && System.nanoTime() < limite) {
+                    Thread.sleep(10);
+                }
+                assertEquals(20, assinatura.posicao());
+            }
+            assertEquals(19, recebidas.size());
+            assertEquals(2L, recebidas.get(0).id());
+            assertEquals(20L, recebidas.get(18).id());
+        }
+    }
+}
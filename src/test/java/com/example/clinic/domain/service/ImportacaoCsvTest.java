@@ -0,0 +1,107 @@
+package com.example.clinic.domain.service;
+
+import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.dao.jdbc.MedicoDao;
+import com.example.clinic.dao.jdbc.PacienteDao;
+import com.example.clinic.service.MedicoService;
+import com.example.clinic.service.PacienteService;
+import com.example.clinic.service.ResultadoImportacao;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ImportacaoCsvTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void prepararBanco() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:importacao_csv;MODE=Oracle;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(2);
+        OracleConnectionFactory.usarDataSource(new HikariDataSource(config));
+
+        try (Connection con = OracleConnectionFactory.getConnection();
+             Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE pacientes (id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "nome VARCHAR2(120) NOT NULL, email VARCHAR2(120) NOT NULL UNIQUE, versao NUMBER DEFAULT 0 NOT NULL)");
+            st.execute("CREATE TABLE medicos (id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "nome VARCHAR2(120) NOT NULL, crm VARCHAR2(20) NOT NULL UNIQUE, versao NUMBER DEFAULT 0 NOT NULL)");
+        }
+    }
+
+    @AfterAll
+    static void fecharBanco() {
+        OracleConnectionFactory.fechar();
+    }
+
+    @Test
+    void deveImportarCamposEntreAspasERejeitarLinhasInvalidasOuRepetidas() throws Exception {
+        Path csv = escrever("pacientes.csv",
+                "nome,email",
+                "\"Silva, Ana\",ana@csv.com",
+                "\"Bruno \"\"Bê\"\" Costa\",bruno@csv.com",
+                "X,curto@csv.com",
+                "",
+                "Duda",
+                "Eva,ANA@csv.com");
+        Path rejeitadas = dir.resolve("rejeitadas.csv");
+        PacienteService service = new PacienteService(new PacienteDao());
+
+        // O email repetido derruba o lote: o trecho é refeito linha a linha e só a repetida é recusada
+        ResultadoImportacao r = service.importarCsv(csv, rejeitadas);
+        assertEquals(new ResultadoImportacao(5, 2, 3), r);
+        assertEquals("Silva, Ana", service.buscarPorEmail("ana@csv.com").getNome());
+        assertEquals("Bruno \"Bê\" Costa", service.buscarPorEmail("bruno@csv.com").getNome());
+
+        List<String> recusadas = Files.readAllLines(rejeitadas, StandardCharsets.UTF_8);
+        assertEquals(3, recusadas.size());
+        assertEquals("X,curto@csv.com,\"Nome do paciente deve ter pelo menos 2 caracteres\"", recusadas.get(0));
+        assertEquals("Duda,\"Email é obrigatório\"", recusadas.get(1));
+        assertTrue(recusadas.get(2).startsWith("Eva,ANA@csv.com,\""), recusadas.get(2));
+    }
+
+    @Test
+    void deveDescartarBuscasNegativasGuardadasAntesDaImportacao() throws Exception {
+        MedicoService service = new MedicoService(new MedicoDao());
+        assertNull(service.buscarPorCrm("CRM77777"));
+
+        service.importarCsv(escrever("novos.csv", "Dra. Nina,CRM77777"), dir.resolve("novos-rejeitados.csv"));
+        assertEquals("Dra. Nina", service.buscarPorCrm("CRM77777").getNome());
+    }
+
+    @Test
+    void deveInterromperSemRefazerLinhaALinhaQuandoOBancoFalhaPorOutroMotivo() throws Exception {
+        Path csv = escrever("medicos.csv", "Dr. Caio,CRM12345", "Dra. Lia,CRM54321");
+        MedicoDao dao = Mockito.mock(MedicoDao.class);
+        doThrow(new RuntimeException("Erro ao gravar", new SQLTransientConnectionException("pool esgotado")))
+                .when(dao).salvarEmLote(any());
+        MedicoService service = new MedicoService(dao);
+
+        RuntimeException erro = assertThrows(RuntimeException.class,
+                () -> service.importarCsv(csv, dir.resolve("medicos-rejeitados.csv")));
+        assertInstanceOf(SQLTransientConnectionException.class, erro.getCause());
+        verify(dao, never()).salvar(any());
+    }
+
+    private Path escrever(String nome, String... linhas) throws Exception {
+        return Files.write(dir.resolve(nome), List.of(linhas), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.clinic.domain.service;
+
+import com.example.clinic.domain.Consulta;
+import com.example.clinic.service.AgendaService;
+import com.example.clinic.service.IndiceAgenda;
+import com.example.clinic.service.LinhaDoTempo;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class IndiceAgendaTest {
+
+    private final LocalDateTime base = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+
+    @Test
+    void deveDetectarChoqueSemConsultarRepositorioDepoisDeAquecido() {
+        AgendaService.ConsultaRepository repo = Mockito.mock(AgendaService.ConsultaRepository.class);
+        IndiceAgenda indice = new IndiceAgenda(repo, Duration.ZERO);
+        indice.aquecer(List.of(
+                new Consulta(1L, 1L, 10L, base, base.plusHours(2)),
+                new Consulta(2L, 1L, 10L, base.plusHours(3), base.plusHours(3).plusMinutes(30))));
+
+        // A consulta longa das 08:00 ainda cobre 09:30
+        assertTrue(indice.conflita(new Consulta(null, 1L, 10L, base.plusMinutes(90), base.plusMinutes(120))));
+        assertFalse(indice.conflita(new Consulta(null, 1L, 10L, base.plusHours(2), base.plusHours(3))));
+        assertTrue(indice.conflita(new Consulta(null, 1L, 10L, base.plusHours(2).plusMinutes(45), base.plusHours(4))));
+        // Ignora a própria consulta (remarcação)
+        assertFalse(indice.conflita(10L, base.plusHours(3), base.plusHours(3).plusMinutes(15), 2L));
+
+        verify(repo, never()).listarPorMedicoNoIntervalo(anyLong(), any(), any());
+    }
+
+    @Test
+    void deveAcompanharGravacoesEInvalidacoes() {
+        AgendaService.ConsultaRepository repo = Mockito.mock(AgendaService.ConsultaRepository.class);
+        IndiceAgenda indice = new IndiceAgenda(repo, Duration.ZERO);
+        indice.aquecer(List.of(new Consulta(1L, 1L, 10L, base, base.plusMinutes(30))));
+
+        Consulta nova = new Consulta(null, 1L, 10L, base.plusHours(1), base.plusHours(1).plusMinutes(30));
+        assertFalse(indice.conflita(nova));
+        indice.aoSalvar(new Consulta(5L, 1L, 10L, nova.getInicio(), nova.getFim()));
+        assertTrue(indice.conflita(nova));
+        indice.aoDeletar(5L);
+        assertFalse(indice.conflita(nova));
+
+        // Após invalidar, o índice recarrega a agenda do médico a partir do repositório
+        when(repo.listarPorMedicoNoIntervalo(eq(10L), any(), any()))
+                .thenReturn(List.of(new Consulta(7L, 2L, 10L, nova.getInicio(), nova.getFim())));
+        indice.invalidar(10L);
+        assertTrue(indice.conflita(nova));
+        verify(repo, times(1)).listarPorMedicoNoIntervalo(eq(10L), any(), any());
+    }
+
+    @Test
+    void naoDeveRecarregarAgendasAoRemoverConsultaDesconhecida() {
+        AgendaService.ConsultaRepository repo = Mockito.mock(AgendaService.ConsultaRepository.class);
+        IndiceAgenda indice = new IndiceAgenda(repo, Duration.ZERO);
+        indice.aquecer(List.of(new Consulta(1L, 1L, 10L, base, base.plusMinutes(30))));
+
+        indice.aoDeletar(99L);
+        assertTrue(indice.conflita(new Consulta(null, 1L, 10L, base, base.plusMinutes(15))));
+        verify(repo, never()).listarPorMedicoNoIntervalo(anyLong(), any(), any());
+    }
+
+    @Test
+    void naoDeveGuardarCargaQueLeuConsultaRemovidaDuranteACarga() {
+        AgendaService.ConsultaRepository repo = Mockito.mock(AgendaService.ConsultaRepository.class);
+        IndiceAgenda indice = new IndiceAgenda(repo, Duration.ZERO);
+        Consulta removida = new Consulta(8L, 1L, 20L, base, base.plusMinutes(30));
+        // A primeira carga lê a consulta antes do commit da remoção, que é notificada durante a carga
+        when(repo.listarPorMedicoNoIntervalo(eq(20L), any(), any()))
+                .thenAnswer(inv -> {
+                    indice.aoDeletar(8L);
+                    return List.of(removida);
+                })
+                .thenReturn(List.of());
+
+        indice.conflita(removida);
+        assertFalse(indice.conflita(new Consulta(null, 1L, 20L, base, base.plusMinutes(30))));
+        verify(repo, times(2)).listarPorMedicoNoIntervalo(eq(20L), any(), any());
+    }
+
+    @Test
+    void deveDetectarChoqueComConsultaQueNaoTemMinutosInteiros() {
+        // 10:00 às 10:30:30: a busca para trás não pode truncar a maior duração para 30 minutos
+        LinhaDoTempo linha = new LinhaDoTempo();
+        Consulta quebrada = new Consulta(1L, 1L, 10L, base.withHour(10), base.withHour(10).plusMinutes(30).plusSeconds(30));
+        linha.adicionar(quebrada);
+
+        LocalDateTime inicio = base.withHour(10).plusMinutes(30);
+        assertTrue(linha.conflita(inicio, inicio.plusMinutes(15), null));
+        assertEquals(List.of(quebrada), linha.listar(inicio, inicio.plusMinutes(15)));
+        assertFalse(linha.conflita(quebrada.getFim(), quebrada.getFim().plusMinutes(15), null));
+    }
+}
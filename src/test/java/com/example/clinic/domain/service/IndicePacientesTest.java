@@ -0,0 +1,146 @@
+package com.example.clinic.domain.service;
+
+import com.example.clinic.domain.Paciente;
+import com.example.clinic.service.IndicePacientes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndicePacientesTest {
+
+    private IndicePacientes indice;
+
+    @BeforeEach
+    void carregar() {
+        indice = new IndicePacientes();
+        indice.carregarSeNecessario(() -> Stream.of(
+                new Paciente(1L, "José da Silva", "jose.silva@email.com"),
+                new Paciente(2L, "Joséfa Souza", "josefa@email.com"),
+                new Paciente(3L, "Maria Conceição", "maria.c@email.com"),
+                new Paciente(4L, "João Silveira", "joao@clinica.com.br")));
+    }
+
+    private static List<Long> ids(List<Paciente> pacientes) {
+        return pacientes.stream().map(Paciente::getId).toList();
+    }
+
+    @Test
+    void deveBuscarPorPrefixoSemDiferenciarAcentos() {
+        assertEquals(List.of(1L, 2L), ids(indice.buscar("JOSE", 10)));
+        assertEquals(List.of(1L), ids(indice.buscar("jose sil", 10)));
+        assertEquals(List.of(3L), ids(indice.buscar("conceicao", 10)));
+        assertEquals(List.of(4L), ids(indice.buscar("clinica", 10)));
+        assertEquals(List.of(1L), ids(indice.buscar("jose", 1)));
+    }
+
+    @Test
+    void deveCompletarComNomesParecidosQuandoHaErroDeDigitacao() {
+        assertEquals(List.of(3L), ids(indice.buscar("concieçao", 10)));
+        assertTrue(indice.buscar("xyzw", 10).isEmpty());
+    }
+
+    @Test
+    void deveRefletirCadastroAtualizacaoERemocao() {
+        indice.salvar(new Paciente(5L, "Ana Beatriz", "ana@email.com"));
+        indice.salvar(new Paciente(1L, "José Pereira", "jose.pereira@email.com"));
+        indice.remover(2L);
+
+        assertEquals(List.of(5L), ids(indice.buscar("beat", 10)));
+        assertEquals(List.of(1L), ids(indice.buscar("jose", 10)));
+        assertEquals(List.of(4L), ids(indice.buscar("silv", 10)));
+        assertEquals(4, indice.tamanho());
+    }
+
+    @Test
+    void deveManterAsPosicoesAoRemoverEAtualizarPacientesComPalavrasEmComum() {
+        IndicePacientes indice = new IndicePacientes();
+        indice.carregarSeNecessario(() -> LongStream.rangeClosed(1, 60)
+                .mapToObj(id -> new Paciente(id, "Paciente Silva " + letras(id), "p" + id + "@email.com")));
+        for (long id = 1; id <= 60; id += 3) indice.remover(id);
+        for (long id = 2; id <= 60; id += 3) {
+            indice.salvar(new Paciente(id, "Paciente Souza " + letras(id), "p" + id + "@email.com"));
+        }
+
+        Set<Long> silva = LongStream.iterate(3, id -> id <= 60, id -> id + 3).boxed().collect(Collectors.toSet());
+        Set<Long> souza = LongStream.iterate(2, id -> id <= 60, id -> id + 3).boxed().collect(Collectors.toSet());
+        assertEquals(silva, new HashSet<>(ids(indice.buscar("silva", 100))));
+        assertEquals(souza, new HashSet<>(ids(indice.buscar("souza", 100))));
+        // Pelos trigramas: "silvaa" não é prefixo de nada
+        assertEquals(silva, new HashSet<>(ids(indice.buscar("silvaa", 100))));
+        for (long id = 1; id <= 60; id++) {
+            List<Long> achados = ids(indice.buscar(letras(id), 100));
+            assertEquals(id % 3 != 1, achados.contains(id), "paciente " + id);
+        }
+
+        List<Long> restantes = new ArrayList<>(silva);
+        restantes.addAll(souza);
+        restantes.forEach(indice::remover);
+        assertEquals(0, indice.tamanho());
+        assertTrue(indice.buscar("paciente", 10).isEmpty());
+        assertTrue(indice.buscar("silvaa", 10).isEmpty());
+    }
+
+    @Test
+    void deveReconstruirEmSegundoPlanoSemPerderGravacoesFeitasDuranteAVarredura() throws Exception {
+        List<Paciente> base = new CopyOnWriteArrayList<>(List.of(
+                new Paciente(1L, "José da Silva", "jose.silva@email.com"),
+                new Paciente(2L, "Maria Conceição", "maria.c@email.com")));
+        AtomicInteger cargas = new AtomicInteger();
+        CountDownLatch varrendo = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        IndicePacientes indice = new IndicePacientes();
+        indice.carregarSeNecessario(() -> {
+            List<Paciente> lidos = List.copyOf(base);
+            if (cargas.incrementAndGet() > 1) {
+                varrendo.countDown();
+                aguardar(liberar);
+            }
+            return lidos.stream();
+        });
+
+        // Importação em massa: o índice não recebe os ids, só o pedido de reconstrução
+        base.add(new Paciente(3L, "Ana Lima", "ana.lima@email.com"));
+        var reconstrucao = indice.invalidar();
+        assertTrue(varrendo.await(5, TimeUnit.SECONDS));
+
+        // Durante a varredura as buscas seguem respondidas e as gravações não esperam por ela
+        assertEquals(List.of(2L), ids(indice.buscar("conceicao", 10)));
+        indice.remover(1L);
+        indice.salvar(new Paciente(4L, "Ana Beatriz", "ana.b@email.com"));
+        assertEquals(List.of(4L), ids(indice.buscar("ana", 10)));
+
+        liberar.countDown();
+        reconstrucao.get(5, TimeUnit.SECONDS);
+        assertEquals(Set.of(3L, 4L), new HashSet<>(ids(indice.buscar("ana", 10))));
+        assertTrue(indice.buscar("jose", 10).isEmpty());
+        assertEquals(3, indice.tamanho());
+    }
+
+    // Palavra só de letras única por id (12 -> "kbc"), para ter trigramas próprios
+    private static String letras(long id) {
+        StringBuilder sb = new StringBuilder("k");
+        for (char c : Long.toString(id).toCharArray()) sb.append((char) ('a' + c - '0'));
+        return sb.toString();
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
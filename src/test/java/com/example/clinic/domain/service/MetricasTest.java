@@ -0,0 +1,31 @@
+package com.example.clinic.domain.service;
+
+import com.example.clinic.metricas.Medidor;
+import com.example.clinic.metricas.Metricas;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricasTest {
+
+    @Test
+    void deveContarChamadasErrosEPercentis() {
+        Medidor medidor = Metricas.medidor("MetricasTest.operacao");
+        medidor.zerar();
+
+        // 1 a 1000 microssegundos
+        for (int i = 1; i <= 1000; i++) {
+            medidor.registrar(i * 1_000L);
+        }
+        assertThrows(IllegalStateException.class,
+                () -> Metricas.medir(medidor, () -> { throw new IllegalStateException("falha"); }));
+
+        assertEquals(1001, medidor.getChamadas());
+        assertEquals(1, medidor.getErros());
+        assertEquals(1000.0, medidor.getMaxMicros(), 0.001);
+        // Percentis aproximados com erro de até 12,5%
+        assertEquals(500.0, medidor.getP50Micros(), 500.0 * 0.125);
+        assertEquals(990.0, medidor.getP99Micros(), 990.0 * 0.125);
+        assertSame(medidor, Metricas.medidor("MetricasTest.operacao"));
+    }
+}
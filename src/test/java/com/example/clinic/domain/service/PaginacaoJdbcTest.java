@@ -0,0 +1,98 @@
+package com.example.clinic.domain.service;
+
+import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.dao.jdbc.ConsultaJdbcRepository;
+import com.example.clinic.dao.jdbc.MedicoDao;
+import com.example.clinic.dao.jdbc.PacienteDao;
+import com.example.clinic.domain.Consulta;
+import com.example.clinic.domain.Medico;
+import com.example.clinic.domain.Paciente;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaginacaoJdbcTest {
+
+    @BeforeAll
+    static void prepararBanco() throws Exception {
+        // Uma única conexão: um Stream que não a devolvesse travaria a consulta seguinte
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:paginacao;MODE=Oracle;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(1);
+        config.setConnectionTimeout(1000);
+        OracleConnectionFactory.usarDataSource(new HikariDataSource(config));
+
+        try (Connection con = OracleConnectionFactory.getConnection();
+             Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE pacientes (id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "nome VARCHAR2(120) NOT NULL, email VARCHAR2(120) NOT NULL UNIQUE, versao NUMBER DEFAULT 0 NOT NULL)");
+            st.execute("CREATE TABLE medicos (id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "nome VARCHAR2(120) NOT NULL, crm VARCHAR2(20) NOT NULL UNIQUE, versao NUMBER DEFAULT 0 NOT NULL)");
+            st.execute("CREATE SEQUENCE consultas_seq");
+            st.execute("CREATE TABLE consultas (id NUMBER DEFAULT consultas_seq.NEXTVAL PRIMARY KEY, " +
+                    "paciente_id NUMBER NOT NULL REFERENCES pacientes(id), medico_id NUMBER NOT NULL REFERENCES medicos(id), " +
+                    "inicio TIMESTAMP NOT NULL, fim TIMESTAMP NOT NULL, versao NUMBER DEFAULT 0 NOT NULL, CONSTRAINT chk_intervalo CHECK (fim > inicio))");
+        }
+
+        PacienteDao pacientes = new PacienteDao();
+        MedicoDao medicos = new MedicoDao();
+        ConsultaJdbcRepository consultas = new ConsultaJdbcRepository();
+        LocalDate dia = LocalDate.of(2030, 6, 3);
+        for (int i = 1; i <= 5; i++) {
+            pacientes.salvar(new Paciente(null, "Paciente " + i, "p" + i + "@email.com"));
+            medicos.salvar(new Medico(null, "Medico " + i, "CRM2000" + i));
+            consultas.salvar(new Consulta(null, 1L, 1L, dia.atTime(8 + i, 0), dia.atTime(8 + i, 30)));
+        }
+    }
+
+    @AfterAll
+    static void fecharBanco() {
+        OracleConnectionFactory.fechar();
+    }
+
+    @Test
+    void devePaginarPorChaveAteUmaPaginaVazia() {
+        PacienteDao pacientes = new PacienteDao();
+        assertEquals(List.of(1L, 2L), pacientes.listarPagina(0, 2).stream().map(Paciente::getId).toList());
+        assertEquals(List.of(3L, 4L), pacientes.listarPagina(2, 2).stream().map(Paciente::getId).toList());
+        // Última página incompleta e, depois dela, página vazia
+        assertEquals(List.of(5L), pacientes.listarPagina(4, 2).stream().map(Paciente::getId).toList());
+        assertTrue(pacientes.listarPagina(5, 2).isEmpty());
+
+        assertEquals(List.of("CRM20004", "CRM20005"),
+                new MedicoDao().listarPagina(3, 10).stream().map(Medico::getCrm).toList());
+        List<Consulta> consultas = new ConsultaJdbcRepository().listarPagina(1, 3);
+        assertEquals(List.of(2L, 3L, 4L), consultas.stream().map(Consulta::getId).toList());
+    }
+
+    @Test
+    void devePercorrerEmOrdemEDevolverAConexaoAoFecharOStream() {
+        PacienteDao pacientes = new PacienteDao();
+        try (Stream<Paciente> todos = pacientes.percorrerTodos()) {
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L), todos.map(Paciente::getId).toList());
+        }
+
+        // Fechado no meio da leitura: a conexão volta ao pool de uma conexão só
+        for (int i = 0; i < 3; i++) {
+            try (Stream<Consulta> consultas = new ConsultaJdbcRepository().percorrerTodas()) {
+                Iterator<Consulta> it = consultas.iterator();
+                assertEquals(1L, it.next().getId());
+            }
+            try (Stream<Medico> medicos = new MedicoDao().percorrerTodos()) {
+                assertEquals(2, medicos.limit(2).count());
+            }
+        }
+        assertEquals(5, pacientes.listarPagina(0, 10).size());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.clinic.domain.service;
+
+import com.example.clinic.dao.jdbc.ConsultaJdbcRepository;
+import com.example.clinic.domain.Consulta;
+import com.example.clinic.domain.Paciente;
+import com.example.clinic.service.AgendaService;
+import com.example.clinic.service.MedicoService;
+import com.example.clinic.service.PacienteService;
+import com.example.clinic.ui.http.ServidorHttp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServidorHttpTest {
+
+    private final AgendaService agenda = Mockito.mock(AgendaService.class);
+    private final PacienteService pacientes = Mockito.mock(PacienteService.class);
+    private final MedicoService medicos = Mockito.mock(MedicoService.class);
+    private final ConsultaJdbcRepository consultas = Mockito.mock(ConsultaJdbcRepository.class);
+    private final HttpClient cliente = HttpClient.newHttpClient();
+    private ServidorHttp servidor;
+
+    @BeforeEach
+    void iniciar() throws Exception {
+        servidor = new ServidorHttp(agenda, pacientes, medicos, consultas);
+        servidor.iniciar(0);
+    }
+
+    @AfterEach
+    void parar() {
+        servidor.parar(0);
+    }
+
+    @Test
+    void deveExporPacientesEAgendamentoComoJson() throws Exception {
+        when(pacientes.cadastrar("Ana Souza", "ana@clinica.com")).thenReturn(7L);
+        when(pacientes.buscarPorId(7L)).thenReturn(new Paciente(7L, "Ana \"Aninha\" Souza", "ana@clinica.com", 3));
+        when(agenda.agendar(any())).thenReturn(99L);
+
+        HttpResponse<String> criado = enviar("POST", "/pacientes", "{\"nome\": \"Ana Souza\", \"email\": \"ana@clinica.com\"}");
+        assertEquals(201, criado.statusCode());
+        assertEquals("{\"id\":7}", criado.body());
+
+        HttpResponse<String> lido = enviar("GET", "/pacientes/7", null);
+        assertEquals(200, lido.statusCode());
+        assertEquals("{\"id\":7,\"nome\":\"Ana \\\"Aninha\\\" Souza\",\"email\":\"ana@clinica.com\",\"versao\":3}", lido.body());
+
+        assertEquals(404, enviar("GET", "/pacientes/8", null).statusCode());
+
+        HttpResponse<String> agendada = enviar("POST", "/consultas",
+                "{\"pacienteId\": 7, \"medicoId\": 3, \"inicio\": \"2030-01-10T14:00\", \"duracaoMinutos\": 30}");
+        assertEquals(201, agendada.statusCode());
+        ArgumentCaptor<Consulta> consulta = ArgumentCaptor.forClass(Consulta.class);
+        verify(agenda).agendar(consulta.capture());
+        assertEquals(LocalDateTime.of(2030, 1, 10, 14, 30), consulta.getValue().getFim());
+        assertEquals(3L, consulta.getValue().getMedicoId());
+    }
+
+    @Test
+    void deveTraduzirErrosDeRegraEmStatusHttp() throws Exception {
+        when(agenda.agendar(any())).thenThrow(new IllegalStateException("Choque de horário"));
+        when(pacientes.cadastrar(any(), any())).thenThrow(new IllegalArgumentException("Email é obrigatório"));
+
+        HttpResponse<String> choque = enviar("POST", "/consultas",
+                "{\"pacienteId\": 1, \"medicoId\": 1, \"inicio\": \"2030-01-10T14:00\", \"fim\": \"2030-01-10T14:30\"}");
+        assertEquals(409, choque.statusCode());
+        assertEquals("{\"erro\":\"Choque de horário\"}", choque.body());
+
+        assertEquals(400, enviar("POST", "/pacientes", "{\"nome\": \"Ana\"}").statusCode());
+        assertEquals(400, enviar("POST", "/pacientes", "{nome").statusCode());
+        assertEquals(405, enviar("DELETE", "/pacientes", null).statusCode());
+    }
+
+    @Test
+    void deveResponder400QuandoFaltaCampoObrigatorioNoCorpo() throws Exception {
+        HttpResponse<String> semEmail = enviar("PUT", "/pacientes/7", "{\"nome\": \"Ana Souza\", \"versao\": 0}");
+        assertEquals(400, semEmail.statusCode());
+        assertEquals("{\"erro\":\"Campo obrigatório: email\"}", semEmail.body());
+        assertEquals(400, enviar("PUT", "/medicos/3", "{\"nome\": \"Dr. Caio\", \"versao\": 0}").statusCode());
+        HttpResponse<String> semInicio = enviar("POST", "/consultas",
+                "{\"pacienteId\": 1, \"medicoId\": 1, \"duracaoMinutos\": 30}");
+        assertEquals(400, semInicio.statusCode());
+        assertEquals("{\"erro\":\"Campo obrigatório: inicio\"}", semInicio.body());
+        assertEquals(400, enviar("PUT", "/consultas/5", "{\"duracaoMinutos\": 30}").statusCode());
+
+        verify(pacientes, never()).atualizar(any());
+        verify(medicos, never()).atualizar(any());
+        verify(agenda, never()).agendar(any());
+    }
+
+    @Test
+    void deveRecusarCorpoGrandeOuAninhadoDemaisSemDerrubarOAtendimento() throws Exception {
+        // Sem o limite de aninhamento, 50 mil níveis estourariam a pilha da thread do pool
+        HttpResponse<String> aninhado = enviar("POST", "/consultas/lote", "[".repeat(50_000) + "]".repeat(50_000));
+        assertEquals(400, aninhado.statusCode());
+        assertTrue(aninhado.body().contains("níveis de aninhamento"), aninhado.body());
+        verify(agenda, never()).agendarEmLote(any());
+
+        System.setProperty("CLINICA_HTTP_CORPO_MAX_KB", "1");
+        try {
+            servidor.parar(0);
+            servidor.iniciar(0);
+        } finally {
+            System.clearProperty("CLINICA_HTTP_CORPO_MAX_KB");
+        }
+
+        HttpResponse<String> grande = enviar("POST", "/pacientes",
+                "{\"nome\": \"" + "a".repeat(2048) + "\", \"email\": \"ana@clinica.com\"}");
+        assertEquals(413, grande.statusCode());
+
+        // O pool continua atendendo
+        assertEquals(405, enviar("DELETE", "/pacientes", null).statusCode());
+    }
+
+    private HttpResponse<String> enviar(String metodo, String caminho, String corpo) throws Exception {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create("http://localhost:" + servidor.porta() + caminho))
+                .timeout(Duration.ofSeconds(10))
+                .method(metodo, corpo == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(corpo));
+        return cliente.send(req.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.clinic.domain.service;
+
+import com.example.clinic.config.OracleConnectionFactory;
+import com.example.clinic.config.Transacoes;
+import com.example.clinic.dao.jdbc.MedicoDao;
+import com.example.clinic.dao.jdbc.ModificacaoConcorrenteException;
+import com.example.clinic.dao.jdbc.PacienteDao;
+import com.example.clinic.diario.Alteracao;
+import com.example.clinic.diario.CapturaAlteracoes;
+import com.example.clinic.diario.DiarioAlteracoes;
+import com.example.clinic.domain.Medico;
+import com.example.clinic.domain.Paciente;
+import com.example.clinic.service.MedicoService;
+import com.example.clinic.service.PacienteService;
+import com.example.clinic.service.ResultadoSincronizacao;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SincronizacaoCadastrosTest {
+
+    @BeforeAll
+    static void prepararBanco() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:sincronizacao;MODE=Oracle;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(2);
+        OracleConnectionFactory.usarDataSource(new HikariDataSource(config));
+
+        try (Connection con = OracleConnectionFactory.getConnection();
+             Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE pacientes (id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "nome VARCHAR2(120) NOT NULL, email VARCHAR2(120) NOT NULL UNIQUE, versao NUMBER DEFAULT 0 NOT NULL)");
+            st.execute("CREATE TABLE medicos (id NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "nome VARCHAR2(120) NOT NULL, crm VARCHAR2(20) NOT NULL UNIQUE, versao NUMBER DEFAULT 0 NOT NULL)");
+        }
+    }
+
+    @AfterAll
+    static void fecharBanco() {
+        OracleConnectionFactory.fechar();
+    }
+
+    @Test
+    void deveContarInseridosAtualizadosEInalteradosAoReprocessarALista() {
+        PacienteService service = new PacienteService(new PacienteDao());
+        List<Paciente> lista = new ArrayList<>();
+        for (int i = 1; i <= 1500; i++) {
+            lista.add(new Paciente(null, "Paciente " + i, "p" + i + "@email.com"));
+        }
+        lista.add(new Paciente(null, "Sem Email", " "));
+
+        ResultadoSincronizacao primeira = service.cadastrarOuAtualizarEmLote(lista);
+        assertEquals(1501, primeira.recebidos());
+        assertEquals(1500, primeira.inseridos());
+        assertEquals(1, primeira.rejeitados());
+        assertTrue(primeira.rejeicoes().get(0).startsWith("item 1500:"));
+
+        // Reprocessar a mesma carga não altera nada; só os nomes trocados são atualizados
+        assertEquals(1500, service.cadastrarOuAtualizarEmLote(lista).inalterados());
+        lista.set(0, new Paciente(null, "Paciente Renomeado", "P1@EMAIL.COM"));
+        ResultadoSincronizacao segunda = service.cadastrarOuAtualizarEmLote(lista);
+        assertEquals(0, segunda.inseridos());
+        assertEquals(1, segunda.atualizados());
+        assertEquals(1499, segunda.inalterados());
+        assertEquals("Paciente Renomeado", service.buscarPorEmail("p1@email.com").getNome());
+        assertEquals(1500, service.listarTodos().size());
+    }
+
+    @Test
+    void deveMesclarMedicosPeloCrmERefletirNoCache() {
+        MedicoService service = new MedicoService(new MedicoDao());
+        service.cadastrarOuAtualizarEmLote(List.of(new Medico(null, "Dra. Ana", "CRM9000")));
+        assertEquals("Dra. Ana", service.buscarPorCrm("CRM9000").getNome());
+
+        ResultadoSincronizacao r = service.cadastrarOuAtualizarEmLote(
+                List.of(new Medico(null, "Dra. Ana Souza", "CRM9000"), new Medico(null, "Dr. Beto", "CRM9001")));
+        assertEquals(1, r.inseridos());
+        assertEquals(1, r.atualizados());
+        assertEquals("Dra. Ana Souza", service.buscarPorCrm("CRM9000").getNome());
+
+        // Item nulo é recusado como os inválidos, sem interromper os demais
+        ResultadoSincronizacao comNulo = service.cadastrarOuAtualizarEmLote(
+                Arrays.asList(new Medico(null, "Dr. Caio", "CRM9002"), null));
+        assertEquals(1, comNulo.inseridos());
+        assertEquals(List.of("item 1: item nulo"), comNulo.rejeicoes());
+    }
+
+    @Test
+    void deveRecusarAtualizacaoSobreVersaoDesatualizada() {
+        PacienteService service = new PacienteService(new PacienteDao());
+        Long id = service.cadastrar("Carla Dias", "carla@versao.com");
+        Paciente lidoPorA = service.buscarPorId(id);
+        Paciente lidoPorB = service.buscarPorId(id);
+        assertEquals(0, lidoPorA.getVersao());
+
+        service.atualizar(new Paciente(id, "Carla Dias Souza", lidoPorA.getEmail(), lidoPorA.getVersao()));
+        ModificacaoConcorrenteException e = assertThrows(ModificacaoConcorrenteException.class,
+                () -> service.atualizar(new Paciente(id, lidoPorB.getNome(), "carla.dias@versao.com", lidoPorB.getVersao())));
+        assertEquals(id, e.getId());
+
+        Paciente atual = service.buscarPorId(id);
+        assertEquals("Carla Dias Souza", atual.getNome());
+        assertEquals("carla@versao.com", atual.getEmail());
+        assertEquals(1, atual.getVersao());
+
+        // A mescla em lote também conta como alteração
+        service.cadastrarOuAtualizarEmLote(List.of(new Paciente(null, "Carla D. Souza", "carla@versao.com")));
+        assertEquals(2, service.buscarPorId(id).getVersao());
+        service.deletar(id);
+    }
+
+    @Test
+    void deveRegistrarNoDiarioSoAsEscritasConfirmadas(@TempDir Path dir) {
+        PacienteDao dao = new PacienteDao();
+        CapturaAlteracoes.usar(DiarioAlteracoes.abrir(dir, 16, false));
+        try {
+            Long id = dao.salvar(new Paciente(null, "Davi Lima", "davi@diario.com"));
+            assertThrows(IllegalStateException.class, () -> Transacoes.executar(con -> {
+                dao.salvar(new Paciente(null, "Desfeito", "desfeito@diario.com"));
+                throw new IllegalStateException("rollback");
+            }));
+            dao.atualizar(new Paciente(id, "Davi Lima Neto", "davi@diario.com", 0));
+            dao.deletar(id);
+
+            List<Alteracao> lidas = CapturaAlteracoes.atual().leitor(0).ler(10);
+            assertEquals(List.of(Alteracao.Tipo.INSERCAO, Alteracao.Tipo.ATUALIZACAO, Alteracao.Tipo.REMOCAO),
+                    lidas.stream().map(Alteracao::tipo).toList());
+            assertTrue(lidas.stream().allMatch(a -> a.id() == id && a.entidade() == Alteracao.Entidade.PACIENTE));
+        } finally {
+            CapturaAlteracoes.parar();
+        }
+    }
+}